@@ -7,3 +7,19 @@ dependencies {
   jmh(libs.jmh.core)
   jmhAnnotationProcessor(libs.jmh.generator.annprocess)
 }
+
+// -PvectorApi=true runs every fork with the Vector API kernels, -PvectorApi=false with the scalar
+// ones; without the flag the forks use whatever the JVM resolves by default (scalar).
+providers.gradleProperty("vectorApi").orNull?.let { enabled ->
+  jmh {
+    jvmArgsAppend.addAll("--add-modules=jdk.incubator.vector", "-Dsudokuscope.vector=$enabled")
+  }
+}
+
+// -Pbenchmarks=<regex> runs only the matching benchmarks, e.g. -Pbenchmarks=NodeThroughput.
+providers.gradleProperty("benchmarks").orNull?.let { pattern -> jmh { includes.add(pattern) } }
+
+// -Pprofilers=gc (comma-separated) attaches JMH profilers, e.g. for allocation rates.
+providers.gradleProperty("profilers").orNull?.let { names ->
+  jmh { profilers.addAll(names.split(",")) }
+}
@@ -0,0 +1,56 @@
+package com.darren.sudokuscope.bench;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.AnalysisResult;
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import com.darren.sudokuscope.core.solver.SudokuSolver;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the allocating {@code analyze} call with {@code analyzeInto} over a caller-owned board
+ * and result holder. Run with {@code -prof gc}: {@code analyzeInto} should report about 0 B/op.
+ */
+@State(Scope.Thread)
+public class AnalysisAllocationBenchmark {
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+  private final SolverOptions options = SolverOptions.uniquenessProbe();
+  private final AnalysisResult result = new AnalysisResult();
+  private SudokuBoard puzzle;
+  private byte[] cells;
+
+  @Setup
+  public void setUp() {
+    puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "800000000",
+                    "003600000",
+                    "070090200",
+                    "050007000",
+                    "000045700",
+                    "000100030",
+                    "001000068",
+                    "008500010",
+                    "090000400"))
+            .build();
+    cells = puzzle.toByteArray();
+  }
+
+  @Benchmark
+  public SudokuAnalysis analyze() {
+    return solver.analyze(puzzle, options);
+  }
+
+  @Benchmark
+  public AnalysisResult analyzeInto() {
+    solver.analyzeInto(cells, options, result);
+    return result;
+  }
+}
@@ -0,0 +1,73 @@
+package com.darren.sudokuscope.bench;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.CanonicalForm;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Canonicalizations per second for a typical puzzle, a sparse board whose empty rows tie for many
+ * transforms, and a completed grid whose first row ties under every column order.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class CanonicalFormBenchmark {
+  @Param({"PUZZLE", "SPARSE", "SOLVED"})
+  private String board;
+
+  private SudokuBoard input;
+
+  @Setup
+  public void setUp() {
+    List<String> rows =
+        switch (board) {
+          case "PUZZLE" ->
+              List.of(
+                  "800000000",
+                  "003600000",
+                  "070090200",
+                  "050007000",
+                  "000045700",
+                  "000100030",
+                  "001000068",
+                  "008500010",
+                  "090000400");
+          case "SPARSE" ->
+              List.of(
+                  "000000000",
+                  "020000000",
+                  "000000000",
+                  "000010000",
+                  "000000000",
+                  "000000000",
+                  "000000000",
+                  "000000000",
+                  "300200000");
+          case "SOLVED" ->
+              List.of(
+                  "534678912",
+                  "672195348",
+                  "198342567",
+                  "859761423",
+                  "426853791",
+                  "713924856",
+                  "961537284",
+                  "287419635",
+                  "345286179");
+          default -> throw new IllegalArgumentException("Unknown board " + board);
+        };
+    input = new BoardBuilder().withStringRows(rows).build();
+  }
+
+  @Benchmark
+  public CanonicalForm canonicalForm() {
+    return input.canonicalForm();
+  }
+}
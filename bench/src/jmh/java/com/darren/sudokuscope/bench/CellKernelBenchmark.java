@@ -0,0 +1,106 @@
+package com.darren.sudokuscope.bench;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.simd.CellKernels;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the scalar and Vector API cell kernels directly. End-to-end solver throughput with
+ * either kernel set is measured by running the other benchmarks with {@code -PvectorApi=true} or
+ * {@code -PvectorApi=false}.
+ */
+@State(Scope.Benchmark)
+@Fork(jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class CellKernelBenchmark {
+  @Param({"scalar", "vector"})
+  private String kernel;
+
+  private CellKernels kernels;
+  private byte[] solvedGrid;
+  private final int[] rowMasks = new int[SudokuBoard.SIZE];
+  private final int[] columnMasks = new int[SudokuBoard.SIZE];
+  private final int[] boxMasks = new int[SudokuBoard.SIZE];
+  private long emptyLow;
+  private long emptyHigh;
+  private final long[] planesLow = new long[SudokuBoard.SIZE];
+  private final long[] planesHigh = new long[SudokuBoard.SIZE];
+
+  @Setup
+  public void setUp() {
+    kernels =
+        "vector".equals(kernel)
+            ? CellKernels.vector()
+                .orElseThrow(() -> new IllegalStateException("Vector API kernels unavailable"))
+            : CellKernels.scalar();
+    solvedGrid =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "534678912",
+                    "672195348",
+                    "198342567",
+                    "859761423",
+                    "426853791",
+                    "713924856",
+                    "961537284",
+                    "287419635",
+                    "345286179"))
+            .build()
+            .toByteArray();
+    byte[] puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "060000280",
+                    "000419005",
+                    "000080079"))
+            .build()
+            .toByteArray();
+    for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      if (puzzle[cell] == 0) {
+        if (cell < Long.SIZE) {
+          emptyLow |= 1L << cell;
+        } else {
+          emptyHigh |= 1L << cell;
+        }
+        continue;
+      }
+      int bit = 1 << (puzzle[cell] - 1);
+      rowMasks[row] |= bit;
+      columnMasks[col] |= bit;
+      boxMasks[(row / 3) * 3 + col / 3] |= bit;
+    }
+  }
+
+  @Benchmark
+  public boolean validateSolvedGrid() {
+    return kernels.hasDuplicates(solvedGrid);
+  }
+
+  @Benchmark
+  public int selectPivot() {
+    return kernels.fewestCandidates(rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh);
+  }
+
+  @Benchmark
+  public long[] buildCandidatePlanes() {
+    kernels.candidatePlanes(
+        rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh, planesLow, planesHigh);
+    return planesLow;
+  }
+}
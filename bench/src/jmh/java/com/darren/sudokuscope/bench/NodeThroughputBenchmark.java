@@ -0,0 +1,85 @@
+package com.darren.sudokuscope.bench;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.PropagationLevel;
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import com.darren.sudokuscope.core.solver.SudokuSolver;
+import java.util.List;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Reports search nodes per second of the backtracking engine next to the call rate, so changes to
+ * the search loop can be compared independently of how many nodes a workload needs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class NodeThroughputBenchmark {
+  @Param({"NONE", "NAKED_SINGLES", "HIDDEN_SINGLES"})
+  private PropagationLevel propagation;
+
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+  private SudokuBoard hardPuzzle;
+  private SudokuBoard sparsePuzzle;
+
+  /** Per-thread node counter; JMH reports it as a rate alongside the primary score. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Nodes {
+    public long nodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      nodes = 0;
+    }
+  }
+
+  @Setup
+  public void setUp() {
+    hardPuzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "800000000",
+                    "003600000",
+                    "070090200",
+                    "050007000",
+                    "000045700",
+                    "000100030",
+                    "001000068",
+                    "008500010",
+                    "090000400"))
+            .build();
+    sparsePuzzle = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+  }
+
+  @Benchmark
+  public SudokuAnalysis solveHardPuzzle(Nodes counter) {
+    return count(counter, solver.analyze(hardPuzzle, options(2)));
+  }
+
+  @Benchmark
+  public SudokuAnalysis countSparsePuzzle(Nodes counter) {
+    return count(counter, solver.analyze(sparsePuzzle, options(20_000)));
+  }
+
+  private static SudokuAnalysis count(Nodes counter, SudokuAnalysis analysis) {
+    counter.nodes += analysis.exploredNodes();
+    return analysis;
+  }
+
+  private SolverOptions options(int maxSolutions) {
+    return SolverOptions.defaultOptions()
+        .withMaxSolutions(maxSolutions)
+        .withPropagation(propagation);
+  }
+}
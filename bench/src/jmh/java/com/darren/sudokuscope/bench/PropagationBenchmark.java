@@ -0,0 +1,80 @@
+package com.darren.sudokuscope.bench;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.PropagationLevel;
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import com.darren.sudokuscope.core.solver.SudokuSolver;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/** Compares the backtracking engine's propagation levels on solving and counting workloads. */
+@State(Scope.Benchmark)
+public class PropagationBenchmark {
+  @Param({"NONE", "NAKED_SINGLES", "HIDDEN_SINGLES", "LOCKED_CANDIDATES", "SUBSETS"})
+  private PropagationLevel propagation;
+
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+  private SudokuBoard seventeenClues;
+  private SudokuBoard hardPuzzle;
+  private SudokuBoard sparsePuzzle;
+
+  @Setup
+  public void setUp() {
+    seventeenClues =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "000000010",
+                    "400000000",
+                    "020000000",
+                    "000050407",
+                    "008000300",
+                    "001090000",
+                    "300400200",
+                    "050100000",
+                    "000806000"))
+            .build();
+    hardPuzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "800000000",
+                    "003600000",
+                    "070090200",
+                    "050007000",
+                    "000045700",
+                    "000100030",
+                    "001000068",
+                    "008500010",
+                    "090000400"))
+            .build();
+    sparsePuzzle = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+  }
+
+  @Benchmark
+  public SudokuAnalysis solveSeventeenClues() {
+    return solver.analyze(seventeenClues, options(2));
+  }
+
+  @Benchmark
+  public SudokuAnalysis solveHardPuzzle() {
+    return solver.analyze(hardPuzzle, options(2));
+  }
+
+  @Benchmark
+  public SudokuAnalysis countSparsePuzzle() {
+    return solver.analyze(sparsePuzzle, options(20_000));
+  }
+
+  private SolverOptions options(int maxSolutions) {
+    return SolverOptions.defaultOptions()
+        .withMaxSolutions(maxSolutions)
+        .withPropagation(propagation);
+  }
+}
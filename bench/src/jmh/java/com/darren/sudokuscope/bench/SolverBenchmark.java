@@ -3,22 +3,30 @@ package com.darren.sudokuscope.bench;
 import com.darren.sudokuscope.core.BoardBuilder;
 import com.darren.sudokuscope.core.SudokuBoard;
 import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SolverStrategy;
 import com.darren.sudokuscope.core.solver.SudokuAnalysis;
 import com.darren.sudokuscope.core.solver.SudokuSolver;
 import java.util.List;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 @State(Scope.Benchmark)
 public class SolverBenchmark {
+  // BAND_DECOMPOSITION is left out: these boards have clues in several bands and stacks, which it
+  // declines at once.
+  @Param({"BACKTRACKING", "DANCING_LINKS", "MEMOIZED_COUNT"})
+  private SolverStrategy strategy;
+
   private SudokuSolver solver;
   private SudokuBoard puzzle;
+  private SudokuBoard sparsePuzzle;
 
   @Setup
   public void setUp() {
-    solver = SudokuSolver.createDefault();
+    solver = SudokuSolver.create(strategy);
     puzzle =
         new BoardBuilder()
             .withStringRows(
@@ -33,10 +41,38 @@ public class SolverBenchmark {
                     "000419005",
                     "000080079"))
             .build();
+    sparsePuzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "000000000",
+                    "000000000",
+                    "000000000"))
+            .build();
   }
 
   @Benchmark
   public SudokuAnalysis analyzePuzzle() {
     return solver.analyze(puzzle, SolverOptions.findFirstSolution());
   }
+
+  @Benchmark
+  public SudokuAnalysis countSparsePuzzle() {
+    return solver.analyze(sparsePuzzle, SolverOptions.defaultOptions().withMaxSolutions(-1));
+  }
+
+  @Benchmark
+  public SudokuAnalysis countSparsePuzzleParallel() {
+    SolverOptions options =
+        SolverOptions.defaultOptions()
+            .withMaxSolutions(-1)
+            .withParallelism(Runtime.getRuntime().availableProcessors());
+    return solver.analyze(sparsePuzzle, options);
+  }
 }
@@ -0,0 +1,11 @@
+plugins { id("application") }
+
+dependencies {
+  implementation(project(":core"))
+  runtimeOnly(libs.logback.classic)
+}
+
+application {
+  mainClass.set("com.darren.sudokuscope.cli.SudokuScopeCli")
+  applicationName = "sudokuscope"
+}
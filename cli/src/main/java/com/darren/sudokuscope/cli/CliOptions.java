@@ -0,0 +1,79 @@
+package com.darren.sudokuscope.cli;
+
+import java.nio.file.Path;
+
+/** Parsed command line; {@code output} is {@code null} for standard output. */
+record CliOptions(
+    Path input,
+    Path output,
+    int threads,
+    int maxSolutions,
+    long nodeBudget,
+    boolean unordered,
+    boolean help) {
+  private static final int DEFAULT_MAX_SOLUTIONS = 2;
+
+  /**
+   * @throws IllegalArgumentException with a message for the user if the arguments are unusable
+   */
+  static CliOptions parse(String[] args) {
+    Path input = null;
+    Path output = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    int maxSolutions = DEFAULT_MAX_SOLUTIONS;
+    long nodeBudget = 0L;
+    boolean unordered = false;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      switch (arg) {
+        case "-h", "--help" -> {
+          return new CliOptions(null, null, threads, maxSolutions, nodeBudget, unordered, true);
+        }
+        case "-o", "--output" -> output = Path.of(value(args, ++i, arg));
+        case "-t", "--threads" -> threads = (int) number(args, ++i, arg, 1, 4096);
+        case "-m", "--max-solutions" -> {
+          maxSolutions = (int) number(args, ++i, arg, -1, Integer.MAX_VALUE);
+          if (maxSolutions == 0) {
+            throw new IllegalArgumentException(arg + " must not be 0; use -1 for no limit");
+          }
+        }
+        case "-b", "--node-budget" -> nodeBudget = number(args, ++i, arg, 1, Long.MAX_VALUE);
+        case "--unordered" -> unordered = true;
+        default -> {
+          if (arg.startsWith("-")) {
+            throw new IllegalArgumentException("unknown option " + arg);
+          }
+          if (input != null) {
+            throw new IllegalArgumentException("only one puzzle file may be given");
+          }
+          input = Path.of(arg);
+        }
+      }
+    }
+    if (input == null) {
+      throw new IllegalArgumentException("no puzzle file given");
+    }
+    return new CliOptions(input, output, threads, maxSolutions, nodeBudget, unordered, false);
+  }
+
+  private static String value(String[] args, int index, String option) {
+    if (index >= args.length) {
+      throw new IllegalArgumentException(option + " needs a value");
+    }
+    return args[index];
+  }
+
+  private static long number(String[] args, int index, String option, long min, long max) {
+    String text = value(args, index, option);
+    long number;
+    try {
+      number = Long.parseLong(text);
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException(option + " expects a number but got " + text);
+    }
+    if (number < min || number > max) {
+      throw new IllegalArgumentException(option + " must be between " + min + " and " + max);
+    }
+    return number;
+  }
+}
@@ -0,0 +1,171 @@
+package com.darren.sudokuscope.cli;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads puzzles from a memory-mapped file, byte by byte, without building a String per line.
+ *
+ * <p>A puzzle is either one line holding at least 81 cells, with anything after the 81st ignored
+ * (one-line collections, "puzzle,solution" CSV, puzzles followed by a rating), or nine consecutive
+ * lines of nine cells each (grid layouts). Digits 1-9 are givens; {@code 0 . _ *} are empty cells.
+ * Spaces, tabs and {@code | - + =} separate cells and may fill whole lines. A line that starts with
+ * anything else ({@code Grid 01}, {@code [Puzzle]}, a CSV header) is skipped, as is the rest of a
+ * line from {@code #} or {@code ;}. Any other line with cells ends the grid in progress and counts
+ * as malformed.
+ *
+ * <p>Files larger than one mapping are read through consecutive windows; a puzzle may straddle two.
+ */
+final class MappedPuzzleReader implements Iterator<SudokuBoard>, AutoCloseable {
+  private static final long WINDOW_BYTES = 1L << 30;
+  private static final int ROW_CELLS = SudokuBoard.SIZE;
+  private static final int UTF8_BOM_BYTES = 3;
+  private static final byte[] CELL_VALUES = new byte[128];
+
+  static {
+    Arrays.fill(CELL_VALUES, (byte) -1);
+    for (int digit = 1; digit <= SudokuBoard.SIZE; digit++) {
+      CELL_VALUES['0' + digit] = (byte) digit;
+    }
+    CELL_VALUES['0'] = 0;
+    CELL_VALUES['.'] = 0;
+    CELL_VALUES['_'] = 0;
+    CELL_VALUES['*'] = 0;
+  }
+
+  private final FileChannel channel;
+  private final long size;
+  private long mapped;
+  private MappedByteBuffer window;
+
+  private final byte[] line = new byte[SudokuBoard.CELL_COUNT];
+  private final byte[] grid = new byte[SudokuBoard.CELL_COUNT];
+  private int lineCells;
+  private int gridCells;
+  private boolean skipRestOfLine;
+  private byte[] ready;
+  private long malformedLines;
+
+  private MappedPuzzleReader(FileChannel channel) throws IOException {
+    this.channel = channel;
+    this.size = channel.size();
+  }
+
+  static MappedPuzzleReader open(Path file) throws IOException {
+    return new MappedPuzzleReader(FileChannel.open(file, StandardOpenOption.READ));
+  }
+
+  /** Lines that held cells but neither a puzzle nor a grid row, plus a grid cut short. */
+  long malformedLines() {
+    return malformedLines;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (ready == null) {
+      if (window == null || !window.hasRemaining()) {
+        if (mapped == size) {
+          endLine();
+          if (gridCells > 0) {
+            malformedLines++;
+            gridCells = 0;
+          }
+          return ready != null;
+        }
+        mapNextWindow();
+      }
+      MappedByteBuffer bytes = window;
+      while (ready == null && bytes.hasRemaining()) {
+        accept(bytes.get());
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public SudokuBoard next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    SudokuBoard board = SudokuBoard.fromBytes(ready);
+    ready = null;
+    return board;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void accept(byte b) {
+    if (b == '\n') {
+      endLine();
+      return;
+    }
+    if (skipRestOfLine) {
+      return;
+    }
+    byte value = b >= 0 ? CELL_VALUES[b] : -1;
+    if (value >= 0) {
+      line[lineCells++] = value;
+      skipRestOfLine = lineCells == SudokuBoard.CELL_COUNT;
+    } else if (!isSeparator(b)) {
+      // A header or comment line, or whatever follows the cells on this one.
+      skipRestOfLine = true;
+    }
+  }
+
+  private void endLine() {
+    if (lineCells == SudokuBoard.CELL_COUNT) {
+      if (gridCells > 0) {
+        malformedLines++;
+        gridCells = 0;
+      }
+      ready = line;
+    } else if (lineCells == ROW_CELLS) {
+      System.arraycopy(line, 0, grid, gridCells, ROW_CELLS);
+      gridCells += ROW_CELLS;
+      if (gridCells == SudokuBoard.CELL_COUNT) {
+        ready = grid;
+        gridCells = 0;
+      }
+    } else if (lineCells > 0) {
+      malformedLines++;
+      gridCells = 0;
+    }
+    lineCells = 0;
+    skipRestOfLine = false;
+  }
+
+  private static boolean hasByteOrderMark(MappedByteBuffer bytes) {
+    return bytes.remaining() >= UTF8_BOM_BYTES
+        && bytes.get(0) == (byte) 0xEF
+        && bytes.get(1) == (byte) 0xBB
+        && bytes.get(2) == (byte) 0xBF;
+  }
+
+  private static boolean isSeparator(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '|' || b == '-' || b == '+' || b == '=';
+  }
+
+  private void mapNextWindow() {
+    try {
+      long length = Math.min(WINDOW_BYTES, size - mapped);
+      window = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+      if (mapped == 0 && hasByteOrderMark(window)) {
+        window.position(UTF8_BOM_BYTES);
+      }
+      mapped += length;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package com.darren.sudokuscope.cli;
+
+import com.darren.sudokuscope.core.solver.BatchResult;
+import com.darren.sudokuscope.core.solver.SolverStatus;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes one tab-separated line per result ({@code puzzle status solutions nodes nanos}, the puzzle
+ * numbered from 1 in input order) into a byte buffer, formatting numbers in place so the hot path
+ * allocates nothing.
+ */
+final class ResultWriter implements AutoCloseable {
+  static final String HEADER = "puzzle\tstatus\tsolutions\tnodes\tnanos\n";
+
+  private static final int BUFFER_BYTES = 1 << 16;
+  // Longest line: five columns, the widest status, a 22-digit count and three 19-digit longs.
+  private static final int MAX_LINE_BYTES = 128;
+  private static final byte[][] STATUS_NAMES = new byte[SolverStatus.values().length][];
+
+  static {
+    for (SolverStatus status : SolverStatus.values()) {
+      STATUS_NAMES[status.ordinal()] = status.name().getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[BUFFER_BYTES];
+  private final long[] statusCounts = new long[SolverStatus.values().length];
+  private int position;
+
+  ResultWriter(OutputStream out) {
+    this.out = out;
+    byte[] header = HEADER.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(header, 0, buffer, 0, header.length);
+    position = header.length;
+  }
+
+  void write(BatchResult result) {
+    if (position > BUFFER_BYTES - MAX_LINE_BYTES) {
+      flushBuffer();
+    }
+    SudokuAnalysis analysis = result.analysis();
+    statusCounts[analysis.status().ordinal()]++;
+    putLong(result.index() + 1);
+    buffer[position++] = '\t';
+    byte[] status = STATUS_NAMES[analysis.status().ordinal()];
+    System.arraycopy(status, 0, buffer, position, status.length);
+    position += status.length;
+    buffer[position++] = '\t';
+    BigInteger count = analysis.solutionCount();
+    if (count.bitLength() < Long.SIZE) {
+      putLong(count.longValue());
+    } else {
+      byte[] digits = count.toString().getBytes(StandardCharsets.US_ASCII);
+      System.arraycopy(digits, 0, buffer, position, digits.length);
+      position += digits.length;
+    }
+    buffer[position++] = '\t';
+    putLong(analysis.exploredNodes());
+    buffer[position++] = '\t';
+    putLong(result.elapsedNanos());
+    buffer[position++] = '\n';
+  }
+
+  /** Results written so far with {@code status}. */
+  long count(SolverStatus status) {
+    return statusCounts[status.ordinal()];
+  }
+
+  @Override
+  public void close() throws IOException {
+    flushBuffer();
+    out.flush();
+  }
+
+  private void putLong(long value) {
+    if (value < 0) {
+      buffer[position++] = '-';
+      value = -value;
+    }
+    int start = position;
+    do {
+      buffer[position++] = (byte) ('0' + value % 10);
+      value /= 10;
+    } while (value != 0);
+    for (int i = start, j = position - 1; i < j; i++, j--) {
+      byte digit = buffer[i];
+      buffer[i] = buffer[j];
+      buffer[j] = digit;
+    }
+  }
+
+  private void flushBuffer() {
+    try {
+      out.write(buffer, 0, position);
+      position = 0;
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package com.darren.sudokuscope.cli;
+
+import com.darren.sudokuscope.core.solver.BatchOptions;
+import com.darren.sudokuscope.core.solver.BatchReport;
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SolverService;
+import com.darren.sudokuscope.core.solver.SolverStatus;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Headless bulk analysis: reads a file of puzzles, analyses them in parallel with {@link
+ * SolverService#analyzeAll} and writes one result line per puzzle.
+ */
+public final class SudokuScopeCli {
+  static final int EXIT_OK = 0;
+  static final int EXIT_FAILURE = 1;
+  static final int EXIT_USAGE = 2;
+
+  private static final String USAGE =
+      """
+      Usage: sudokuscope [options] <puzzle-file>
+
+      Analyses every puzzle in the file: one per line (81 cells, 0 or . for empty; anything after
+      the 81st cell is ignored) or as nine-line grids. Writes tab-separated results
+      (puzzle, status, solutions, nodes, nanos) and a summary on standard error.
+
+      Options:
+        -o, --output <file>        write results to <file> instead of standard output
+        -t, --threads <n>          worker threads (default: available processors)
+        -m, --max-solutions <n>    stop counting at n solutions, -1 for no limit (default: 2)
+        -b, --node-budget <n>      give up on a puzzle after n search nodes (default: no limit)
+            --unordered            write results as they finish rather than in input order
+        -h, --help                 show this help
+      """;
+
+  private SudokuScopeCli() {}
+
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  static int run(String[] args, PrintStream stdout, PrintStream stderr) {
+    CliOptions options;
+    try {
+      options = CliOptions.parse(args);
+    } catch (IllegalArgumentException ex) {
+      stderr.println("sudokuscope: " + ex.getMessage());
+      stderr.print(USAGE);
+      return EXIT_USAGE;
+    }
+    if (options.help()) {
+      stdout.print(USAGE);
+      return EXIT_OK;
+    }
+    try {
+      analyse(options, stdout, stderr);
+      return EXIT_OK;
+    } catch (NoSuchFileException ex) {
+      stderr.println("sudokuscope: no such file: " + ex.getFile());
+      return EXIT_FAILURE;
+    } catch (IOException | UncheckedIOException ex) {
+      stderr.println("sudokuscope: " + ex.getMessage());
+      return EXIT_FAILURE;
+    }
+  }
+
+  private static void analyse(CliOptions options, PrintStream stdout, PrintStream stderr)
+      throws IOException {
+    SolverOptions solverOptions =
+        new SolverOptions(options.maxSolutions(), false, true, 0L)
+            .withNodeBudget(options.nodeBudget());
+    BatchOptions batch =
+        BatchOptions.defaults()
+            .withParallelism(options.threads())
+            .withOrdered(!options.unordered());
+    try (MappedPuzzleReader puzzles = MappedPuzzleReader.open(options.input());
+        SolverService service = SolverService.createDefault()) {
+      BatchReport report;
+      ResultWriter results;
+      // The results are written out in full before the summary follows on stderr.
+      try (OutputStream out = openOutput(options.output(), stdout);
+          ResultWriter writer = new ResultWriter(out)) {
+        report = service.analyzeAll(() -> puzzles, solverOptions, batch, writer::write);
+        results = writer;
+      }
+      stderr.printf(
+          Locale.ROOT,
+          "Analysed %d puzzles in %.3f s: %.0f puzzles/s, %.0f nodes/s%n",
+          report.analyzed(),
+          report.elapsedNanos() / 1e9,
+          report.boardsPerSecond(),
+          report.nodesPerSecond());
+      StringBuilder statuses = new StringBuilder();
+      for (SolverStatus status : SolverStatus.values()) {
+        statuses.append(statuses.isEmpty() ? "" : ", ");
+        statuses.append(status.name()).append(' ').append(results.count(status));
+      }
+      stderr.println(statuses);
+      if (puzzles.malformedLines() > 0) {
+        stderr.printf(Locale.ROOT, "Skipped %d malformed lines%n", puzzles.malformedLines());
+      }
+    }
+  }
+
+  private static OutputStream openOutput(Path output, PrintStream stdout) throws IOException {
+    if (output == null) {
+      // Leave standard output open for the caller.
+      return new BufferedOutputStream(stdout) {
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      };
+    }
+    return Files.newOutputStream(output);
+  }
+}
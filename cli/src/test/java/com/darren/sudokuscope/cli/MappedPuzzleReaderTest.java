@@ -0,0 +1,85 @@
+package com.darren.sudokuscope.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedPuzzleReaderTest {
+  private static final String PUZZLE =
+      "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+
+  @TempDir Path directory;
+
+  @Test
+  void readsOneLinePuzzlesAndGridsAndSkipsHeaders() throws IOException {
+    String grid =
+        """
+        Grid 01
+        003 020 600
+        900|305|001
+        001 806 400
+        ---+---+---
+        008 102 900
+        700 000 008
+        006 708 200
+        ---+---+---
+        002 609 500
+        800 203 009
+        005 010 300
+        """;
+    String file =
+        "# collection\n"
+            + "quizzes,solutions\n"
+            + PUZZLE.replace('0', '.')
+            + ";rated\r\n"
+            + PUZZLE
+            + ",483921657967345821251876493548132976729564138136798245372689514814253769695417382\n"
+            + grid
+            + PUZZLE;
+
+    List<SudokuBoard> boards = read(file);
+
+    assertThat(boards).hasSize(4).containsOnly(SudokuBoard.fromBytes(cells(PUZZLE)));
+  }
+
+  @Test
+  void countsMalformedLinesAndCutShortGrids() throws IOException {
+    String file = "1.2.3\n" + PUZZLE + "\n123456789\n.........\n";
+
+    try (MappedPuzzleReader reader = open(file)) {
+      List<SudokuBoard> boards = new ArrayList<>();
+      reader.forEachRemaining(boards::add);
+
+      assertThat(boards).hasSize(1);
+      assertThat(reader.malformedLines()).isEqualTo(2);
+    }
+  }
+
+  private List<SudokuBoard> read(String content) throws IOException {
+    List<SudokuBoard> boards = new ArrayList<>();
+    try (MappedPuzzleReader reader = open(content)) {
+      reader.forEachRemaining(boards::add);
+    }
+    return boards;
+  }
+
+  private MappedPuzzleReader open(String content) throws IOException {
+    Path file = Files.writeString(directory.resolve("puzzles.txt"), content);
+    return MappedPuzzleReader.open(file);
+  }
+
+  private static byte[] cells(String puzzle) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) (puzzle.charAt(i) - '0');
+    }
+    return cells;
+  }
+}
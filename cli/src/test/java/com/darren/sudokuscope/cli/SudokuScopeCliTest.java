@@ -0,0 +1,58 @@
+package com.darren.sudokuscope.cli;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SudokuScopeCliTest {
+  private static final String PUZZLE =
+      "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+
+  @TempDir Path directory;
+
+  @Test
+  void writesOneResultLinePerPuzzleInInputOrder() throws IOException {
+    Path input =
+        Files.write(
+            directory.resolve("puzzles.txt"),
+            List.of(PUZZLE, "0".repeat(80) + "1", "11" + PUZZLE.substring(2)));
+    Path output = directory.resolve("results.tsv");
+    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    int exit =
+        SudokuScopeCli.run(
+            new String[] {"-t", "2", "-o", output.toString(), input.toString()},
+            System.out,
+            new PrintStream(stderr, true, StandardCharsets.UTF_8));
+
+    assertThat(exit).isEqualTo(SudokuScopeCli.EXIT_OK);
+    List<String> lines = Files.readAllLines(output);
+    assertThat(lines).hasSize(4).first().isEqualTo(ResultWriter.HEADER.strip());
+    assertThat(lines.get(1)).startsWith("1\tUNIQUE_SOLUTION\t1\t");
+    assertThat(lines.get(2)).startsWith("2\tLIMIT_REACHED\t2\t");
+    assertThat(lines.get(3)).startsWith("3\tINVALID\t0\t");
+    assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("Analysed 3 puzzles");
+  }
+
+  @Test
+  void rejectsUnknownOptions() {
+    ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+
+    int exit =
+        SudokuScopeCli.run(
+            new String[] {"--fast", "puzzles.txt"},
+            System.out,
+            new PrintStream(stderr, true, StandardCharsets.UTF_8));
+
+    assertThat(exit).isEqualTo(SudokuScopeCli.EXIT_USAGE);
+    assertThat(stderr.toString(StandardCharsets.UTF_8)).contains("unknown option --fast");
+  }
+}
@@ -1,3 +1,16 @@
 plugins { id("java-library") }
 
 dependencies { api(libs.slf4j.api) }
+
+// The optional SIMD kernels in core.simd compile against the incubating Vector API. At runtime the
+// module is only resolved when the JVM is started with --add-modules jdk.incubator.vector; without
+// it the scalar kernels are used.
+val vectorModule = listOf("--add-modules", "jdk.incubator.vector")
+
+tasks.withType<JavaCompile>().configureEach { options.compilerArgs.addAll(vectorModule) }
+
+tasks.withType<Javadoc>().configureEach {
+  (options as CoreJavadocOptions).addStringOption("-add-modules", "jdk.incubator.vector")
+}
+
+tasks.withType<Test>().configureEach { jvmArgs(vectorModule) }
@@ -0,0 +1,184 @@
+package com.darren.sudokuscope.core;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A validity-preserving transform of a Sudoku board: an optional transposition, then a row and a
+ * column permutation that keep bands and stacks together, then a relabelling of the digits. Every
+ * such transform maps valid boards to valid boards and solutions to solutions, so a board and its
+ * image have the same solution count.
+ *
+ * <p>{@code rowOrder[r]} is the (possibly transposed) source row that becomes row {@code r}, and
+ * likewise for columns; {@code digitMap[d]} is the digit that {@code d} becomes.
+ */
+public final class BoardSymmetry {
+  private static final BoardSymmetry IDENTITY =
+      new BoardSymmetry(
+          false,
+          new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8},
+          new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8},
+          new int[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+  private final boolean transposed;
+  private final int[] rowOrder;
+  private final int[] columnOrder;
+  private final int[] digitMap;
+
+  private BoardSymmetry(boolean transposed, int[] rowOrder, int[] columnOrder, int[] digitMap) {
+    this.transposed = transposed;
+    this.rowOrder = rowOrder;
+    this.columnOrder = columnOrder;
+    this.digitMap = digitMap;
+  }
+
+  public static BoardSymmetry identity() {
+    return IDENTITY;
+  }
+
+  /**
+   * Builds a transform from its parts. {@code digitMap} has 9 entries for digits 1-9 or 10 with
+   * {@code digitMap[0] == 0}.
+   *
+   * @throws IllegalArgumentException if an order splits a band or stack, or a map is not a
+   *     permutation
+   */
+  public static BoardSymmetry of(
+      boolean transposed, int[] rowOrder, int[] columnOrder, int[] digitMap) {
+    int[] rows = requireBandPermutation(rowOrder, "rowOrder");
+    int[] columns = requireBandPermutation(columnOrder, "columnOrder");
+    Objects.requireNonNull(digitMap, "digitMap");
+    int[] digits;
+    if (digitMap.length == SudokuBoard.SIZE) {
+      digits = new int[SudokuBoard.SIZE + 1];
+      System.arraycopy(digitMap, 0, digits, 1, SudokuBoard.SIZE);
+    } else if (digitMap.length == SudokuBoard.SIZE + 1 && digitMap[0] == 0) {
+      digits = digitMap.clone();
+    } else {
+      throw new IllegalArgumentException("digitMap must map the digits 1-9 and keep 0 empty");
+    }
+    int seen = 0;
+    for (int digit = 1; digit <= SudokuBoard.SIZE; digit++) {
+      int image = digits[digit];
+      if (image < 1 || image > SudokuBoard.SIZE || (seen & (1 << image)) != 0) {
+        throw new IllegalArgumentException("digitMap must be a permutation of 1-9");
+      }
+      seen |= 1 << image;
+    }
+    return new BoardSymmetry(transposed, rows, columns, digits);
+  }
+
+  /** Internal factory for arrays the caller has already checked and will not modify. */
+  static BoardSymmetry trusted(
+      boolean transposed, int[] rowOrder, int[] columnOrder, int[] digitMap) {
+    return new BoardSymmetry(transposed, rowOrder, columnOrder, digitMap);
+  }
+
+  public boolean transposed() {
+    return transposed;
+  }
+
+  public int[] rowOrder() {
+    return rowOrder.clone();
+  }
+
+  public int[] columnOrder() {
+    return columnOrder.clone();
+  }
+
+  /** The image of each digit, indexed 0-9; index 0 (empty) always maps to 0. */
+  public int[] digitMap() {
+    return digitMap.clone();
+  }
+
+  public SudokuBoard apply(SudokuBoard board) {
+    Objects.requireNonNull(board, "board");
+    byte[] source = board.cells();
+    byte[] target = new byte[SudokuBoard.CELL_COUNT];
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      for (int col = 0; col < SudokuBoard.SIZE; col++) {
+        int from =
+            transposed
+                ? columnOrder[col] * SudokuBoard.SIZE + rowOrder[row]
+                : rowOrder[row] * SudokuBoard.SIZE + columnOrder[col];
+        target[row * SudokuBoard.SIZE + col] = (byte) digitMap[source[from]];
+      }
+    }
+    return SudokuBoard.wrap(target);
+  }
+
+  /** The transform that undoes this one: {@code inverse().apply(apply(board))} is {@code board}. */
+  public BoardSymmetry inverse() {
+    int[] rows = invert(rowOrder);
+    int[] columns = invert(columnOrder);
+    int[] digits = invert(digitMap);
+    // Undoing "transpose, then permute" means "transpose, then permute with the axes swapped".
+    return transposed
+        ? new BoardSymmetry(true, columns, rows, digits)
+        : new BoardSymmetry(false, rows, columns, digits);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof BoardSymmetry other)) {
+      return false;
+    }
+    return transposed == other.transposed
+        && Arrays.equals(rowOrder, other.rowOrder)
+        && Arrays.equals(columnOrder, other.columnOrder)
+        && Arrays.equals(digitMap, other.digitMap);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = Boolean.hashCode(transposed);
+    result = 31 * result + Arrays.hashCode(rowOrder);
+    result = 31 * result + Arrays.hashCode(columnOrder);
+    return 31 * result + Arrays.hashCode(digitMap);
+  }
+
+  @Override
+  public String toString() {
+    return "BoardSymmetry[transposed="
+        + transposed
+        + ", rowOrder="
+        + Arrays.toString(rowOrder)
+        + ", columnOrder="
+        + Arrays.toString(columnOrder)
+        + ", digitMap="
+        + Arrays.toString(digitMap)
+        + ']';
+  }
+
+  private static int[] requireBandPermutation(int[] order, String name) {
+    Objects.requireNonNull(order, name);
+    if (order.length != SudokuBoard.SIZE) {
+      throw new IllegalArgumentException(name + " must have 9 entries but had " + order.length);
+    }
+    int seen = 0;
+    for (int i = 0; i < SudokuBoard.SIZE; i++) {
+      int index = order[i];
+      if (index < 0 || index >= SudokuBoard.SIZE || (seen & (1 << index)) != 0) {
+        throw new IllegalArgumentException(name + " must be a permutation of 0-8");
+      }
+      seen |= 1 << index;
+      int band = i / SudokuBoard.REGION_SIZE;
+      if (index / SudokuBoard.REGION_SIZE
+          != order[band * SudokuBoard.REGION_SIZE] / SudokuBoard.REGION_SIZE) {
+        throw new IllegalArgumentException(name + " must keep each band of three together");
+      }
+    }
+    return order.clone();
+  }
+
+  private static int[] invert(int[] permutation) {
+    int[] inverse = new int[permutation.length];
+    for (int i = 0; i < permutation.length; i++) {
+      inverse[permutation[i]] = i;
+    }
+    return inverse;
+  }
+}
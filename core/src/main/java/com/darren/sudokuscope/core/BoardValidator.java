@@ -1,5 +1,6 @@
 package com.darren.sudokuscope.core;
 
+import com.darren.sudokuscope.core.simd.CellKernels;
 import java.util.Objects;
 
 /** Validates Sudoku boards according to standard Sudoku rules. */
@@ -8,6 +9,10 @@ public final class BoardValidator {
 
   public static ValidationResult validate(SudokuBoard board) {
     Objects.requireNonNull(board, "board");
+    if (!CellKernels.preferred().hasDuplicates(board.cells())) {
+      return ValidationResult.success();
+    }
+    // Rescan to report the first conflict in reading order.
     int[] rowMasks = new int[SudokuBoard.SIZE];
     int[] columnMasks = new int[SudokuBoard.SIZE];
     int[] boxMasks = new int[SudokuBoard.SIZE];
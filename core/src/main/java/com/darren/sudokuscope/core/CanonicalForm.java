@@ -0,0 +1,22 @@
+package com.darren.sudokuscope.core;
+
+import java.util.Objects;
+
+/**
+ * The canonical representative of a board's symmetry class, as returned by {@link
+ * SudokuBoard#canonicalForm()}. {@code symmetry} maps the original board onto {@code board}.
+ */
+public record CanonicalForm(SudokuBoard board, BoardSymmetry symmetry) {
+  public CanonicalForm {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(symmetry, "symmetry");
+  }
+
+  /**
+   * Maps a board in canonical coordinates, such as a solution of {@link #board()}, back onto the
+   * original board's rows, columns and digits.
+   */
+  public SudokuBoard toOriginal(SudokuBoard canonicalBoard) {
+    return symmetry.inverse().apply(canonicalBoard);
+  }
+}
@@ -0,0 +1,186 @@
+package com.darren.sudokuscope.core;
+
+import java.util.Objects;
+
+/**
+ * Immutable board packed into six {@code long}s, four bits per cell: cell {@code i} sits at bits
+ * {@code 4 * (i % 16)} of word {@code i / 16}. At 64 bytes with the object header it is about half
+ * the size of a {@link SudokuBoard} and its array, {@link #withValue} changes one nibble instead of
+ * copying 81 bytes, equality compares six words, and the hash code is computed once. It suits large
+ * in-memory collections and map keys; {@link #toBoard()} converts back where a {@code SudokuBoard}
+ * is needed.
+ */
+public final class PackedBoard implements ReadableBoard {
+  private static final int CELLS_PER_WORD = Long.SIZE / 4;
+  private static final long NIBBLE = 0xFL;
+  private static final long ONES = 0x1111_1111_1111_1111L;
+  private static final long HIGH_BITS = 0x8888_8888_8888_8888L;
+
+  private final long w0;
+  private final long w1;
+  private final long w2;
+  private final long w3;
+  private final long w4;
+  // Holds cell 80 only.
+  private final long w5;
+  private final int hash;
+
+  private PackedBoard(long w0, long w1, long w2, long w3, long w4, long w5) {
+    this.w0 = w0;
+    this.w1 = w1;
+    this.w2 = w2;
+    this.w3 = w3;
+    this.w4 = w4;
+    this.w5 = w5;
+    long h = w0;
+    h = h * 31 + w1;
+    h = h * 31 + w2;
+    h = h * 31 + w3;
+    h = h * 31 + w4;
+    h = h * 31 + w5;
+    this.hash = Long.hashCode(h);
+  }
+
+  public static PackedBoard empty() {
+    return new PackedBoard(0L, 0L, 0L, 0L, 0L, 0L);
+  }
+
+  public static PackedBoard of(ReadableBoard board) {
+    Objects.requireNonNull(board, "board");
+    if (board instanceof PackedBoard packed) {
+      return packed;
+    }
+    if (board instanceof SudokuBoard sudokuBoard) {
+      return pack(sudokuBoard.cells());
+    }
+    long[] words = new long[6];
+    for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+      int value = board.valueAt(i / SudokuBoard.SIZE, i % SudokuBoard.SIZE);
+      requireWithinRange(value);
+      words[i / CELLS_PER_WORD] |= (long) value << shift(i);
+    }
+    return new PackedBoard(words[0], words[1], words[2], words[3], words[4], words[5]);
+  }
+
+  public static PackedBoard fromBytes(byte[] values) {
+    Objects.requireNonNull(values, "values");
+    if (values.length != SudokuBoard.CELL_COUNT) {
+      throw new IllegalArgumentException("Expected 81 values but got " + values.length);
+    }
+    for (byte value : values) {
+      requireWithinRange(Byte.toUnsignedInt(value));
+    }
+    return pack(values);
+  }
+
+  @Override
+  public int valueAt(int row, int column) {
+    if (row < 0 || row >= SudokuBoard.SIZE || column < 0 || column >= SudokuBoard.SIZE) {
+      throw new IndexOutOfBoundsException("No cell at row " + row + ", column " + column);
+    }
+    int index = row * SudokuBoard.SIZE + column;
+    return (int) ((word(index / CELLS_PER_WORD) >>> shift(index)) & NIBBLE);
+  }
+
+  public PackedBoard withValue(CellPosition position, int value) {
+    Objects.requireNonNull(position, "position");
+    requireWithinRange(value);
+    int index = position.toIndex();
+    int word = index / CELLS_PER_WORD;
+    long updated = (word(word) & ~(NIBBLE << shift(index))) | (long) value << shift(index);
+    return new PackedBoard(
+        word == 0 ? updated : w0,
+        word == 1 ? updated : w1,
+        word == 2 ? updated : w2,
+        word == 3 ? updated : w3,
+        word == 4 ? updated : w4,
+        word == 5 ? updated : w5);
+  }
+
+  public PackedBoard clear(CellPosition position) {
+    return withValue(position, 0);
+  }
+
+  @Override
+  public boolean isEmptyBoard() {
+    return (w0 | w1 | w2 | w3 | w4 | w5) == 0;
+  }
+
+  @Override
+  public boolean isComplete() {
+    return !hasEmptyNibble(w0)
+        && !hasEmptyNibble(w1)
+        && !hasEmptyNibble(w2)
+        && !hasEmptyNibble(w3)
+        && !hasEmptyNibble(w4)
+        && w5 != 0;
+  }
+
+  @Override
+  public SudokuBoard toBoard() {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) ((word(i / CELLS_PER_WORD) >>> shift(i)) & NIBBLE);
+    }
+    return SudokuBoard.wrap(cells);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    return obj instanceof PackedBoard other
+        && hash == other.hash
+        && w0 == other.w0
+        && w1 == other.w1
+        && w2 == other.w2
+        && w3 == other.w3
+        && w4 == other.w4
+        && w5 == other.w5;
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return toCanonicalString();
+  }
+
+  private static PackedBoard pack(byte[] cells) {
+    long[] words = new long[6];
+    for (int i = 0; i < cells.length; i++) {
+      words[i / CELLS_PER_WORD] |= (long) cells[i] << shift(i);
+    }
+    return new PackedBoard(words[0], words[1], words[2], words[3], words[4], words[5]);
+  }
+
+  private long word(int word) {
+    return switch (word) {
+      case 0 -> w0;
+      case 1 -> w1;
+      case 2 -> w2;
+      case 3 -> w3;
+      case 4 -> w4;
+      default -> w5;
+    };
+  }
+
+  private static int shift(int index) {
+    return (index % CELLS_PER_WORD) * 4;
+  }
+
+  /** Whether one of the sixteen cells in {@code word} is 0 (the classic has-zero-byte test). */
+  private static boolean hasEmptyNibble(long word) {
+    return ((word - ONES) & ~word & HIGH_BITS) != 0;
+  }
+
+  private static void requireWithinRange(int value) {
+    if (value < 0 || value > 9) {
+      throw new IllegalArgumentException("Cell values must be between 0 and 9 but was " + value);
+    }
+  }
+}
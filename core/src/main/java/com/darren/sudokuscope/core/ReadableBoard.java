@@ -0,0 +1,96 @@
+package com.darren.sudokuscope.core;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Read access to the 81 cells of a board, whatever holds them: a {@link SudokuBoard}, a {@link
+ * PackedBoard}, or a view into a buffer of encoded boards. Values are 0 (empty) or 1-9.
+ *
+ * <p>Implementations decide equality for themselves; compare cells across implementations with
+ * {@link #sameCells}.
+ */
+public interface ReadableBoard {
+  int valueAt(int row, int column);
+
+  default int valueAt(CellPosition position) {
+    Objects.requireNonNull(position, "position");
+    return valueAt(position.row(), position.column());
+  }
+
+  default boolean isEmpty(CellPosition position) {
+    return valueAt(position) == 0;
+  }
+
+  default boolean isEmptyBoard() {
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      for (int column = 0; column < SudokuBoard.SIZE; column++) {
+        if (valueAt(row, column) != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  default boolean isComplete() {
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      for (int column = 0; column < SudokuBoard.SIZE; column++) {
+        if (valueAt(row, column) == 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  default byte[] toByteArray() {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) valueAt(i / SudokuBoard.SIZE, i % SudokuBoard.SIZE);
+    }
+    return cells;
+  }
+
+  default int[] toIntArray() {
+    int[] cells = new int[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = valueAt(i / SudokuBoard.SIZE, i % SudokuBoard.SIZE);
+    }
+    return cells;
+  }
+
+  default String toCanonicalString() {
+    StringBuilder builder = new StringBuilder(SudokuBoard.CELL_COUNT);
+    for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+      builder.append((char) ('0' + valueAt(i / SudokuBoard.SIZE, i % SudokuBoard.SIZE)));
+    }
+    return builder.toString();
+  }
+
+  default void forEachCell(BiConsumer<CellPosition, Integer> consumer) {
+    Objects.requireNonNull(consumer, "consumer");
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      for (int col = 0; col < SudokuBoard.SIZE; col++) {
+        consumer.accept(new CellPosition(row, col), valueAt(row, col));
+      }
+    }
+  }
+
+  /** An immutable {@link SudokuBoard} with these cells; a {@code SudokuBoard} returns itself. */
+  default SudokuBoard toBoard() {
+    return SudokuBoard.wrap(toByteArray());
+  }
+
+  /** Whether two boards, of any implementation, hold the same cells. */
+  static boolean sameCells(ReadableBoard first, ReadableBoard second) {
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      for (int column = 0; column < SudokuBoard.SIZE; column++) {
+        if (first.valueAt(row, column) != second.valueAt(row, column)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -3,10 +3,9 @@ package com.darren.sudokuscope.core;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.StringJoiner;
-import java.util.function.BiConsumer;
 
 /** Immutable snapshot of a 9x9 Sudoku board. Values are 0 (empty) or 1-9. */
-public final class SudokuBoard {
+public final class SudokuBoard implements ReadableBoard {
   public static final int SIZE = 9;
   public static final int REGION_SIZE = 3;
   public static final int CELL_COUNT = SIZE * SIZE;
@@ -47,10 +46,22 @@ public final class SudokuBoard {
     return new SudokuBoard(copy, false);
   }
 
+  /** Wraps an array the caller hands over and will not modify; values must already be 0-9. */
+  static SudokuBoard wrap(byte[] cells) {
+    return new SudokuBoard(cells, false);
+  }
+
+  @Override
   public byte[] toByteArray() {
     return cells.clone();
   }
 
+  /** The backing array, for read-only scans within this package. */
+  byte[] cells() {
+    return cells;
+  }
+
+  @Override
   public int[] toIntArray() {
     int[] copy = new int[CELL_COUNT];
     for (int i = 0; i < cells.length; i++) {
@@ -76,19 +87,18 @@ public final class SudokuBoard {
     return withValue(position, 0);
   }
 
+  @Override
   public int valueAt(CellPosition position) {
     Objects.requireNonNull(position, "position");
     return valueAt(position.row(), position.column());
   }
 
+  @Override
   public int valueAt(int row, int column) {
     return Byte.toUnsignedInt(cells[row * SIZE + column]);
   }
 
-  public boolean isEmpty(CellPosition position) {
-    return valueAt(position) == 0;
-  }
-
+  @Override
   public boolean isEmptyBoard() {
     for (byte cell : cells) {
       if (cell != 0) {
@@ -98,6 +108,7 @@ public final class SudokuBoard {
     return true;
   }
 
+  @Override
   public boolean isComplete() {
     for (byte cell : cells) {
       if (cell == 0) {
@@ -107,15 +118,23 @@ public final class SudokuBoard {
     return true;
   }
 
-  public void forEachCell(BiConsumer<CellPosition, Integer> consumer) {
-    Objects.requireNonNull(consumer, "consumer");
-    for (int row = 0; row < SIZE; row++) {
-      for (int col = 0; col < SIZE; col++) {
-        consumer.accept(new CellPosition(row, col), valueAt(row, col));
-      }
-    }
+  /**
+   * The least board, digit by digit in row-major order, among all boards this one maps to under
+   * transposition, band and stack reordering, row and column reordering within bands and stacks,
+   * and digit relabelling, together with the transform that produces it. Boards that differ only by
+   * such a transform have equal canonical boards, and so the same solution count. This is not
+   * cached and takes up to about a millisecond, most for completed grids.
+   */
+  public CanonicalForm canonicalForm() {
+    return Canonicalizer.canonicalize(this);
   }
 
+  @Override
+  public SudokuBoard toBoard() {
+    return this;
+  }
+
+  @Override
   public String toCanonicalString() {
     StringBuilder builder = new StringBuilder(CELL_COUNT);
     for (byte cell : cells) {
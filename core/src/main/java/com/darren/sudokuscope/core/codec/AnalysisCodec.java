@@ -0,0 +1,219 @@
+package com.darren.sudokuscope.core.codec;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.SolverStatus;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Binary encoding of a {@link SudokuAnalysis}, read and written at the position of a {@link
+ * ByteBuffer} like {@link BoardCodec}, with the same failure behaviour:
+ *
+ * <pre>
+ *   format version (1 byte)
+ *   status ordinal (1 byte)
+ *   flags: valid (bit 0), limit reached (bit 1), has exemplar solution (bit 2)
+ *   initial board, tagged
+ *   solution count: byte length, then the magnitude big-endian (0 has length 0)
+ *   explored nodes, unsigned LEB128
+ *   exemplar solution, dense, if flagged
+ *   message: UTF-8 byte length as unsigned LEB128, then the bytes
+ * </pre>
+ *
+ * A unique 17-clue analysis with an ASCII message of m bytes takes about 70 + m bytes. Encoding
+ * allocates nothing unless the count needs more than 63 bits or the message is not ASCII.
+ */
+public final class AnalysisCodec {
+  /** Leading byte of every encoding; bump it when the layout changes. */
+  public static final int FORMAT_VERSION = 1;
+
+  private static final int VALID = 1;
+  private static final int LIMIT_REACHED = 1 << 1;
+  private static final int HAS_SOLUTION = 1 << 2;
+  private static final int MAX_COUNT_BYTES = 0xFF;
+  private static final SolverStatus[] STATUSES = SolverStatus.values();
+
+  private AnalysisCodec() {}
+
+  /** Bytes the encoding of {@code analysis} takes. */
+  public static int encodedBytes(SudokuAnalysis analysis) {
+    int messageBytes = messageBytes(analysis.message());
+    int bytes =
+        3
+            + BoardCodec.encodedBytes(analysis.initialBoard())
+            + 1
+            + countBytes(analysis.solutionCount())
+            + varLongBytes(analysis.exploredNodes())
+            + varLongBytes(messageBytes)
+            + messageBytes;
+    return analysis.exemplarSolution().isPresent() ? bytes + BoardCodec.DENSE_BYTES : bytes;
+  }
+
+  public static void encode(SudokuAnalysis analysis, ByteBuffer out) {
+    Objects.requireNonNull(analysis, "analysis");
+    BoardCodec.requireRoom(out, encodedBytes(analysis));
+    out.put((byte) FORMAT_VERSION);
+    out.put((byte) analysis.status().ordinal());
+    int flags = analysis.valid() ? VALID : 0;
+    if (analysis.limitReached()) {
+      flags |= LIMIT_REACHED;
+    }
+    Optional<SudokuBoard> solution = analysis.exemplarSolution();
+    if (solution.isPresent()) {
+      flags |= HAS_SOLUTION;
+    }
+    out.put((byte) flags);
+    BoardCodec.encode(analysis.initialBoard(), out);
+    putCount(analysis.solutionCount(), out);
+    putVarLong(analysis.exploredNodes(), out);
+    if (solution.isPresent()) {
+      BoardCodec.encodeDense(solution.get(), out);
+    }
+    putMessage(analysis.message(), out);
+  }
+
+  public static SudokuAnalysis decode(ByteBuffer in) {
+    int start = in.position();
+    try {
+      int version = Byte.toUnsignedInt(in.get());
+      if (version != FORMAT_VERSION) {
+        throw new IllegalArgumentException("Unsupported analysis format " + version);
+      }
+      int status = Byte.toUnsignedInt(in.get());
+      if (status >= STATUSES.length) {
+        throw new IllegalArgumentException("Unknown solver status " + status);
+      }
+      int flags = Byte.toUnsignedInt(in.get());
+      if ((flags & ~(VALID | LIMIT_REACHED | HAS_SOLUTION)) != 0) {
+        throw new IllegalArgumentException("Unknown analysis flags " + flags);
+      }
+      SudokuBoard initialBoard = BoardCodec.decode(in);
+      BigInteger count = getCount(in);
+      long exploredNodes = getVarLong(in);
+      Optional<SudokuBoard> solution =
+          (flags & HAS_SOLUTION) != 0 ? Optional.of(BoardCodec.decodeDense(in)) : Optional.empty();
+      String message = getMessage(in);
+      return new SudokuAnalysis(
+          initialBoard,
+          (flags & VALID) != 0,
+          STATUSES[status],
+          count,
+          solution,
+          (flags & LIMIT_REACHED) != 0,
+          exploredNodes,
+          message);
+    } catch (RuntimeException ex) {
+      in.position(start);
+      throw ex;
+    }
+  }
+
+  private static int countBytes(BigInteger count) {
+    int bytes = (count.bitLength() + Byte.SIZE - 1) / Byte.SIZE;
+    if (bytes > MAX_COUNT_BYTES) {
+      throw new IllegalArgumentException("Solution count is too large to encode");
+    }
+    return bytes;
+  }
+
+  private static void putCount(BigInteger count, ByteBuffer out) {
+    int bytes = countBytes(count);
+    out.put((byte) bytes);
+    if (count.bitLength() < Long.SIZE) {
+      long value = count.longValue();
+      for (int shift = (bytes - 1) * Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+        out.put((byte) (value >>> shift));
+      }
+    } else {
+      byte[] magnitude = count.toByteArray();
+      // Drop the sign byte toByteArray adds when the top bit is set.
+      out.put(magnitude, magnitude.length - bytes, bytes);
+    }
+  }
+
+  private static BigInteger getCount(ByteBuffer in) {
+    int bytes = Byte.toUnsignedInt(in.get());
+    if (bytes < Long.BYTES) {
+      long value = 0;
+      for (int i = 0; i < bytes; i++) {
+        value = value << Byte.SIZE | Byte.toUnsignedInt(in.get());
+      }
+      return BigInteger.valueOf(value);
+    }
+    byte[] magnitude = new byte[bytes];
+    in.get(magnitude);
+    return new BigInteger(1, magnitude);
+  }
+
+  private static int varLongBytes(long value) {
+    int bytes = 1;
+    while ((value >>>= 7) != 0) {
+      bytes++;
+    }
+    return bytes;
+  }
+
+  private static void putVarLong(long value, ByteBuffer out) {
+    while ((value & ~0x7FL) != 0) {
+      out.put((byte) (value & 0x7F | 0x80));
+      value >>>= 7;
+    }
+    out.put((byte) value);
+  }
+
+  private static long getVarLong(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      int b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Variable-length number is longer than 64 bits");
+  }
+
+  private static boolean isAscii(String message) {
+    for (int i = 0; i < message.length(); i++) {
+      if (message.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int messageBytes(String message) {
+    return isAscii(message) ? message.length() : message.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static void putMessage(String message, ByteBuffer out) {
+    if (isAscii(message)) {
+      putVarLong(message.length(), out);
+      for (int i = 0; i < message.length(); i++) {
+        out.put((byte) message.charAt(i));
+      }
+    } else {
+      byte[] utf8 = message.getBytes(StandardCharsets.UTF_8);
+      putVarLong(utf8.length, out);
+      out.put(utf8);
+    }
+  }
+
+  private static String getMessage(ByteBuffer in) {
+    long length = getVarLong(in);
+    if (length < 0 || length > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Message length " + Long.toUnsignedString(length));
+    }
+    if (length > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] utf8 = new byte[(int) length];
+    in.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+}
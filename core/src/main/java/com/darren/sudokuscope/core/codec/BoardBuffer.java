@@ -0,0 +1,109 @@
+package com.darren.sudokuscope.core.codec;
+
+import com.darren.sudokuscope.core.ReadableBoard;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Boards stored back to back in a {@link ByteBuffer}, {@value BoardCodec#DENSE_BYTES} bytes each in
+ * the {@link BoardCodec} dense encoding, read through flyweight {@link View}s. A view is one small
+ * object that can be moved from board to board, so a collection of millions of boards, on the heap,
+ * off it or in a mapped file, costs its encoded bytes and nothing per board.
+ *
+ * <p>Views only read the buffer, with absolute reads, so any number of threads can share one {@code
+ * BoardBuffer} as long as each moves its own view. Cells are checked as they are read: a nibble
+ * above 9 throws {@link IllegalArgumentException}.
+ */
+public final class BoardBuffer {
+  private final ByteBuffer buffer;
+  private final int size;
+
+  private BoardBuffer(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.size = buffer.capacity() / BoardCodec.DENSE_BYTES;
+  }
+
+  /**
+   * Reads the boards between the buffer's position and its limit, which must span a whole number of
+   * them. Later changes to the buffer's contents show through; its position and limit do not.
+   */
+  public static BoardBuffer wrap(ByteBuffer buffer) {
+    Objects.requireNonNull(buffer, "buffer");
+    if (buffer.remaining() % BoardCodec.DENSE_BYTES != 0) {
+      throw new IllegalArgumentException(
+          buffer.remaining()
+              + " bytes is not a whole number of "
+              + BoardCodec.DENSE_BYTES
+              + "-byte boards");
+    }
+    return new BoardBuffer(buffer.slice());
+  }
+
+  /** Number of boards. */
+  public int size() {
+    return size;
+  }
+
+  /** A new view positioned on board {@code index}. */
+  public View view(int index) {
+    return new View().moveTo(index);
+  }
+
+  /** Passes each board in turn to {@code action} through one view, which it must not keep. */
+  public void forEach(Consumer<? super ReadableBoard> action) {
+    Objects.requireNonNull(action, "action");
+    if (size == 0) {
+      return;
+    }
+    View view = view(0);
+    for (int i = 0; i < size; i++) {
+      action.accept(view.moveTo(i));
+    }
+  }
+
+  /**
+   * A read-only window onto one board of the buffer. Equality is identity, since the board it shows
+   * changes; compare cells with {@link ReadableBoard#sameCells} or copy them out with {@link
+   * #toBoard()} or {@link com.darren.sudokuscope.core.PackedBoard#of}.
+   */
+  public final class View implements ReadableBoard {
+    private int index;
+    private int base;
+
+    private View() {}
+
+    /** Index of the board this view shows. */
+    public int index() {
+      return index;
+    }
+
+    /** Shows board {@code index} instead, and returns this view. */
+    public View moveTo(int index) {
+      Objects.checkIndex(index, size);
+      this.index = index;
+      this.base = index * BoardCodec.DENSE_BYTES;
+      return this;
+    }
+
+    @Override
+    public int valueAt(int row, int column) {
+      if (row < 0 || row >= SudokuBoard.SIZE || column < 0 || column >= SudokuBoard.SIZE) {
+        throw new IndexOutOfBoundsException("No cell at row " + row + ", column " + column);
+      }
+      int cell = row * SudokuBoard.SIZE + column;
+      int value = (buffer.get(base + (cell >>> 1)) >>> ((cell & 1) << 2)) & 0xF;
+      if (value > SudokuBoard.SIZE) {
+        throw new IllegalArgumentException(
+            "Board " + index + " holds " + value + " at row " + row + ", column " + column);
+      }
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return toCanonicalString();
+    }
+  }
+}
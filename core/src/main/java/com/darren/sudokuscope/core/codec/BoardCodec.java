@@ -0,0 +1,244 @@
+package com.darren.sudokuscope.core.codec;
+
+import com.darren.sudokuscope.core.ReadableBoard;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Binary encodings of a board, any {@link ReadableBoard} on the way in and a {@link SudokuBoard} or
+ * a caller-owned {@code byte[]} on the way out, read and written at the position of a {@link
+ * ByteBuffer}, which they advance. All values are single bytes, so the buffer's byte order does not
+ * matter.
+ *
+ * <ul>
+ *   <li><b>Dense</b> ({@value #DENSE_BYTES} bytes): two cells per byte in row-major order, the even
+ *       cell in the low nibble and 0 for empty; the final high nibble is 0.
+ *   <li><b>Sparse</b> ({@value #BITMAP_BYTES} bytes plus half a byte per clue): a bitmap of the
+ *       filled cells, cell {@code i} at bit {@code i % 8} of byte {@code i / 8}, followed by the
+ *       clues in row-major order packed like the dense cells. A 17-clue puzzle takes 20 bytes.
+ *   <li><b>Tagged</b>: one tag byte followed by whichever of the two is shorter for the board, for
+ *       fields that may hold either.
+ * </ul>
+ *
+ * <p>Encoding allocates nothing and checks the room first, so a buffer that is too small throws
+ * {@link BufferOverflowException} with nothing written. Decoding into a caller-owned {@code byte[]}
+ * allocates nothing either. A decode that fails, on a short buffer ({@link
+ * BufferUnderflowException}) or on bytes that are not a board ({@link IllegalArgumentException}),
+ * leaves the buffer's position where it was.
+ */
+public final class BoardCodec {
+  /** Bytes of the dense encoding. */
+  public static final int DENSE_BYTES = (SudokuBoard.CELL_COUNT + 1) / 2;
+
+  /** Bytes of the clue bitmap that starts the sparse encoding. */
+  public static final int BITMAP_BYTES = (SudokuBoard.CELL_COUNT + Byte.SIZE - 1) / Byte.SIZE;
+
+  /** Upper bound of {@link #encodedBytes}, for sizing buffers. */
+  public static final int MAX_ENCODED_BYTES = 1 + DENSE_BYTES;
+
+  private static final byte DENSE_TAG = 1;
+  private static final byte SPARSE_TAG = 2;
+  private static final int LAST_BITMAP_MASK =
+      (1 << (SudokuBoard.CELL_COUNT - (BITMAP_BYTES - 1) * Byte.SIZE)) - 1;
+
+  private BoardCodec() {}
+
+  public static void encodeDense(ReadableBoard board, ByteBuffer out) {
+    Objects.requireNonNull(board, "board");
+    requireRoom(out, DENSE_BYTES);
+    putNibbles(board, out, false);
+  }
+
+  public static SudokuBoard decodeDense(ByteBuffer in) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    decodeDense(in, cells);
+    return SudokuBoard.fromBytes(cells);
+  }
+
+  /** Decodes a dense board into {@code cells}, 81 values of 0-9 in row-major order. */
+  public static void decodeDense(ByteBuffer in, byte[] cells) {
+    requireCells(cells);
+    int start = in.position();
+    try {
+      for (int i = 0; i < SudokuBoard.CELL_COUNT; i += 2) {
+        int pair = Byte.toUnsignedInt(in.get());
+        cells[i] = digit(pair & 0xF);
+        int high = pair >>> 4;
+        if (i + 1 < SudokuBoard.CELL_COUNT) {
+          cells[i + 1] = digit(high);
+        } else if (high != 0) {
+          throw new IllegalArgumentException("Padding nibble must be 0 but was " + high);
+        }
+      }
+    } catch (RuntimeException ex) {
+      in.position(start);
+      throw ex;
+    }
+  }
+
+  /** Bytes the sparse encoding of {@code board} takes. */
+  public static int sparseBytes(ReadableBoard board) {
+    return BITMAP_BYTES + (clueCount(board) + 1) / 2;
+  }
+
+  public static void encodeSparse(ReadableBoard board, ByteBuffer out) {
+    Objects.requireNonNull(board, "board");
+    requireRoom(out, sparseBytes(board));
+    int index = 0;
+    for (int b = 0; b < BITMAP_BYTES; b++) {
+      int bits = 0;
+      for (int bit = 0; bit < Byte.SIZE && index < SudokuBoard.CELL_COUNT; bit++, index++) {
+        if (valueAt(board, index) != 0) {
+          bits |= 1 << bit;
+        }
+      }
+      out.put((byte) bits);
+    }
+    putNibbles(board, out, true);
+  }
+
+  public static SudokuBoard decodeSparse(ByteBuffer in) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    decodeSparse(in, cells);
+    return SudokuBoard.fromBytes(cells);
+  }
+
+  /** Decodes a sparse board into {@code cells}, 81 values of 0-9 in row-major order. */
+  public static void decodeSparse(ByteBuffer in, byte[] cells) {
+    requireCells(cells);
+    int start = in.position();
+    try {
+      if (in.remaining() < BITMAP_BYTES) {
+        throw new BufferUnderflowException();
+      }
+      int bitmap = start;
+      in.position(bitmap + BITMAP_BYTES);
+      if ((Byte.toUnsignedInt(in.get(bitmap + BITMAP_BYTES - 1)) & ~LAST_BITMAP_MASK) != 0) {
+        throw new IllegalArgumentException("Clue bitmap has bits past the last cell");
+      }
+      int pair = 0;
+      int clues = 0;
+      for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+        if ((in.get(bitmap + (i >>> 3)) & (1 << (i & 7))) == 0) {
+          cells[i] = 0;
+          continue;
+        }
+        if ((clues & 1) == 0) {
+          pair = Byte.toUnsignedInt(in.get());
+        }
+        byte clue = digit((pair >>> ((clues & 1) << 2)) & 0xF);
+        if (clue == 0) {
+          throw new IllegalArgumentException("Clue " + clues + " is 0");
+        }
+        cells[i] = clue;
+        clues++;
+      }
+      if ((clues & 1) != 0 && pair >>> 4 != 0) {
+        throw new IllegalArgumentException("Padding nibble must be 0 but was " + (pair >>> 4));
+      }
+    } catch (RuntimeException ex) {
+      in.position(start);
+      throw ex;
+    }
+  }
+
+  /** Bytes the tagged encoding of {@code board} takes: the tag and the shorter encoding. */
+  public static int encodedBytes(ReadableBoard board) {
+    return 1 + Math.min(DENSE_BYTES, sparseBytes(board));
+  }
+
+  /** Writes a tag byte and the shorter of the dense and sparse encodings. */
+  public static void encode(ReadableBoard board, ByteBuffer out) {
+    Objects.requireNonNull(board, "board");
+    int sparseBytes = sparseBytes(board);
+    requireRoom(out, 1 + Math.min(DENSE_BYTES, sparseBytes));
+    if (sparseBytes < DENSE_BYTES) {
+      out.put(SPARSE_TAG);
+      encodeSparse(board, out);
+    } else {
+      out.put(DENSE_TAG);
+      encodeDense(board, out);
+    }
+  }
+
+  public static SudokuBoard decode(ByteBuffer in) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    decode(in, cells);
+    return SudokuBoard.fromBytes(cells);
+  }
+
+  /** Decodes a tagged board into {@code cells}, 81 values of 0-9 in row-major order. */
+  public static void decode(ByteBuffer in, byte[] cells) {
+    requireCells(cells);
+    int start = in.position();
+    try {
+      byte tag = in.get();
+      switch (tag) {
+        case DENSE_TAG -> decodeDense(in, cells);
+        case SPARSE_TAG -> decodeSparse(in, cells);
+        default -> throw new IllegalArgumentException("Unknown board encoding " + tag);
+      }
+    } catch (RuntimeException ex) {
+      in.position(start);
+      throw ex;
+    }
+  }
+
+  /** Writes the cells, or only the clues, two to a byte. */
+  private static void putNibbles(ReadableBoard board, ByteBuffer out, boolean cluesOnly) {
+    int pair = 0;
+    boolean high = false;
+    for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+      int value = valueAt(board, i);
+      if (cluesOnly && value == 0) {
+        continue;
+      }
+      if (high) {
+        out.put((byte) (pair | value << 4));
+      } else {
+        pair = value;
+      }
+      high = !high;
+    }
+    if (high) {
+      out.put((byte) pair);
+    }
+  }
+
+  private static int clueCount(ReadableBoard board) {
+    int clues = 0;
+    for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+      if (valueAt(board, i) != 0) {
+        clues++;
+      }
+    }
+    return clues;
+  }
+
+  private static int valueAt(ReadableBoard board, int index) {
+    return board.valueAt(index / SudokuBoard.SIZE, index % SudokuBoard.SIZE);
+  }
+
+  private static byte digit(int nibble) {
+    if (nibble > SudokuBoard.SIZE) {
+      throw new IllegalArgumentException("Cell values must be between 0 and 9 but was " + nibble);
+    }
+    return (byte) nibble;
+  }
+
+  static void requireRoom(ByteBuffer out, int bytes) {
+    if (out.remaining() < bytes) {
+      throw new BufferOverflowException();
+    }
+  }
+
+  private static void requireCells(byte[] cells) {
+    Objects.requireNonNull(cells, "cells");
+    if (cells.length != SudokuBoard.CELL_COUNT) {
+      throw new IllegalArgumentException("Expected 81 cells but got " + cells.length);
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.darren.sudokuscope.core.simd;
+
+import java.util.Optional;
+
+/**
+ * Data-parallel kernels over the 81 cells of a board. Cell sets are bitboards split over two words,
+ * cells 0-63 in the low word and cells 64-80 in the high word; digit masks use bit {@code d - 1}
+ * for digit {@code d}.
+ *
+ * <p>{@link #preferred()} returns the Vector API implementation when the JVM runs with {@code
+ * --add-modules jdk.incubator.vector} on hardware with at least 256-bit vectors, and the scalar
+ * loops otherwise. Setting the system property {@value #VECTOR_PROPERTY} to {@code false} forces
+ * the scalar loops. Both implementations return identical results.
+ */
+public interface CellKernels {
+  /** System property that disables the Vector API kernels when set to {@code false}. */
+  String VECTOR_PROPERTY = "sudokuscope.vector";
+
+  /** Short name used in benchmark and log output. */
+  String name();
+
+  /** Returns whether some row, column or box of {@code cells} (0 for empty) repeats a digit. */
+  boolean hasDuplicates(byte[] cells);
+
+  /**
+   * Builds digit planes for the given empty cells: after the call, bit {@code cell} of {@code
+   * planesLow[d]}/{@code planesHigh[d]} is set when digit {@code d + 1} is missing from the row,
+   * column and box masks of that cell. Both plane arrays are overwritten.
+   */
+  void candidatePlanes(
+      int[] rowMasks,
+      int[] columnMasks,
+      int[] boxMasks,
+      long emptyLow,
+      long emptyHigh,
+      long[] planesLow,
+      long[] planesHigh);
+
+  /**
+   * Returns the first cell, in index order, with at most one candidate, or else the first cell with
+   * the fewest candidates; -1 when the cell set is empty.
+   */
+  int fewestCandidates(
+      int[] rowMasks, int[] columnMasks, int[] boxMasks, long emptyLow, long emptyHigh);
+
+  static CellKernels preferred() {
+    return KernelSelection.PREFERRED;
+  }
+
+  static CellKernels scalar() {
+    return ScalarCellKernels.INSTANCE;
+  }
+
+  /** The Vector API kernels, or empty when the module or the hardware does not support them. */
+  static Optional<CellKernels> vector() {
+    return Optional.ofNullable(KernelSelection.VECTOR);
+  }
+}
@@ -0,0 +1,26 @@
+package com.darren.sudokuscope.core.simd;
+
+/** Resolves the Vector API kernels reflectively so the scalar path never links against them. */
+final class KernelSelection {
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_CLASS = "com.darren.sudokuscope.core.simd.VectorCellKernels";
+
+  static final CellKernels VECTOR = loadVector();
+  static final CellKernels PREFERRED =
+      VECTOR != null && !"false".equalsIgnoreCase(System.getProperty(CellKernels.VECTOR_PROPERTY))
+          ? VECTOR
+          : ScalarCellKernels.INSTANCE;
+
+  private KernelSelection() {}
+
+  private static CellKernels loadVector() {
+    if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      return null;
+    }
+    try {
+      return (CellKernels) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError ex) {
+      return null; // module classes missing, or hardware vectors narrower than the kernels need
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.darren.sudokuscope.core.simd;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+
+/** Plain loops over the cells; the fallback when the Vector API is unavailable. */
+final class ScalarCellKernels implements CellKernels {
+  static final ScalarCellKernels INSTANCE = new ScalarCellKernels();
+
+  private static final int ALL_DIGITS_MASK = 0x1FF; // 9 bits set
+
+  private ScalarCellKernels() {}
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  @Override
+  public boolean hasDuplicates(byte[] cells) {
+    // One pass per unit kind with a single running mask, so the check allocates nothing.
+    for (int unit = 0; unit < SudokuBoard.SIZE; unit++) {
+      int rowMask = 0;
+      int columnMask = 0;
+      int boxMask = 0;
+      int boxStart =
+          (unit / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE * SudokuBoard.SIZE
+              + (unit % SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
+      for (int i = 0; i < SudokuBoard.SIZE; i++) {
+        int rowValue = cells[unit * SudokuBoard.SIZE + i];
+        int columnValue = cells[i * SudokuBoard.SIZE + unit];
+        int boxValue =
+            cells[
+                boxStart
+                    + (i / SudokuBoard.REGION_SIZE) * SudokuBoard.SIZE
+                    + i % SudokuBoard.REGION_SIZE];
+        if (repeats(rowMask, rowValue)
+            || repeats(columnMask, columnValue)
+            || repeats(boxMask, boxValue)) {
+          return true;
+        }
+        rowMask |= bitOf(rowValue);
+        columnMask |= bitOf(columnValue);
+        boxMask |= bitOf(boxValue);
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public void candidatePlanes(
+      int[] rowMasks,
+      int[] columnMasks,
+      int[] boxMasks,
+      long emptyLow,
+      long emptyHigh,
+      long[] planesLow,
+      long[] planesHigh) {
+    for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+      planesLow[digit] = 0L;
+      planesHigh[digit] = 0L;
+    }
+    for (int word = 0; word < 2; word++) {
+      long[] planes = word == 0 ? planesLow : planesHigh;
+      for (long bits = word == 0 ? emptyLow : emptyHigh; bits != 0L; bits &= bits - 1) {
+        int cell = Long.numberOfTrailingZeros(bits) + word * Long.SIZE;
+        for (int digits = candidates(rowMasks, columnMasks, boxMasks, cell);
+            digits != 0;
+            digits &= digits - 1) {
+          planes[Integer.numberOfTrailingZeros(digits)] |= bits & -bits;
+        }
+      }
+    }
+  }
+
+  @Override
+  public int fewestCandidates(
+      int[] rowMasks, int[] columnMasks, int[] boxMasks, long emptyLow, long emptyHigh) {
+    int bestCell = -1;
+    int bestCount = Integer.MAX_VALUE;
+    for (int word = 0; word < 2 && bestCount > 1; word++) {
+      for (long bits = word == 0 ? emptyLow : emptyHigh; bits != 0L; bits &= bits - 1) {
+        int cell = Long.numberOfTrailingZeros(bits) + word * Long.SIZE;
+        int count = Integer.bitCount(candidates(rowMasks, columnMasks, boxMasks, cell));
+        if (count < bestCount) {
+          bestCount = count;
+          bestCell = cell;
+          if (count <= 1) {
+            break;
+          }
+        }
+      }
+    }
+    return bestCell;
+  }
+
+  private static int candidates(int[] rowMasks, int[] columnMasks, int[] boxMasks, int cell) {
+    int row = cell / SudokuBoard.SIZE;
+    int col = cell % SudokuBoard.SIZE;
+    return ~(rowMasks[row] | columnMasks[col] | boxMasks[boxIndex(row, col)]) & ALL_DIGITS_MASK;
+  }
+
+  private static boolean repeats(int mask, int value) {
+    return (mask & bitOf(value)) != 0;
+  }
+
+  /** Bit {@code value - 1} for a digit, 0 for an empty cell. */
+  private static int bitOf(int value) {
+    return value == 0 ? 0 : 1 << (value - 1);
+  }
+
+  private static int boxIndex(int row, int column) {
+    return (row / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE
+        + (column / SudokuBoard.REGION_SIZE);
+  }
+}
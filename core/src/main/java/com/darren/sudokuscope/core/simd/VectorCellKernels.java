@@ -0,0 +1,192 @@
+package com.darren.sudokuscope.core.simd;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels. Each board row is one 16-lane short vector with a lane per column, so a
+ * 256-bit register holds a row and its padding; rows, columns and boxes are checked with lane-wise
+ * operations and masked reductions instead of per-cell branches. Loaded reflectively by {@link
+ * KernelSelection}, so this class is only linked when {@code jdk.incubator.vector} is present.
+ */
+final class VectorCellKernels implements CellKernels {
+  private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_256;
+  private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_128;
+  private static final VectorMask<Byte> ROW_BYTES = BYTES.indexInRange(0, SudokuBoard.SIZE);
+  // Lanes of the three boxes a row crosses.
+  private static final VectorMask<Short>[] BOX_LANES = boxLanes();
+  private static final short ALL_DIGITS_MASK = 0x1FF; // 9 bits set
+  private static final short NO_CELL = 16; // above any candidate count
+  private static final long ROW_BITS = (1L << SudokuBoard.SIZE) - 1;
+
+  VectorCellKernels() {
+    if (ShortVector.SPECIES_PREFERRED.vectorBitSize() < SHORTS.vectorBitSize()) {
+      throw new UnsupportedOperationException("Vector kernels need 256-bit vectors");
+    }
+  }
+
+  @Override
+  public String name() {
+    return "vector";
+  }
+
+  @Override
+  public boolean hasDuplicates(byte[] cells) {
+    ShortVector columnSum = ShortVector.zero(SHORTS);
+    ShortVector columnOr = columnSum;
+    for (int band = 0; band < SudokuBoard.REGION_SIZE; band++) {
+      ShortVector boxSum = ShortVector.zero(SHORTS);
+      ShortVector boxOr = boxSum;
+      for (int i = 0; i < SudokuBoard.REGION_SIZE; i++) {
+        int row = band * SudokuBoard.REGION_SIZE + i;
+        ShortVector values =
+            (ShortVector)
+                ByteVector.fromArray(BYTES, cells, row * SudokuBoard.SIZE, ROW_BYTES)
+                    .convertShape(VectorOperators.B2S, SHORTS, 0);
+        // One bit per placed digit; a set of single bits sums to its union only when disjoint.
+        ShortVector bits =
+            ShortVector.broadcast(SHORTS, (short) 1)
+                .lanewise(VectorOperators.LSHL, values.sub((short) 1))
+                .blend(0, values.compare(VectorOperators.EQ, 0));
+        if (bits.reduceLanes(VectorOperators.ADD) != bits.reduceLanes(VectorOperators.OR)) {
+          return true;
+        }
+        boxSum = boxSum.add(bits);
+        boxOr = boxOr.or(bits);
+      }
+      for (VectorMask<Short> lanes : BOX_LANES) {
+        if (boxSum.reduceLanes(VectorOperators.ADD, lanes)
+            != boxOr.reduceLanes(VectorOperators.OR, lanes)) {
+          return true;
+        }
+      }
+      columnSum = columnSum.add(boxSum);
+      columnOr = columnOr.or(boxOr);
+    }
+    return columnSum.compare(VectorOperators.NE, columnOr).anyTrue();
+  }
+
+  @Override
+  public void candidatePlanes(
+      int[] rowMasks,
+      int[] columnMasks,
+      int[] boxMasks,
+      long emptyLow,
+      long emptyHigh,
+      long[] planesLow,
+      long[] planesHigh) {
+    for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+      planesLow[digit] = 0L;
+      planesHigh[digit] = 0L;
+    }
+    ShortVector columns = columns(columnMasks);
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      long empty = rowBits(emptyLow, emptyHigh, row);
+      if (empty == 0L) {
+        continue;
+      }
+      ShortVector candidates = candidates(rowMasks, columns, boxMasks, row);
+      for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+        long cells =
+            candidates.and((short) (1 << digit)).compare(VectorOperators.NE, 0).toLong() & empty;
+        int shift = row * SudokuBoard.SIZE;
+        if (shift < Long.SIZE) {
+          planesLow[digit] |= cells << shift;
+          if (shift + SudokuBoard.SIZE > Long.SIZE) {
+            planesHigh[digit] |= cells >>> (Long.SIZE - shift);
+          }
+        } else {
+          planesHigh[digit] |= cells << (shift - Long.SIZE);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int fewestCandidates(
+      int[] rowMasks, int[] columnMasks, int[] boxMasks, long emptyLow, long emptyHigh) {
+    ShortVector columns = columns(columnMasks);
+    int bestCell = -1;
+    int bestCount = NO_CELL;
+    for (int row = 0; row < SudokuBoard.SIZE; row++) {
+      long empty = rowBits(emptyLow, emptyHigh, row);
+      if (empty == 0L) {
+        continue;
+      }
+      ShortVector counts =
+          bitCount(candidates(rowMasks, columns, boxMasks, row))
+              .blend(NO_CELL, VectorMask.fromLong(SHORTS, empty).not());
+      int rowBest = counts.reduceLanes(VectorOperators.MIN);
+      if (rowBest <= 1) {
+        return row * SudokuBoard.SIZE + counts.compare(VectorOperators.LE, 1).firstTrue();
+      }
+      if (rowBest < bestCount) {
+        bestCount = rowBest;
+        bestCell = row * SudokuBoard.SIZE + counts.compare(VectorOperators.EQ, rowBest).firstTrue();
+      }
+    }
+    return bestCell;
+  }
+
+  /** Candidate masks of one row's nine cells; padding lanes are meaningless. */
+  private static ShortVector candidates(
+      int[] rowMasks, ShortVector columns, int[] boxMasks, int row) {
+    int firstBox = (row / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
+    ShortVector boxes =
+        ShortVector.broadcast(SHORTS, (short) boxMasks[firstBox])
+            .blend((short) boxMasks[firstBox + 1], BOX_LANES[1])
+            .blend((short) boxMasks[firstBox + 2], BOX_LANES[2]);
+    return columns
+        .or(boxes)
+        .or((short) rowMasks[row])
+        .lanewise(VectorOperators.NOT)
+        .and(ALL_DIGITS_MASK);
+  }
+
+  private static ShortVector columns(int[] columnMasks) {
+    ShortVector columns = ShortVector.zero(SHORTS);
+    for (int col = 0; col < SudokuBoard.SIZE; col++) {
+      columns = columns.withLane(col, (short) columnMasks[col]);
+    }
+    return columns;
+  }
+
+  /** Lane-wise population count of values below 2^9. */
+  private static ShortVector bitCount(ShortVector v) {
+    ShortVector x = v.sub(v.lanewise(VectorOperators.LSHR, 1).and((short) 0x5555));
+    x = x.and((short) 0x3333).add(x.lanewise(VectorOperators.LSHR, 2).and((short) 0x3333));
+    x = x.add(x.lanewise(VectorOperators.LSHR, 4)).and((short) 0x0F0F);
+    return x.add(x.lanewise(VectorOperators.LSHR, 8)).and((short) 0x1F);
+  }
+
+  /** The nine bits of one row taken from a two-word cell bitboard. */
+  private static long rowBits(long low, long high, int row) {
+    int shift = row * SudokuBoard.SIZE;
+    long bits;
+    if (shift == 0) {
+      bits = low;
+    } else if (shift < Long.SIZE) {
+      bits = (low >>> shift) | (high << (Long.SIZE - shift));
+    } else {
+      bits = high >>> (shift - Long.SIZE);
+    }
+    return bits & ROW_BITS;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static VectorMask<Short>[] boxLanes() {
+    VectorMask<Short>[] masks = new VectorMask[SudokuBoard.REGION_SIZE];
+    for (int box = 0; box < SudokuBoard.REGION_SIZE; box++) {
+      int first = box * SudokuBoard.REGION_SIZE;
+      masks[box] =
+          SHORTS
+              .indexInRange(-first, SudokuBoard.SIZE - first)
+              .and(SHORTS.indexInRange(0, first + SudokuBoard.REGION_SIZE));
+    }
+    return masks;
+  }
+}
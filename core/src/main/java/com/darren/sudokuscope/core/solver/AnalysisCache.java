@@ -0,0 +1,113 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.CanonicalForm;
+import com.darren.sudokuscope.core.PackedBoard;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Bounded least-recently-used cache of analyses for {@link SolverService}. Entries are keyed on the
+ * board's {@link SudokuBoard#canonicalForm() canonical form}, so a board that differs from a cached
+ * one only by a symmetry (a transposed, reordered or relabelled copy) is a hit too; its exemplar
+ * solution is stored in canonical coordinates and mapped back onto the board asked about.
+ *
+ * <p>A complete count answers any later request: with its own count, or as a limited result when
+ * the request's {@code maxSolutions} is no larger than that count. A limited result, whether it
+ * stopped at {@code maxSolutions}, a deadline, a node budget or on request, only proves a lower
+ * bound, so it answers requests whose limit it reached and misses for larger or unlimited ones. A
+ * request that wants an exemplar misses on an entry stored without one. Invalid, empty and complete
+ * boards are never cached: the solver settles them without searching.
+ */
+public final class AnalysisCache {
+  private final int maxEntries;
+  // Packed keys take half the memory of boards and hash without rescanning their cells.
+  private final Map<PackedBoard, CachedResult> entries;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  public AnalysisCache(int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("maxEntries must be >= 1");
+    }
+    this.maxEntries = maxEntries;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<PackedBoard, CachedResult> eldest) {
+            if (size() > AnalysisCache.this.maxEntries) {
+              evictions++;
+              return true;
+            }
+            return false;
+          }
+        };
+  }
+
+  /** Returns the cached answer for {@code board} under {@code options}, if an entry has one. */
+  public Optional<SudokuAnalysis> lookup(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+    return cacheable(board) ? lookup(board, board.canonicalForm(), options) : Optional.empty();
+  }
+
+  /** Records {@code analysis} of {@code board}, keeping the better of it and any existing entry. */
+  public void store(SudokuBoard board, SudokuAnalysis analysis) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(analysis, "analysis");
+    if (cacheable(board)) {
+      store(board.canonicalForm(), analysis);
+    }
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits, misses, evictions, entries.size(), maxEntries);
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /** Boards worth caching: the rest are settled by {@link SolverSupport#preflight}. */
+  static boolean cacheable(SudokuBoard board) {
+    return !board.isEmptyBoard() && !board.isComplete();
+  }
+
+  Optional<SudokuAnalysis> lookup(SudokuBoard board, CanonicalForm form, SolverOptions options) {
+    CachedResult entry;
+    synchronized (this) {
+      entry = entries.get(PackedBoard.of(form.board()));
+      if (entry == null || !entry.answers(options)) {
+        misses++;
+        return Optional.empty();
+      }
+      hits++;
+    }
+    return Optional.of(entry.answer(board, form, options));
+  }
+
+  void store(CanonicalForm form, SudokuAnalysis analysis) {
+    if (!analysis.valid()) {
+      return;
+    }
+    CachedResult result = CachedResult.of(form, analysis);
+    synchronized (this) {
+      entries.merge(PackedBoard.of(form.board()), result, CachedResult::better);
+    }
+  }
+
+  /**
+   * Counters since the cache was created. Lookups of boards that are never cached count as neither
+   * hits nor misses.
+   */
+  public record Stats(long hits, long misses, long evictions, int size, int maxEntries) {
+    /** Fraction of lookups answered from the cache, or 0 before the first lookup. */
+    public double hitRatio() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0d : (double) hits / lookups;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * Order in which {@link SolverService} starts queued analyses: every queued {@code INTERACTIVE}
+ * request starts before any {@code NORMAL} one, and those before {@code BATCH} work; requests of
+ * equal priority start in submission order. Running analyses are never preempted.
+ */
+public enum AnalysisPriority {
+  /** Someone is waiting on the answer, such as a board being edited. */
+  INTERACTIVE,
+  /** The priority of requests that do not name one. */
+  NORMAL,
+  /** Background or bulk work that can wait behind everything else. */
+  BATCH
+}
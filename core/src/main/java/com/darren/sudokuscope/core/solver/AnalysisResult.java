@@ -0,0 +1,160 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Mutable, reusable counterpart of {@link SudokuAnalysis}, filled by {@link
+ * SudokuSolver#analyzeInto}. Every call overwrites all fields, so one holder per thread serves any
+ * number of analyses. The accessors allocate nothing except {@link #solutionCount()} for counts
+ * outside the small-value cache, {@link #message()} for messages that embed a number, and {@link
+ * #toAnalysis}.
+ */
+public final class AnalysisResult {
+  private final byte[] solution = new byte[SudokuBoard.CELL_COUNT];
+  private boolean hasSolution;
+  private boolean valid;
+  private SolverStatus status = SolverStatus.NO_SOLUTION;
+  private long count;
+  // Exact count when it does not fit in a long (the known empty-board total), else null.
+  private BigInteger largeCount;
+  private boolean limitReached;
+  private long exploredNodes;
+  // Fixed message, or null when message() derives it from the stop flags below.
+  private String message = "";
+  private boolean interrupted;
+  private boolean cancelled;
+  private boolean timeLimitReached;
+  private boolean nodeBudgetReached;
+  private int limit;
+
+  public boolean valid() {
+    return valid;
+  }
+
+  public SolverStatus status() {
+    return status;
+  }
+
+  public BigInteger solutionCount() {
+    return largeCount != null ? largeCount : BigInteger.valueOf(count);
+  }
+
+  /** The solution count, saturated at {@link Long#MAX_VALUE}. */
+  public long solutionCountAsLong() {
+    return largeCount != null ? Long.MAX_VALUE : count;
+  }
+
+  public boolean limitReached() {
+    return limitReached;
+  }
+
+  public long exploredNodes() {
+    return exploredNodes;
+  }
+
+  public String message() {
+    if (message != null) {
+      return message;
+    }
+    return SolverSupport.completionMessage(
+        interrupted, cancelled, timeLimitReached, nodeBudgetReached, limitReached, limit, count);
+  }
+
+  public boolean hasUniqueSolution() {
+    return status == SolverStatus.UNIQUE_SOLUTION;
+  }
+
+  public boolean hasMultipleSolutions() {
+    return status == SolverStatus.MULTIPLE_SOLUTIONS || status == SolverStatus.LIMIT_REACHED;
+  }
+
+  /** Whether an exemplar solution was captured. */
+  public boolean hasSolution() {
+    return hasSolution;
+  }
+
+  /** Copies the captured solution into {@code target}, which must hold 81 cells. */
+  public void copySolutionTo(byte[] target) {
+    if (!hasSolution) {
+      throw new IllegalStateException("No solution captured");
+    }
+    System.arraycopy(solution, 0, target, 0, SudokuBoard.CELL_COUNT);
+  }
+
+  /** Converts to an immutable analysis of {@code initialBoard}, the board that was analysed. */
+  public SudokuAnalysis toAnalysis(SudokuBoard initialBoard) {
+    Objects.requireNonNull(initialBoard, "initialBoard");
+    return new SudokuAnalysis(
+        initialBoard,
+        valid,
+        status,
+        solutionCount(),
+        hasSolution ? Optional.of(SudokuBoard.fromBytes(solution)) : Optional.empty(),
+        limitReached,
+        exploredNodes,
+        message());
+  }
+
+  void copyFrom(SudokuAnalysis analysis) {
+    valid = analysis.valid();
+    status = analysis.status();
+    BigInteger total = analysis.solutionCount();
+    largeCount = total.bitLength() < Long.SIZE ? null : total;
+    count = largeCount == null ? total.longValue() : Long.MAX_VALUE;
+    limitReached = analysis.limitReached();
+    exploredNodes = analysis.exploredNodes();
+    message = analysis.message();
+    hasSolution = analysis.exemplarSolution().isPresent();
+    if (hasSolution) {
+      System.arraycopy(
+          analysis.exemplarSolution().get().toByteArray(), 0, solution, 0, SudokuBoard.CELL_COUNT);
+    }
+  }
+
+  /** Records a verdict reached without searching, with a fixed message. */
+  void setResolved(
+      SolverStatus newStatus, long newCount, BigInteger newLargeCount, String newMessage) {
+    valid = true;
+    status = newStatus;
+    count = newCount;
+    largeCount = newLargeCount;
+    limitReached = false;
+    exploredNodes = 0L;
+    message = newMessage;
+    hasSolution = false;
+  }
+
+  /** Records a completed search; the message is derived from the stop flags on demand. */
+  void setSearched(
+      long newCount,
+      boolean newLimitReached,
+      long newExploredNodes,
+      boolean newInterrupted,
+      boolean newCancelled,
+      boolean newTimeLimitReached,
+      boolean newNodeBudgetReached,
+      int newLimit) {
+    valid = true;
+    status = SolverSupport.statusFor(newCount, newLimitReached);
+    count = newCount;
+    largeCount = null;
+    limitReached = newLimitReached;
+    exploredNodes = newExploredNodes;
+    message = null;
+    interrupted = newInterrupted;
+    cancelled = newCancelled;
+    timeLimitReached = newTimeLimitReached;
+    nodeBudgetReached = newNodeBudgetReached;
+    limit = newLimit;
+    hasSolution = false;
+  }
+
+  /** Stores {@code cells} as the exemplar solution; call after the matching {@code set...}. */
+  void setSolution(byte[] cells) {
+    System.arraycopy(cells, 0, solution, 0, SudokuBoard.CELL_COUNT);
+    hasSolution = true;
+  }
+}
@@ -0,0 +1,300 @@
+package com.darren.sudokuscope.core.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * The queue in front of a {@link SolverService}'s threads. Requests wait here, one FIFO per {@link
+ * AnalysisPriority}, and the runner executor is only ever handed drain loops, at most {@code
+ * maxRunners} at a time, each of which starts the most urgent waiting request whenever it is free.
+ * Ordering and the bound are therefore applied the same way whatever the runner is: a fixed pool, a
+ * work-stealing pool, one virtual thread per drain loop, or an executor the caller supplied.
+ */
+final class AnalysisScheduler {
+  private static final AnalysisPriority[] PRIORITIES = AnalysisPriority.values();
+
+  private final Executor runner;
+  private final ExecutorService ownedRunner;
+  private final int maxRunners;
+  private final int capacity;
+  private final RejectionPolicy policy;
+  private final List<ArrayDeque<Task>> queues = new ArrayList<>(PRIORITIES.length);
+  private final Counters[] counters = new Counters[PRIORITIES.length];
+  private int queued;
+  private int runners;
+  private boolean closed;
+
+  /**
+   * @param ownedRunner {@code runner} again if {@link #close()} should shut it down, else {@code
+   *     null}
+   */
+  AnalysisScheduler(
+      Executor runner,
+      ExecutorService ownedRunner,
+      int maxRunners,
+      int capacity,
+      RejectionPolicy policy) {
+    this.runner = runner;
+    this.ownedRunner = ownedRunner;
+    this.maxRunners = maxRunners;
+    this.capacity = capacity;
+    this.policy = policy;
+    for (int i = 0; i < PRIORITIES.length; i++) {
+      queues.add(new ArrayDeque<>());
+      counters[i] = new Counters();
+    }
+  }
+
+  /** Queues, runs or rejects {@code task} as the bound and the rejection policy decide. */
+  void submit(Task task) {
+    Task rejected = null;
+    String reason = null;
+    boolean runHere = false;
+    boolean startRunner = false;
+    synchronized (this) {
+      counters[task.priority.ordinal()].submitted++;
+      if (closed) {
+        rejected = task;
+      } else if (queued < capacity) {
+        startRunner = enqueue(task);
+      } else {
+        switch (policy) {
+          case ABORT -> rejected = task;
+          case CALLER_RUNS -> {
+            runHere = true;
+            counters[task.priority.ordinal()].active++;
+          }
+          case DISCARD_OLDEST -> {
+            rejected = evictFor(task.priority);
+            if (rejected == null) {
+              rejected = task;
+            } else {
+              // The evicted task's drain loop, running or requested, serves this one instead.
+              queues.get(task.rank.ordinal()).addLast(task);
+              queued++;
+              task.enqueuedNanos = System.nanoTime();
+            }
+          }
+        }
+      }
+      if (rejected != null) {
+        counters[rejected.priority.ordinal()].rejected++;
+        reason = closed ? "Solver service is closed" : "Solver service queue is full";
+      }
+    }
+    if (rejected != null) {
+      rejected.onRejected.accept(new RejectedExecutionException(reason));
+    }
+    if (runHere) {
+      run(task, 0L);
+    }
+    if (startRunner) {
+      startRunner();
+    }
+  }
+
+  /** Takes {@code task} off the queue if it has not started; a cancelled request frees its slot. */
+  synchronized boolean remove(Task task) {
+    if (queues.get(task.rank.ordinal()).remove(task)) {
+      queued--;
+      counters[task.priority.ordinal()].cancelled++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves {@code task} to the back of the queue for {@code priority} when that ranks above the
+   * queue it waits in, or will wait in if it has not been submitted yet, so a more urgent request
+   * sharing it does not wait behind less urgent ones. It stays counted under the priority it was
+   * submitted at.
+   */
+  synchronized void raise(Task task, AnalysisPriority priority) {
+    if (priority.compareTo(task.rank) >= 0) {
+      return;
+    }
+    boolean waiting = queues.get(task.rank.ordinal()).remove(task);
+    task.rank = priority;
+    if (waiting) {
+      queues.get(priority.ordinal()).addLast(task);
+    }
+  }
+
+  /** Counts a request that joined an identical one in flight and so never reached the queue. */
+  synchronized void recordCoalesced(AnalysisPriority priority) {
+    counters[priority.ordinal()].coalesced++;
+  }
+
+  synchronized SolverService.Stats stats() {
+    long submitted = 0;
+    long completed = 0;
+    long rejected = 0;
+    long cancelled = 0;
+    long coalesced = 0;
+    int active = 0;
+    long queueNanos = 0;
+    long runNanos = 0;
+    for (Counters c : counters) {
+      submitted += c.submitted;
+      completed += c.completed;
+      rejected += c.rejected;
+      cancelled += c.cancelled;
+      coalesced += c.coalesced;
+      active += c.active;
+      queueNanos += c.queueNanos;
+      runNanos += c.runNanos;
+    }
+    return new SolverService.Stats(
+        submitted, completed, rejected, cancelled, coalesced, queued, active, queueNanos, runNanos);
+  }
+
+  synchronized SolverService.Stats stats(AnalysisPriority priority) {
+    Counters c = counters[priority.ordinal()];
+    return new SolverService.Stats(
+        c.submitted,
+        c.completed,
+        c.rejected,
+        c.cancelled,
+        c.coalesced,
+        queues.get(priority.ordinal()).size(),
+        c.active,
+        c.queueNanos,
+        c.runNanos);
+  }
+
+  /**
+   * Rejects everything still queued and, if the runner is owned, shuts it down, interrupting the
+   * analyses in progress.
+   */
+  void close() {
+    List<Task> abandoned = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      for (int i = 0; i < PRIORITIES.length; i++) {
+        counters[i].rejected += queues.get(i).size();
+        abandoned.addAll(queues.get(i));
+        queues.get(i).clear();
+      }
+      queued = 0;
+    }
+    for (Task task : abandoned) {
+      task.onRejected.accept(new RejectedExecutionException("Solver service is closed"));
+    }
+    if (ownedRunner != null) {
+      ownedRunner.shutdownNow();
+    }
+  }
+
+  /** Queues {@code task} and reports whether a new drain loop should start for it. */
+  private boolean enqueue(Task task) {
+    queues.get(task.rank.ordinal()).addLast(task);
+    queued++;
+    task.enqueuedNanos = System.nanoTime();
+    if (runners < maxRunners) {
+      runners++;
+      return true;
+    }
+    return false;
+  }
+
+  /** The oldest task of the lowest priority present, unless it ranks above {@code priority}. */
+  private Task evictFor(AnalysisPriority priority) {
+    for (int i = PRIORITIES.length - 1; i >= priority.ordinal(); i--) {
+      Task oldest = queues.get(i).pollFirst();
+      if (oldest != null) {
+        queued--;
+        return oldest;
+      }
+    }
+    return null;
+  }
+
+  private void startRunner() {
+    try {
+      runner.execute(this::drain);
+    } catch (RejectedExecutionException ex) {
+      // The runner is shutting down: nothing will drain the queue, so fail what is waiting.
+      synchronized (this) {
+        runners--;
+      }
+      close();
+    }
+  }
+
+  private void drain() {
+    while (true) {
+      Task task;
+      long waited;
+      synchronized (this) {
+        task = null;
+        for (ArrayDeque<Task> queue : queues) {
+          task = queue.pollFirst();
+          if (task != null) {
+            break;
+          }
+        }
+        if (task == null) {
+          runners--;
+          return;
+        }
+        queued--;
+        waited = System.nanoTime() - task.enqueuedNanos;
+        counters[task.priority.ordinal()].active++;
+      }
+      run(task, waited);
+    }
+  }
+
+  private void run(Task task, long waitedNanos) {
+    long start = System.nanoTime();
+    try {
+      task.work.run();
+    } finally {
+      long ran = System.nanoTime() - start;
+      synchronized (this) {
+        Counters c = counters[task.priority.ordinal()];
+        c.active--;
+        c.completed++;
+        c.queueNanos += waitedNanos;
+        c.runNanos += ran;
+      }
+    }
+  }
+
+  /**
+   * One request. {@code work} must not throw; it reports its own failures, as {@code onRejected}
+   * reports the request being turned away.
+   */
+  static final class Task {
+    private final AnalysisPriority priority;
+    private final Runnable work;
+    private final Consumer<RejectedExecutionException> onRejected;
+    // The queue it waits in: its priority until a more urgent request sharing it raises it.
+    private AnalysisPriority rank;
+    private long enqueuedNanos;
+
+    Task(
+        AnalysisPriority priority, Runnable work, Consumer<RejectedExecutionException> onRejected) {
+      this.priority = priority;
+      this.rank = priority;
+      this.work = work;
+      this.onRejected = onRejected;
+    }
+  }
+
+  private static final class Counters {
+    private long submitted;
+    private long completed;
+    private long rejected;
+    private long cancelled;
+    private long coalesced;
+    private int active;
+    private long queueNanos;
+    private long runNanos;
+  }
+}
@@ -1,62 +1,125 @@
 package com.darren.sudokuscope.core.solver;
 
 import com.darren.sudokuscope.core.BoardValidator;
-import com.darren.sudokuscope.core.CellPosition;
 import com.darren.sudokuscope.core.SudokuBoard;
-import com.darren.sudokuscope.core.SudokuFacts;
+import com.darren.sudokuscope.core.simd.CellKernels;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 final class BacktrackingSudokuSolver implements SudokuSolver {
   private static final int ALL_DIGITS_MASK = 0x1FF; // 9 bits set
+  private static final int UNIT_COUNT = 3 * SudokuBoard.SIZE;
+  // Cells of every row, then every column, then every box.
+  private static final int[][] UNIT_CELLS = new int[UNIT_COUNT][SudokuBoard.SIZE];
+  // Bitboards split over two words: cells 0-63 in the low word, cells 64-80 in the high word.
+  // Shifts such as 1L << cell use the low six bits of the count, so they address either word.
+  private static final long[] UNIT_LOW = new long[UNIT_COUNT];
+  private static final long[] UNIT_HIGH = new long[UNIT_COUNT];
+  private static final long[] PEERS_LOW = new long[SudokuBoard.CELL_COUNT];
+  private static final long[] PEERS_HIGH = new long[SudokuBoard.CELL_COUNT];
+  // Digit sets of two to four digits, the sizes checked for naked subsets.
+  private static final int[] SUBSET_MASKS;
+  private static final int STALLED = 0;
+  private static final int PROGRESS = 1;
+  private static final int CONTRADICTION = -1;
+  // Nodes between polls of the deadline, cancellation token, node budget, interrupt flag and
+  // shared stop flag.
+  private static final int STOP_CHECK_INTERVAL = 1 << 10;
+  // Slots of one search frame: the depth propagation started at, the depth and original index of
+  // the pivot, the pivot cell, its untried candidates, the digit bit currently placed there, the
+  // forced-cell and trail marks to undo back to, and the pivot's candidate count for progress.
+  private static final int FRAME_DEPTH = 0;
+  private static final int FRAME_NEXT = 1;
+  private static final int FRAME_PIVOT = 2;
+  private static final int FRAME_CELL = 3;
+  private static final int FRAME_CANDIDATES = 4;
+  private static final int FRAME_PLACED = 5;
+  private static final int FRAME_FORCED_START = 6;
+  private static final int FRAME_TRAIL_START = 7;
+  private static final int FRAME_BRANCHES = 8;
+  private static final int FRAME_SIZE = 9;
+
+  static {
+    for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      int box = SolverSupport.boxIndex(row, col);
+      int boxOffset =
+          (row % SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE + col % SudokuBoard.REGION_SIZE;
+      UNIT_CELLS[row][col] = cell;
+      UNIT_CELLS[SudokuBoard.SIZE + col][row] = cell;
+      UNIT_CELLS[2 * SudokuBoard.SIZE + box][boxOffset] = cell;
+    }
+    for (int unit = 0; unit < UNIT_COUNT; unit++) {
+      for (int cell : UNIT_CELLS[unit]) {
+        if (cell < Long.SIZE) {
+          UNIT_LOW[unit] |= 1L << cell;
+        } else {
+          UNIT_HIGH[unit] |= 1L << cell;
+        }
+      }
+    }
+    for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+      int row = cell / SudokuBoard.SIZE;
+      int col = SudokuBoard.SIZE + cell % SudokuBoard.SIZE;
+      int box = 2 * SudokuBoard.SIZE + SolverSupport.boxIndex(row, cell % SudokuBoard.SIZE);
+      PEERS_LOW[cell] = UNIT_LOW[row] | UNIT_LOW[col] | UNIT_LOW[box];
+      PEERS_HIGH[cell] = UNIT_HIGH[row] | UNIT_HIGH[col] | UNIT_HIGH[box];
+      if (cell < Long.SIZE) {
+        PEERS_LOW[cell] &= ~(1L << cell);
+      } else {
+        PEERS_HIGH[cell] &= ~(1L << cell);
+      }
+    }
+    int[] subsets = new int[ALL_DIGITS_MASK];
+    int count = 0;
+    for (int mask = 1; mask <= ALL_DIGITS_MASK; mask++) {
+      int size = Integer.bitCount(mask);
+      if (size >= 2 && size <= 4) {
+        subsets[count++] = mask;
+      }
+    }
+    SUBSET_MASKS = Arrays.copyOf(subsets, count);
+  }
+
+  // Search buffers are reused by every sequential analysis on the same thread.
+  private final ThreadLocal<SearchState> states = ThreadLocal.withInitial(SearchState::new);
 
   @Override
   public SudokuAnalysis analyze(SudokuBoard board, SolverOptions options) {
     Objects.requireNonNull(board, "board");
     Objects.requireNonNull(options, "options");
 
-    BoardValidator.ValidationResult validation = BoardValidator.validate(board);
-    if (!validation.valid()) {
-      return SudokuAnalysis.invalid(board, validation.message());
-    }
-
-    if (board.isEmptyBoard() && options.treatEmptyBoardAsKnown()) {
-      return SudokuAnalysis.emptyBoard(board, SudokuFacts.TOTAL_COMPLETED_GRIDS);
-    }
-
-    if (board.isComplete()) {
-      return new SudokuAnalysis(
-          board,
-          true,
-          SolverStatus.UNIQUE_SOLUTION,
-          BigInteger.ONE,
-          Optional.of(board),
-          false,
-          0L,
-          "Board already solved");
+    SudokuAnalysis preflight = SolverSupport.preflight(board, options);
+    if (preflight != null) {
+      return preflight;
     }
 
-    SearchState state = new SearchState(board, options);
-    state.search();
-
-    SolverStatus status;
-    if (state.limitReached) {
-      status = SolverStatus.LIMIT_REACHED;
-    } else if (state.solutionCount == 0) {
-      status = SolverStatus.NO_SOLUTION;
-    } else if (state.solutionCount == 1) {
-      status = SolverStatus.UNIQUE_SOLUTION;
-    } else {
-      status = SolverStatus.MULTIPLE_SOLUTIONS;
-    }
+    SearchState state = search(board.toByteArray(), options);
+    SolverStatus status = SolverSupport.statusFor(state.solutionCount, state.limitReached);
 
     Optional<SudokuBoard> solution =
-        state.firstSolution == null
-            ? Optional.empty()
-            : Optional.of(SudokuBoard.fromBytes(state.firstSolution));
+        state.hasSolution ? Optional.of(SudokuBoard.fromBytes(state.solution)) : Optional.empty();
 
     return new SudokuAnalysis(
         board,
@@ -66,46 +129,541 @@ final class BacktrackingSudokuSolver implements SudokuSolver {
         solution,
         state.limitReached,
         state.visitedNodes,
-        state.message);
+        state.message());
   }
 
-  private static final class SearchState {
+  @Override
+  public void analyzeInto(byte[] cells, SolverOptions options, AnalysisResult result) {
+    Objects.requireNonNull(cells, "cells");
+    Objects.requireNonNull(options, "options");
+    Objects.requireNonNull(result, "result");
+
+    if (SolverSupport.preflight(cells, options, result)) {
+      return;
+    }
+
+    SearchState state = search(cells, options);
+    result.setSearched(
+        state.solutionCount,
+        state.limitReached,
+        state.visitedNodes,
+        state.interrupted,
+        state.cancelled,
+        state.timeLimitReached,
+        state.nodeBudgetReached,
+        state.limit);
+    if (state.hasSolution) {
+      result.setSolution(state.solution);
+    }
+  }
+
+  private SearchState search(byte[] cells, SolverOptions options) {
+    if (options.parallelism() > 1) {
+      return ParallelCount.run(cells, options);
+    }
+    SearchState state = states.get();
+    if (state.busy) {
+      // A progress listener is analysing on this thread mid-search; leave the outer state alone.
+      state = new SearchState();
+    }
+    state.reset(cells, options, null);
+    state.busy = true;
+    try {
+      state.search();
+    } finally {
+      state.busy = false;
+    }
+    return state;
+  }
+
+  @Override
+  public Stream<SudokuBoard> solutions(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+    if (!BoardValidator.isValid(board)) {
+      return Stream.empty();
+    }
+    SolverOptions streamOptions =
+        new SolverOptions(-1, true, false, options.deadlineNanos(), 1, options.propagation())
+            .withCancellationToken(options.cancellationToken())
+            .withNodeBudget(options.nodeBudget());
+    return StreamSupport.stream(new SolutionSpliterator(board.toByteArray(), streamOptions), false);
+  }
+
+  /**
+   * Fork/join counting. The first few MRV decisions fan out into {@link CountTask}s whose subtrees
+   * are searched sequentially; results are merged in candidate order, so counts and the first
+   * solution do not depend on scheduling. Stop conditions are shared by every subtask; the node
+   * budget applies to the nodes of all workers together. Progress is reported from the calling
+   * thread while it waits: workers add their node and solution counts at each stop check, and every
+   * finished subtask adds its share of the tree.
+   *
+   * <p>Every parallel count shares one pool of one worker per processor, created on first use.
+   * {@code parallelism} decides how finely the top of the tree is split, up to the pool's size.
+   */
+  private static final class ParallelCount {
+    private static final int TASKS_PER_THREAD = 8;
+    private static final int MAX_SPLIT_DEPTH = 16;
+
+    private final SolverOptions options;
+    private final long limit;
+    private final AtomicLong solutions = new AtomicLong();
+    private volatile boolean stopped;
+    private volatile boolean interrupted;
+    private volatile boolean cancelled;
+    private volatile boolean nodeBudgetReached;
+    private final boolean tracksProgress;
+    // Whether workers publish their node counts, for progress reports or the node budget.
+    private final boolean countsNodes;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder progressNodes = new LongAdder();
+    private final LongAdder progressSolutions = new LongAdder();
+    private final DoubleAdder finishedShare = new DoubleAdder();
+
+    private ParallelCount(SolverOptions options) {
+      this.options = options;
+      this.limit = options.isUnlimited() ? Long.MAX_VALUE : options.maxSolutions();
+      this.tracksProgress = options.progressListener() != null;
+      this.countsNodes = tracksProgress || options.nodeBudget() > 0;
+    }
+
+    private static SearchState run(byte[] cells, SolverOptions options) {
+      ParallelCount shared = new ParallelCount(options);
+      ForkJoinPool pool = Workers.POOL;
+      int parallelism = Math.min(options.parallelism(), pool.getParallelism());
+      int splitDepth =
+          Math.min(
+              MAX_SPLIT_DEPTH,
+              Integer.SIZE - Integer.numberOfLeadingZeros(parallelism * TASKS_PER_THREAD - 1));
+      ForkJoinTask<SearchState> task =
+          pool.submit(new CountTask(shared, cells.clone(), splitDepth, 1d));
+
+      SearchState result;
+      try {
+        result = shared.await(task);
+      } catch (InterruptedException ex) {
+        shared.interrupted = true;
+        shared.stop();
+        result = task.join();
+        Thread.currentThread().interrupt();
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException runtime) {
+          throw runtime;
+        }
+        if (cause instanceof Error error) {
+          throw error;
+        }
+        throw new IllegalStateException("Parallel count failed", cause);
+      }
+
+      result.interrupted = shared.interrupted;
+      result.cancelled = shared.cancelled;
+      result.nodeBudgetReached = shared.nodeBudgetReached;
+      result.limitReached = shared.stopped;
+      if (result.solutionCount > shared.limit) {
+        result.solutionCount = shared.limit;
+      }
+      return result;
+    }
+
+    /** Waits for the root task, reporting progress at the configured interval when asked to. */
+    private SearchState await(ForkJoinTask<SearchState> task)
+        throws InterruptedException, ExecutionException {
+      ProgressListener listener = options.progressListener();
+      if (listener == null) {
+        return task.get();
+      }
+      while (true) {
+        try {
+          return task.get(options.progressIntervalNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+          if (!stopped && !report(listener)) {
+            cancelled = true;
+            stop();
+          }
+        }
+      }
+    }
+
+    private boolean report(ProgressListener listener) {
+      SolverProgress progress =
+          SolverProgress.of(
+              progressSolutions.sum(),
+              progressNodes.sum(),
+              finishedShare.sum(),
+              System.nanoTime() - startNanos);
+      try {
+        return listener.onProgress(progress);
+      } catch (RuntimeException | Error ex) {
+        stop();
+        throw ex;
+      }
+    }
+
+    /** Adds what {@code state} found since its last report to the progress totals. */
+    private void addProgress(SearchState state) {
+      progressNodes.add(state.visitedNodes - state.reportedNodes);
+      progressSolutions.add(state.solutionCount - state.reportedSolutions);
+      state.reportedNodes = state.visitedNodes;
+      state.reportedSolutions = state.solutionCount;
+    }
+
+    /**
+     * Periodic stop check of one worker: publishes its counts and applies the shared stop
+     * conditions. Returns whether the count has been stopped.
+     */
+    private boolean poll(SearchState state) {
+      if (countsNodes) {
+        addProgress(state);
+      }
+      CancellationToken token = options.cancellationToken();
+      if (token != null && token.isCancelled()) {
+        cancelled = true;
+        stop();
+      } else if (options.nodeBudget() > 0 && progressNodes.sum() >= options.nodeBudget()) {
+        nodeBudgetReached = true;
+        stop();
+      }
+      return stopped;
+    }
+
+    /** Records a subtask searched to the end; {@code share} is its fraction of the whole tree. */
+    private void finish(SearchState state, double share) {
+      if (countsNodes) {
+        addProgress(state);
+      }
+      if (tracksProgress) {
+        finishedShare.add(share);
+      }
+    }
+
+    /** Returns {@code true} once the shared solution limit has been reached. */
+    private boolean recordSolution() {
+      if (limit == Long.MAX_VALUE) {
+        return false; // unlimited counts never touch the shared counter
+      }
+      if (solutions.incrementAndGet() >= limit) {
+        stop();
+        return true;
+      }
+      return false;
+    }
+
+    private void stop() {
+      stopped = true;
+    }
+
+    /** Holds the shared pool, so its threads only start with the first parallel count. */
+    private static final class Workers {
+      private static final ForkJoinPool POOL = newPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    private static ForkJoinPool newPool(int parallelism) {
+      AtomicInteger counter = new AtomicInteger(1);
+      ForkJoinPool.ForkJoinWorkerThreadFactory factory =
+          pool -> {
+            ForkJoinWorkerThread thread =
+                ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("sudoku-count-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+          };
+      return new ForkJoinPool(parallelism, factory, null, false);
+    }
+  }
+
+  /**
+   * Lazily enumerates solutions. Each spliterator owns a queue of sub-boards still to search and a
+   * search state paused at its last solution. Splitting hands over the front half of the queue; a
+   * single unsearched board is first expanded into one sub-board per candidate of its MRV pivot, so
+   * parallel streams fan out the top of the tree the same way the parallel counter does. A node
+   * budget is shared by a spliterator and everything split from it, and charged after each step.
+   */
+  private static final class SolutionSpliterator implements Spliterator<SudokuBoard> {
     private final SolverOptions options;
-    private final int limit;
-    private final long deadlineNanos;
-    private final byte[] working;
-    private byte[] firstSolution;
+    private final ArrayDeque<byte[]> pending;
+    // Nodes the whole stream may still visit, or null without a node budget.
+    private final AtomicLong budget;
+    private SearchState active;
+    // Unknown size, halved on every split so stream pipelines stop splitting at a sane depth.
+    private long estimate;
+
+    private SolutionSpliterator(byte[] cells, SolverOptions options) {
+      this(
+          new ArrayDeque<>(List.of(cells)),
+          options,
+          options.nodeBudget() > 0 ? new AtomicLong(options.nodeBudget()) : null,
+          Long.MAX_VALUE);
+    }
+
+    private SolutionSpliterator(
+        ArrayDeque<byte[]> pending, SolverOptions options, AtomicLong budget, long estimate) {
+      this.pending = pending;
+      this.options = options;
+      this.budget = budget;
+      this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SudokuBoard> action) {
+      Objects.requireNonNull(action, "action");
+      while (true) {
+        if (active != null) {
+          if (budget != null && budget.get() <= 0) {
+            return stop();
+          }
+          if (nextSolution()) {
+            action.accept(SudokuBoard.fromBytes(active.solution));
+            return true;
+          }
+          if (active.nodeBudgetReached) {
+            return stop();
+          }
+          active = null;
+        }
+        byte[] next = pending.pollFirst();
+        if (next == null) {
+          return false;
+        }
+        active = new SearchState(next, options, null);
+      }
+    }
+
+    @Override
+    public Spliterator<SudokuBoard> trySplit() {
+      if (active == null && pending.size() == 1) {
+        expand(pending.pollFirst());
+      }
+      if (pending.size() < 2) {
+        return null;
+      }
+      ArrayDeque<byte[]> prefix = new ArrayDeque<>();
+      for (int i = pending.size() / 2; i > 0; i--) {
+        prefix.addLast(pending.pollFirst());
+      }
+      estimate >>>= 1;
+      return new SolutionSpliterator(prefix, options, budget, estimate);
+    }
+
+    /** Resumes the active search with what is left of the budget, then charges what it used. */
+    private boolean nextSolution() {
+      if (budget == null) {
+        return active.nextSolution();
+      }
+      long before = active.visitedNodes;
+      active.nodeBudget = before + budget.get();
+      boolean found = active.nextSolution();
+      budget.addAndGet(before - active.visitedNodes);
+      return found;
+    }
+
+    /** Ends this spliterator once the budget is spent. */
+    private boolean stop() {
+      active = null;
+      pending.clear();
+      return false;
+    }
+
+    /** Replaces {@code cells} by its children at the MRV pivot, after propagation. */
+    private void expand(byte[] cells) {
+      SearchState state = new SearchState(cells, options, null);
+      int cell = state.branchPoint();
+      if (cell < 0) {
+        if (state.hasSolution) {
+          pending.addLast(state.solution.clone()); // propagation alone solved it
+        }
+        return;
+      }
+      int candidates = state.candidatesAt(cell);
+      while (candidates != 0) {
+        byte[] child = state.working.clone();
+        child[cell] = (byte) (Integer.numberOfTrailingZeros(candidates) + 1);
+        candidates &= candidates - 1;
+        pending.addLast(child);
+      }
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return DISTINCT | NONNULL | IMMUTABLE;
+    }
+  }
+
+  private static final class CountTask extends RecursiveTask<SearchState> {
+    private final ParallelCount shared;
+    private final byte[] cells;
+    private final int splitDepth;
+    private final double share;
+
+    private CountTask(ParallelCount shared, byte[] cells, int splitDepth, double share) {
+      this.shared = shared;
+      this.cells = cells;
+      this.splitDepth = splitDepth;
+      this.share = share;
+    }
+
+    @Override
+    protected SearchState compute() {
+      SearchState state = new SearchState(cells, shared.options, shared);
+      if (splitDepth == 0 || shared.stopped) {
+        state.search();
+        shared.finish(state, share);
+        return state;
+      }
+      int cell = state.branchPoint();
+      if (cell < 0) {
+        shared.finish(state, share);
+        return state;
+      }
+      int candidates = state.candidatesAt(cell);
+      int branches = Integer.bitCount(candidates);
+      List<CountTask> children = new ArrayList<>(branches);
+      while (candidates != 0) {
+        int bit = candidates & -candidates;
+        candidates &= candidates - 1;
+        byte[] child = state.working.clone();
+        child[cell] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        children.add(new CountTask(shared, child, splitDepth - 1, share / branches));
+      }
+      invokeAll(children);
+      for (CountTask child : children) {
+        state.visitedNodes++;
+        state.merge(child.join());
+      }
+      return state;
+    }
+  }
+
+  /**
+   * Mutable search state. Every buffer is sized for a full board, so one instance can be {@link
+   * #reset} and reused for any number of searches without allocating.
+   */
+  private static final class SearchState {
+    private SolverOptions options;
+    private ParallelCount shared;
+    private PropagationLevel propagation;
+    private int limit;
+    private long deadlineNanos;
+    private final byte[] working = new byte[SudokuBoard.CELL_COUNT];
+    // First solution found, valid when hasSolution is set.
+    private final byte[] solution = new byte[SudokuBoard.CELL_COUNT];
+    private boolean hasSolution;
     private final int[] rowMasks = new int[SudokuBoard.SIZE];
     private final int[] columnMasks = new int[SudokuBoard.SIZE];
     private final int[] boxMasks = new int[SudokuBoard.SIZE];
-    private final int[] emptyPositions;
-    private final List<CellPosition> emptyOrder;
-    private final int[] forcedCells;
-    private final int[] forcedBits;
-    private final int[] forcedDigits;
-    private final int[] forcedSwap;
+    // Digit planes: for each digit, the cells where it is still a candidate. Only the bits of
+    // empty cells are meaningful, so every read is masked with the empty-cell bitboard.
+    private final long[] planesLow = new long[SudokuBoard.SIZE];
+    private final long[] planesHigh = new long[SudokuBoard.SIZE];
+    private long emptyLow;
+    private long emptyHigh;
+    // Plane bits cleared by each placement, put back when the placement is removed.
+    private final long[] clearedLow = new long[SudokuBoard.CELL_COUNT];
+    private final long[] clearedHigh = new long[SudokuBoard.CELL_COUNT];
+    private int placedTop;
+    // The first emptyCount entries are the cells that were empty when the search started.
+    private final int[] emptyPositions = new int[SudokuBoard.CELL_COUNT];
+    private int emptyCount;
+    // Index of every empty cell within emptyPositions.
+    private final int[] positionOf = new int[SudokuBoard.CELL_COUNT];
+    private final int[] forcedCells = new int[SudokuBoard.CELL_COUNT];
+    private final int[] forcedBits = new int[SudokuBoard.CELL_COUNT];
+    private final int[] forcedDigits = new int[SudokuBoard.CELL_COUNT];
+    private final int[] forcedSwap = new int[SudokuBoard.CELL_COUNT];
     private int forcedTop;
+    // Candidates removed by locked-candidate and subset deductions, undone through the trail.
+    private final int[] trailDigits = new int[SudokuBoard.CELL_COUNT * SudokuBoard.SIZE];
+    private final long[] trailLow = new long[SudokuBoard.CELL_COUNT * SudokuBoard.SIZE];
+    private final long[] trailHigh = new long[SudokuBoard.CELL_COUNT * SudokuBoard.SIZE];
+    private int trailTop;
+    private final int[] unitCandidates = new int[SudokuBoard.SIZE];
+    // Frame stack of the iterative search: FRAME_SIZE ints per open branching decision, laid out
+    // contiguously so the slots of one frame share a cache line.
+    private final int[] frames = new int[SudokuBoard.CELL_COUNT * FRAME_SIZE];
+    private int stopCheckCountdown;
     private long solutionCount;
     private boolean limitReached;
     private boolean timeLimitReached;
     private boolean interrupted;
+    private boolean cancelled;
+    private boolean nodeBudgetReached;
+    private CancellationToken cancellationToken;
+    private long nodeBudget;
     private long visitedNodes;
-    private String message = "Search completed";
+    // Progress reporting of a sequential search; parallel counts report through the shared state.
+    private ProgressListener progressListener;
+    private long startNanos;
+    private long nextProgressNanos;
+    // Counts already added to the shared progress totals.
+    private long reportedNodes;
+    private long reportedSolutions;
+    // Set while this state runs a sequential search, so a reentrant analysis gets its own state.
+    private boolean busy;
+    // Streaming mode pauses the search at every solution; pausedTop is the frame to resume at.
+    private boolean streaming;
+    private int pausedTop;
 
-    private SearchState(SudokuBoard board, SolverOptions options) {
+    private SearchState() {}
+
+    private SearchState(byte[] cells, SolverOptions options, ParallelCount shared) {
+      reset(cells, options, shared);
+    }
+
+    /** Loads a new board; {@code cells} is copied, never retained. */
+    private void reset(byte[] cells, SolverOptions options, ParallelCount shared) {
       this.options = options;
+      this.shared = shared;
+      this.propagation = options.propagation();
       this.limit = options.isUnlimited() ? Integer.MAX_VALUE : options.maxSolutions();
       this.deadlineNanos = options.deadlineNanos();
-      this.working = board.toByteArray();
-      this.emptyOrder = new ArrayList<>();
-      List<Integer> empties = new ArrayList<>();
+      System.arraycopy(cells, 0, working, 0, SudokuBoard.CELL_COUNT);
+      Arrays.fill(rowMasks, 0);
+      Arrays.fill(columnMasks, 0);
+      Arrays.fill(boxMasks, 0);
+      hasSolution = false;
+      streaming = false;
+      placedTop = 0;
+      forcedTop = 0;
+      trailTop = 0;
+      stopCheckCountdown = 1;
+      solutionCount = 0;
+      limitReached = false;
+      timeLimitReached = false;
+      interrupted = false;
+      cancelled = false;
+      nodeBudgetReached = false;
+      cancellationToken = options.cancellationToken();
+      nodeBudget = options.nodeBudget();
+      visitedNodes = 0;
+      reportedNodes = 0;
+      reportedSolutions = 0;
+      progressListener = shared == null ? options.progressListener() : null;
+      if (progressListener != null) {
+        startNanos = System.nanoTime();
+        nextProgressNanos = startNanos + options.progressIntervalNanos();
+      }
+      emptyCount = 0;
+      emptyLow = 0L;
+      emptyHigh = 0L;
 
       for (int row = 0; row < SudokuBoard.SIZE; row++) {
         for (int col = 0; col < SudokuBoard.SIZE; col++) {
-          int value = board.valueAt(row, col);
+          int cell = row * SudokuBoard.SIZE + col;
+          int value = cells[cell];
           if (value == 0) {
-            empties.add(row * SudokuBoard.SIZE + col);
-            emptyOrder.add(new CellPosition(row, col));
+            positionOf[cell] = emptyCount;
+            emptyPositions[emptyCount++] = cell;
+            if (cell < Long.SIZE) {
+              emptyLow |= 1L << cell;
+            } else {
+              emptyHigh |= 1L << cell;
+            }
           } else {
             int bit = 1 << (value - 1);
             rowMasks[row] |= bit;
@@ -114,106 +672,182 @@ final class BacktrackingSudokuSolver implements SudokuSolver {
           }
         }
       }
-      this.emptyPositions = empties.stream().mapToInt(Integer::intValue).toArray();
-      this.forcedCells = new int[emptyPositions.length];
-      this.forcedBits = new int[emptyPositions.length];
-      this.forcedDigits = new int[emptyPositions.length];
-      this.forcedSwap = new int[emptyPositions.length];
+      CellKernels.preferred()
+          .candidatePlanes(
+              rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh, planesLow, planesHigh);
     }
 
     private void search() {
-      backtrack(0);
-      if (interrupted) {
-        message = "Stopped due to interruption";
-      } else if (timeLimitReached) {
-        message = "Stopped after reaching time limit";
-      } else if (limitReached) {
-        message = "Stopped after reaching maxSolutions=" + limit;
-      } else if (solutionCount == 0) {
-        message = "No solutions found";
-      } else {
-        message = "Enumerated " + solutionCount + " solution(s)";
-      }
+      backtrack(false);
     }
 
-    private void backtrack(int depth) {
-      if (shouldStop()) {
-        return;
-      }
-      if (depth == emptyPositions.length) {
-        solutionCount++;
-        if (firstSolution == null && options.captureFirstSolution()) {
-          firstSolution = working.clone();
-        }
-        if (!options.isUnlimited() && solutionCount >= limit) {
-          limitReached = true;
-        }
-        return;
+    /**
+     * Streaming search: runs to the next solution and leaves it in {@link #solution}. Returns
+     * {@code false} once the search space is exhausted or a stop condition ends it.
+     */
+    private boolean nextSolution() {
+      if (!streaming) {
+        streaming = true;
+        return backtrack(false);
       }
+      return backtrack(true);
+    }
 
-      int forcedStart = forcedTop;
-      int forcedCount = propagateSingles(depth);
-      if (forcedCount < 0) {
-        return;
-      }
-      if (shouldStop()) {
-        undoForced(depth, forcedStart);
-        return;
-      }
-      int nextDepth = depth + forcedCount;
-      if (nextDepth == emptyPositions.length) {
-        solutionCount++;
-        if (firstSolution == null && options.captureFirstSolution()) {
-          firstSolution = working.clone();
+    private String message() {
+      return SolverSupport.completionMessage(
+          interrupted,
+          cancelled,
+          timeLimitReached,
+          nodeBudgetReached,
+          limitReached,
+          limit,
+          solutionCount);
+    }
+
+    /**
+     * Depth-first search over an explicit frame stack. Each frame is one branching decision: its
+     * pivot cell, the candidates still to try, the digit currently placed and the undo marks of the
+     * propagation that preceded it. Entering a node propagates and either records a solution or
+     * pushes a frame on the pivot; the inner loop then advances the innermost open frame to its
+     * next candidate, popping exhausted frames on the way out. Everything stays in one method so
+     * the JIT compiles the whole node cycle as a single loop.
+     *
+     * <p>In streaming mode the loop returns {@code true} right after recording a solution, with the
+     * frame stack intact; calling again with {@code resume} set continues from that point.
+     */
+    private boolean backtrack(boolean resume) {
+      int top = resume ? pausedTop : -FRAME_SIZE;
+      int depth = 0;
+      boolean enter = !resume;
+      while (true) {
+        if (enter && !shouldStop(top)) {
+          if (depth == emptyCount) {
+            recordSolution();
+            if (streaming) {
+              pausedTop = top;
+              return true;
+            }
+          } else {
+            int forcedStart = forcedTop;
+            int trailStart = trailTop;
+            int forcedCount = propagate(depth);
+            if (forcedCount >= 0) {
+              int nextDepth = depth + forcedCount;
+              if (nextDepth == emptyCount) {
+                recordSolution();
+                undoPropagation(depth, forcedStart, trailStart);
+                if (streaming) {
+                  pausedTop = top;
+                  return true;
+                }
+              } else {
+                int pivotIndex = selectPivot(nextDepth);
+                int cell = emptyPositions[pivotIndex];
+                int candidates = candidatesAt(cell);
+                if (candidates == 0) {
+                  undoPropagation(depth, forcedStart, trailStart); // dead end, no frame needed
+                } else {
+                  swapEmpty(nextDepth, pivotIndex);
+                  top += FRAME_SIZE;
+                  frames[top + FRAME_DEPTH] = depth;
+                  frames[top + FRAME_NEXT] = nextDepth;
+                  frames[top + FRAME_PIVOT] = pivotIndex;
+                  frames[top + FRAME_CELL] = cell;
+                  frames[top + FRAME_CANDIDATES] = candidates;
+                  frames[top + FRAME_PLACED] = 0;
+                  frames[top + FRAME_FORCED_START] = forcedStart;
+                  frames[top + FRAME_TRAIL_START] = trailStart;
+                  frames[top + FRAME_BRANCHES] = Integer.bitCount(candidates);
+                }
+              }
+            }
+          }
         }
-        if (!options.isUnlimited() && solutionCount >= limit) {
-          limitReached = true;
+        enter = true;
+
+        while (true) {
+          if (top < 0) {
+            return false;
+          }
+          int cell = frames[top + FRAME_CELL];
+          int row = cell / SudokuBoard.SIZE;
+          int col = cell % SudokuBoard.SIZE;
+          int box = boxIndex(row, col);
+          int placed = frames[top + FRAME_PLACED];
+          if (placed != 0) {
+            remove(row, col, box, cell, Integer.numberOfTrailingZeros(placed) + 1, placed);
+          }
+          int candidates = frames[top + FRAME_CANDIDATES];
+          if (candidates != 0 && !limitReached) {
+            int bit = candidates & -candidates;
+            frames[top + FRAME_CANDIDATES] = candidates & (candidates - 1);
+            frames[top + FRAME_PLACED] = bit;
+            place(row, col, box, cell, Integer.numberOfTrailingZeros(bit) + 1, bit);
+            visitedNodes++;
+            depth = frames[top + FRAME_NEXT] + 1;
+            break;
+          }
+          swapEmpty(frames[top + FRAME_NEXT], frames[top + FRAME_PIVOT]);
+          undoPropagation(
+              frames[top + FRAME_DEPTH],
+              frames[top + FRAME_FORCED_START],
+              frames[top + FRAME_TRAIL_START]);
+          top -= FRAME_SIZE;
         }
-        undoForced(depth, forcedStart);
-        return;
       }
+    }
 
-      int pivotIndex = selectPivot(nextDepth);
-      if (pivotIndex < 0) {
-        undoForced(depth, forcedStart);
-        return; // dead end
-      }
-      swap(emptyPositions, nextDepth, pivotIndex);
-      int cell = emptyPositions[nextDepth];
-      int row = cell / SudokuBoard.SIZE;
-      int col = cell % SudokuBoard.SIZE;
-      int box = boxIndex(row, col);
-      int usedMask = rowMasks[row] | columnMasks[col] | boxMasks[box];
-      int candidates = (~usedMask) & ALL_DIGITS_MASK;
-      if (candidates == 0) {
-        swap(emptyPositions, nextDepth, pivotIndex);
-        undoForced(depth, forcedStart);
-        return;
+    private void recordSolution() {
+      solutionCount++;
+      if (streaming || (!hasSolution && options.captureFirstSolution())) {
+        System.arraycopy(working, 0, solution, 0, SudokuBoard.CELL_COUNT);
+        hasSolution = true;
       }
-
-      while (candidates != 0) {
-        int bit = candidates & -candidates;
-        candidates &= candidates - 1;
-        int digit = Integer.numberOfTrailingZeros(bit) + 1;
-        place(row, col, box, cell, digit, bit);
-        visitedNodes++;
-        backtrack(nextDepth + 1);
-        remove(row, col, box, cell, digit, bit);
-        if (shouldStop()) {
-          break;
+      if (shared != null) {
+        if (shared.recordSolution()) {
+          limitReached = true;
         }
+      } else if (!options.isUnlimited() && solutionCount >= limit) {
+        limitReached = true;
       }
-      swap(emptyPositions, nextDepth, pivotIndex);
-      undoForced(depth, forcedStart);
     }
 
-    private boolean shouldStop() {
+    /**
+     * Returns whether the search must stop. The solution limit is checked on every call; the clock,
+     * cancellation token, node budget, interrupt flag, shared stop flag and progress listener only
+     * every {@link #STOP_CHECK_INTERVAL} calls. {@code top} is the innermost open frame.
+     */
+    private boolean shouldStop(int top) {
       if (limitReached) {
         return true;
       }
+      if (--stopCheckCountdown > 0) {
+        return false;
+      }
+      stopCheckCountdown = STOP_CHECK_INTERVAL;
       if (deadlineNanos > 0 && System.nanoTime() >= deadlineNanos) {
         timeLimitReached = true;
         limitReached = true;
+        if (shared != null) {
+          shared.stop();
+        }
+        return true;
+      }
+      if (shared != null) {
+        if (shared.poll(this)) {
+          limitReached = true;
+          return true;
+        }
+        return false;
+      }
+      if (cancellationToken != null && cancellationToken.isCancelled()) {
+        cancelled = true;
+        limitReached = true;
+        return true;
+      }
+      if (nodeBudget > 0 && visitedNodes >= nodeBudget) {
+        nodeBudgetReached = true;
+        limitReached = true;
         return true;
       }
       if (Thread.currentThread().isInterrupted()) {
@@ -221,42 +855,346 @@ final class BacktrackingSudokuSolver implements SudokuSolver {
         limitReached = true;
         return true;
       }
+      if (progressListener != null && !reportProgress(top)) {
+        cancelled = true;
+        limitReached = true;
+        return true;
+      }
       return false;
     }
 
-    private int propagateSingles(int depth) {
+    /** Calls the listener once its interval has passed; returns {@code false} if it says stop. */
+    private boolean reportProgress(int top) {
+      long now = System.nanoTime();
+      if (now < nextProgressNanos) {
+        return true;
+      }
+      nextProgressNanos = now + options.progressIntervalNanos();
+      return progressListener.onProgress(
+          SolverProgress.of(solutionCount, visitedNodes, exploredFraction(top), now - startNanos));
+    }
+
+    /**
+     * Share of the tree below the open frames that is finished: at each frame, the branches already
+     * tried, weighted by the share of the tree that frame covers.
+     */
+    private double exploredFraction(int top) {
+      double explored = 0d;
+      double weight = 1d;
+      for (int frame = 0; frame <= top; frame += FRAME_SIZE) {
+        int branches = frames[frame + FRAME_BRANCHES];
+        int open =
+            Integer.bitCount(frames[frame + FRAME_CANDIDATES])
+                + (frames[frame + FRAME_PLACED] != 0 ? 1 : 0);
+        weight /= branches;
+        explored += weight * (branches - open);
+      }
+      return explored;
+    }
+
+    /**
+     * Applies forced singles and picks the pivot of the next branching decision. Returns the pivot
+     * cell, or -1 when propagation either solved the position (the solution is recorded) or hit a
+     * contradiction. Used by the parallel counter, which never backtracks out of this state.
+     */
+    private int branchPoint() {
+      int forced = propagate(0);
+      if (forced < 0) {
+        return -1;
+      }
+      if (forced == emptyCount) {
+        recordSolution();
+        return -1;
+      }
+      return emptyPositions[selectPivot(forced)];
+    }
+
+    /** Gathers an empty cell's candidates from its bit in each digit plane. */
+    private int candidatesAt(int cell) {
+      long[] planes = cell < Long.SIZE ? planesLow : planesHigh;
+      int candidates = 0;
+      for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+        candidates |= (int) ((planes[digit] >>> cell) & 1L) << digit;
+      }
+      return candidates;
+    }
+
+    private void merge(SearchState child) {
+      solutionCount += child.solutionCount;
+      visitedNodes += child.visitedNodes;
+      timeLimitReached |= child.timeLimitReached;
+      if (!hasSolution && child.hasSolution) {
+        System.arraycopy(child.solution, 0, solution, 0, SudokuBoard.CELL_COUNT);
+        hasSolution = true;
+      }
+    }
+
+    /**
+     * Applies the deductions of the configured {@link PropagationLevel} until none applies. Returns
+     * the number of cells filled, or -1 after undoing everything when the position has no solution.
+     */
+    private int propagate(int depth) {
+      if (propagation == PropagationLevel.NONE) {
+        return 0;
+      }
       int start = forcedTop;
-      boolean progress;
+      int trailStart = trailTop;
+      int result;
       do {
-        progress = false;
-        int filled = forcedTop - start;
-        for (int i = depth + filled; i < emptyPositions.length; i++) {
-          int cell = emptyPositions[i];
-          int row = cell / SudokuBoard.SIZE;
-          int col = cell % SudokuBoard.SIZE;
-          int box = boxIndex(row, col);
-          int candidates = (~(rowMasks[row] | columnMasks[col] | boxMasks[box])) & ALL_DIGITS_MASK;
-          if (candidates == 0) {
-            undoForced(depth, start);
-            return -1;
+        int next = depth + forcedTop - start;
+        result = nakedSingle(next);
+        if (result == STALLED && propagation.includes(PropagationLevel.HIDDEN_SINGLES)) {
+          result = hiddenSingle(next);
+        }
+        if (result == STALLED && propagation.includes(PropagationLevel.LOCKED_CANDIDATES)) {
+          result = lockedCandidates();
+        }
+        if (result == STALLED && propagation.includes(PropagationLevel.SUBSETS)) {
+          result = nakedSubsets();
+        }
+        if (result == CONTRADICTION) {
+          undoPropagation(depth, start, trailStart);
+          return -1;
+        }
+      } while (result == PROGRESS);
+      return forcedTop - start;
+    }
+
+    /** Fills every cell that the bit-sliced counts show down to a single candidate. */
+    private int nakedSingle(int next) {
+      long low = fewerThan(planesLow, emptyLow, 2);
+      long high = fewerThan(planesHigh, emptyHigh, 2);
+      if ((low | high) == 0L) {
+        return STALLED;
+      }
+      // Filling one single can empty another, so each is re-read before it is placed.
+      for (; low != 0L; low &= low - 1) {
+        if (!forceSingle(next++, Long.numberOfTrailingZeros(low))) {
+          return CONTRADICTION;
+        }
+      }
+      for (; high != 0L; high &= high - 1) {
+        if (!forceSingle(next++, Long.numberOfTrailingZeros(high) + Long.SIZE)) {
+          return CONTRADICTION;
+        }
+      }
+      return PROGRESS;
+    }
+
+    private boolean forceSingle(int next, int cell) {
+      int candidates = candidatesAt(cell);
+      if (candidates == 0) {
+        return false;
+      }
+      force(next, positionOf[cell], candidates);
+      return true;
+    }
+
+    /**
+     * Bit-sliced candidate counting over one word of the digit planes: returns the empty cells with
+     * fewer than {@code count} candidates, for a count of one to four.
+     */
+    private static long fewerThan(long[] planes, long empty, int count) {
+      long one = 0L;
+      long two = 0L;
+      long three = 0L;
+      long four = 0L;
+      for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+        long plane = planes[digit] & empty;
+        four |= three & plane;
+        three |= two & plane;
+        two |= one & plane;
+        one |= plane;
+      }
+      long atLeast =
+          switch (count) {
+            case 1 -> one;
+            case 2 -> two;
+            case 3 -> three;
+            default -> four;
+          };
+      return empty & ~atLeast;
+    }
+
+    /** Fills a cell that is the only place left for a digit in one of its units. */
+    private int hiddenSingle(int next) {
+      for (int unit = 0; unit < UNIT_COUNT; unit++) {
+        long unitLow = UNIT_LOW[unit] & emptyLow;
+        long unitHigh = UNIT_HIGH[unit] & emptyHigh;
+        for (int digits = ~placedIn(unit) & ALL_DIGITS_MASK; digits != 0; digits &= digits - 1) {
+          int digit = Integer.numberOfTrailingZeros(digits);
+          long low = planesLow[digit] & unitLow;
+          long high = planesHigh[digit] & unitHigh;
+          int places = Long.bitCount(low) + Long.bitCount(high);
+          if (places == 0) {
+            return CONTRADICTION; // a missing digit has no cell left
           }
-          if ((candidates & (candidates - 1)) == 0) {
-            int bit = candidates;
-            int digit = Integer.numberOfTrailingZeros(bit) + 1;
-            int target = depth + filled;
-            swap(emptyPositions, target, i);
-            forcedSwap[forcedTop] = i;
-            forcedCells[forcedTop] = cell;
-            forcedBits[forcedTop] = bit;
-            forcedDigits[forcedTop] = digit;
-            forcedTop++;
-            place(row, col, box, cell, digit, bit);
-            progress = true;
-            break;
+          if (places == 1) {
+            int cell = low != 0L ? Long.numberOfTrailingZeros(low) : firstHigh(high);
+            force(next, positionOf[cell], 1 << digit);
+            return PROGRESS;
           }
         }
-      } while (progress);
-      return forcedTop - start;
+      }
+      return STALLED;
+    }
+
+    /**
+     * Pointing and claiming: a digit confined to one line within a box leaves the rest of that
+     * line, and a digit confined to one box within a line leaves the rest of that box.
+     */
+    private int lockedCandidates() {
+      boolean changed = false;
+      for (int box = 0; box < SudokuBoard.SIZE; box++) {
+        int boxUnit = 2 * SudokuBoard.SIZE + box;
+        int firstRow = (box / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
+        int firstColumn =
+            SudokuBoard.SIZE + (box % SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
+        for (int digits = ~boxMasks[box] & ALL_DIGITS_MASK; digits != 0; digits &= digits - 1) {
+          int digit = Integer.numberOfTrailingZeros(digits);
+          long low = planesLow[digit] & emptyLow & UNIT_LOW[boxUnit];
+          long high = planesHigh[digit] & emptyHigh & UNIT_HIGH[boxUnit];
+          if ((low | high) == 0L) {
+            continue;
+          }
+          for (int i = 0; i < SudokuBoard.REGION_SIZE; i++) {
+            changed |= eliminateIfConfined(digit, low, high, firstRow + i, boxUnit);
+            changed |= eliminateIfConfined(digit, low, high, firstColumn + i, boxUnit);
+          }
+        }
+      }
+      for (int line = 0; line < 2 * SudokuBoard.SIZE; line++) {
+        for (int digits = ~placedIn(line) & ALL_DIGITS_MASK; digits != 0; digits &= digits - 1) {
+          int digit = Integer.numberOfTrailingZeros(digits);
+          long low = planesLow[digit] & emptyLow & UNIT_LOW[line];
+          long high = planesHigh[digit] & emptyHigh & UNIT_HIGH[line];
+          if ((low | high) == 0L) {
+            continue;
+          }
+          for (int i = 0; i < SudokuBoard.REGION_SIZE; i++) {
+            changed |= eliminateIfConfined(digit, low, high, crossingBox(line, i), line);
+          }
+        }
+      }
+      return changed ? PROGRESS : STALLED;
+    }
+
+    /** Removes the digit from {@code target} outside {@code source} if its places lie within. */
+    private boolean eliminateIfConfined(int digit, long low, long high, int target, int source) {
+      if ((low & ~UNIT_LOW[target]) != 0L || (high & ~UNIT_HIGH[target]) != 0L) {
+        return false;
+      }
+      return eliminate(
+          digit, UNIT_LOW[target] & ~UNIT_LOW[source], UNIT_HIGH[target] & ~UNIT_HIGH[source]);
+    }
+
+    /** The {@code index}-th box unit crossed by a row or column unit. */
+    private static int crossingBox(int line, int index) {
+      if (line < SudokuBoard.SIZE) {
+        return 2 * SudokuBoard.SIZE + boxIndex(line, index * SudokuBoard.REGION_SIZE);
+      }
+      return 2 * SudokuBoard.SIZE
+          + boxIndex(index * SudokuBoard.REGION_SIZE, line - SudokuBoard.SIZE);
+    }
+
+    /**
+     * When k cells of a unit share k candidates between them (k from 2 to 4), those digits leave
+     * the unit's other cells; more than k such cells is a contradiction.
+     */
+    private int nakedSubsets() {
+      boolean changed = false;
+      for (int unit = 0; unit < UNIT_COUNT; unit++) {
+        int missing = ~placedIn(unit) & ALL_DIGITS_MASK;
+        int open = Integer.bitCount(missing);
+        int[] cells = UNIT_CELLS[unit];
+        for (int i = 0; i < SudokuBoard.SIZE; i++) {
+          unitCandidates[i] = working[cells[i]] == 0 ? candidatesAt(cells[i]) : -1;
+        }
+        for (int subset : SUBSET_MASKS) {
+          int size = Integer.bitCount(subset);
+          if (size >= open || (subset & ~missing) != 0) {
+            continue;
+          }
+          int inside = 0;
+          for (int candidates : unitCandidates) {
+            if ((candidates & ~subset) == 0) {
+              inside++;
+            }
+          }
+          if (inside > size) {
+            return CONTRADICTION;
+          }
+          if (inside < size) {
+            continue;
+          }
+          for (int i = 0; i < SudokuBoard.SIZE; i++) {
+            int candidates = unitCandidates[i];
+            if (candidates > 0 && (candidates & ~subset) != 0 && (candidates & subset) != 0) {
+              for (int digits = candidates & subset; digits != 0; digits &= digits - 1) {
+                long cell = 1L << cells[i];
+                boolean low = cells[i] < Long.SIZE;
+                eliminate(Integer.numberOfTrailingZeros(digits), low ? cell : 0L, low ? 0L : cell);
+              }
+              unitCandidates[i] = candidates & ~subset;
+              changed = true;
+            }
+          }
+        }
+      }
+      return changed ? PROGRESS : STALLED;
+    }
+
+    /** Places {@code bit} in the cell at {@code index} and moves the cell to slot {@code next}. */
+    private void force(int next, int index, int bit) {
+      int cell = emptyPositions[index];
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      int digit = Integer.numberOfTrailingZeros(bit) + 1;
+      swapEmpty(next, index);
+      forcedSwap[forcedTop] = index;
+      forcedCells[forcedTop] = cell;
+      forcedBits[forcedTop] = bit;
+      forcedDigits[forcedTop] = digit;
+      forcedTop++;
+      place(row, col, boxIndex(row, col), cell, digit, bit);
+    }
+
+    /** Clears a digit from the given empty cells; returns whether any still had it. */
+    private boolean eliminate(int digit, long low, long high) {
+      long removedLow = planesLow[digit] & emptyLow & low;
+      long removedHigh = planesHigh[digit] & emptyHigh & high;
+      if ((removedLow | removedHigh) == 0L) {
+        return false;
+      }
+      planesLow[digit] ^= removedLow;
+      planesHigh[digit] ^= removedHigh;
+      trailDigits[trailTop] = digit;
+      trailLow[trailTop] = removedLow;
+      trailHigh[trailTop] = removedHigh;
+      trailTop++;
+      return true;
+    }
+
+    private int placedIn(int unit) {
+      if (unit < SudokuBoard.SIZE) {
+        return rowMasks[unit];
+      } else if (unit < 2 * SudokuBoard.SIZE) {
+        return columnMasks[unit - SudokuBoard.SIZE];
+      }
+      return boxMasks[unit - 2 * SudokuBoard.SIZE];
+    }
+
+    private static int firstHigh(long high) {
+      return Long.numberOfTrailingZeros(high) + Long.SIZE;
+    }
+
+    private void undoPropagation(int depth, int forcedStart, int trailStart) {
+      undoForced(depth, forcedStart);
+      for (int i = trailTop - 1; i >= trailStart; i--) {
+        planesLow[trailDigits[i]] |= trailLow[i];
+        planesHigh[trailDigits[i]] |= trailHigh[i];
+      }
+      trailTop = trailStart;
     }
 
     private void undoForced(int depth, int start) {
@@ -267,41 +1205,59 @@ final class BacktrackingSudokuSolver implements SudokuSolver {
         int box = boxIndex(row, col);
         remove(row, col, box, cell, forcedDigits[i], forcedBits[i]);
         int target = depth + (i - start);
-        swap(emptyPositions, target, forcedSwap[i]);
+        swapEmpty(target, forcedSwap[i]);
       }
       forcedTop = start;
     }
 
+    /**
+     * Returns the index in {@link #emptyPositions} of an empty cell with the fewest candidates.
+     * Cells with up to three candidates are found by a bit scan of the sliced counts; beyond that,
+     * which only happens on nearly empty boards, the empty cells are scanned.
+     */
     private int selectPivot(int depth) {
-      int bestIndex = -1;
-      int bestCount = Integer.MAX_VALUE;
-      for (int i = depth; i < emptyPositions.length; i++) {
-        int cell = emptyPositions[i];
-        int row = cell / SudokuBoard.SIZE;
-        int col = cell % SudokuBoard.SIZE;
-        int box = boxIndex(row, col);
-        int candidates = (~(rowMasks[row] | columnMasks[col] | boxMasks[box])) & ALL_DIGITS_MASK;
-        if (candidates == 0) {
-          swap(emptyPositions, depth, i);
-          return depth;
+      // Once naked singles have been propagated no cell has fewer than two candidates.
+      for (int count = propagation == PropagationLevel.NONE ? 1 : 3; count <= 4; count++) {
+        long low = fewerThan(planesLow, emptyLow, count);
+        if (low != 0L) {
+          return positionOf[Long.numberOfTrailingZeros(low)];
         }
-        int count = Integer.bitCount(candidates);
+        long high = fewerThan(planesHigh, emptyHigh, count);
+        if (high != 0L) {
+          return positionOf[firstHigh(high)];
+        }
+      }
+      int bestIndex = depth;
+      int bestCount = Integer.MAX_VALUE;
+      for (int i = depth; i < emptyCount; i++) {
+        int count = Integer.bitCount(candidatesAt(emptyPositions[i]));
         if (count < bestCount) {
           bestCount = count;
           bestIndex = i;
-          if (count == 1) {
-            break;
-          }
         }
       }
       return bestIndex;
     }
 
+    /** Fills a cell and clears the digit from its peers' planes in one mask operation. */
     private void place(int row, int col, int box, int cell, int digit, int bit) {
       working[cell] = (byte) digit;
       rowMasks[row] |= bit;
       columnMasks[col] |= bit;
       boxMasks[box] |= bit;
+      int plane = digit - 1;
+      long low = planesLow[plane] & PEERS_LOW[cell];
+      long high = planesHigh[plane] & PEERS_HIGH[cell];
+      planesLow[plane] ^= low;
+      planesHigh[plane] ^= high;
+      clearedLow[placedTop] = low;
+      clearedHigh[placedTop] = high;
+      placedTop++;
+      if (cell < Long.SIZE) {
+        emptyLow &= ~(1L << cell);
+      } else {
+        emptyHigh &= ~(1L << cell);
+      }
     }
 
     private void remove(int row, int col, int box, int cell, int digit, int bit) {
@@ -309,15 +1265,26 @@ final class BacktrackingSudokuSolver implements SudokuSolver {
       rowMasks[row] &= ~bit;
       columnMasks[col] &= ~bit;
       boxMasks[box] &= ~bit;
+      placedTop--;
+      planesLow[digit - 1] |= clearedLow[placedTop];
+      planesHigh[digit - 1] |= clearedHigh[placedTop];
+      if (cell < Long.SIZE) {
+        emptyLow |= 1L << cell;
+      } else {
+        emptyHigh |= 1L << cell;
+      }
     }
 
-    private static void swap(int[] array, int i, int j) {
+    private void swapEmpty(int i, int j) {
       if (i == j) {
         return;
       }
-      int tmp = array[i];
-      array[i] = array[j];
-      array[j] = tmp;
+      int first = emptyPositions[i];
+      int second = emptyPositions[j];
+      emptyPositions[i] = second;
+      emptyPositions[j] = first;
+      positionOf[second] = i;
+      positionOf[first] = j;
     }
 
     private static int boxIndex(int row, int column) {
@@ -0,0 +1,669 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Exact counter in the style of Felgenhauer and Jarvis, for boards whose clues all sit in one band
+ * (or one stack, by transposition). Once the top band is filled, the number of ways to complete the
+ * two empty lower bands depends only on which three digits each column received in the top band,
+ * and is invariant under digit relabelling, column swaps within a stack and stack swaps. The
+ * counter therefore fixes the first box by relabelling, describes each digit only by the column it
+ * occupies in each stack, groups top-band configurations into equivalence classes under those
+ * symmetries, and counts lower-band completions once per class.
+ *
+ * <p>Clues in more than one band and more than one stack break those symmetries, and counting per
+ * exact signature instead costs a pass over the lower bands each, which does not finish for sparse
+ * boards. Such boards are answered at once with {@link SolverStatus#LIMIT_REACHED}, a count of zero
+ * and a message starting {@value #UNSUPPORTED_LAYOUT}.
+ *
+ * <p>Counts are exact, so {@code maxSolutions} is not applied. Deadlines and interruption stop the
+ * count with a lower bound and {@link SolverStatus#LIMIT_REACHED}.
+ */
+final class BandDecompositionCounter implements SudokuSolver {
+  private static final int SIZE = SudokuBoard.SIZE;
+  private static final int BAND = SudokuBoard.REGION_SIZE;
+  private static final int BAND_CELLS = BAND * SIZE;
+  private static final int TYPE_COUNT = BAND * BAND * BAND;
+  private static final int STOP_CHECK_INTERVAL = 4096;
+  // The lower-band cache is cleared when it reaches this size, so memory stays bounded.
+  private static final int CACHE_LIMIT = 1 << 20;
+  static final String UNSUPPORTED_LAYOUT = "Unsupported clue layout";
+  private static final int[][] PERMUTATIONS = {
+    {0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}
+  };
+  // For each symmetry (stack order and column order within every stack), the image of every digit
+  // type. A type packs the column a digit occupies in stacks 0, 1 and 2 as base-3 digits.
+  private static final int[][] TYPE_SYMMETRIES = buildTypeSymmetries();
+
+  @Override
+  public SudokuAnalysis analyze(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+
+    SudokuAnalysis preflight = SolverSupport.preflight(board, options);
+    if (preflight != null) {
+      return preflight;
+    }
+
+    byte[] topBand = orient(board.toByteArray());
+    if (topBand == null) {
+      return new SudokuAnalysis(
+          board,
+          true,
+          SolverStatus.LIMIT_REACHED,
+          BigInteger.ZERO,
+          Optional.empty(),
+          true,
+          0L,
+          UNSUPPORTED_LAYOUT + ": band decomposition needs every clue in one band or one stack");
+    }
+    CountingState state = new CountingState(topBand, options);
+    BigInteger count = state.count();
+    boolean limitReached = state.stopped();
+
+    Optional<SudokuBoard> solution = SolverSupport.exemplar(board, options, count, limitReached);
+
+    return new SudokuAnalysis(
+        board,
+        true,
+        SolverSupport.statusFor(count, limitReached),
+        count,
+        solution,
+        limitReached,
+        state.visitedNodes,
+        state.message(count));
+  }
+
+  /**
+   * The cells of the band holding every clue, after transposing if the clues share a stack instead
+   * (both preserve the count), or {@code null} if they spread over several bands and stacks.
+   */
+  private static byte[] orient(byte[] cells) {
+    for (int transpose = 0; transpose < 2; transpose++) {
+      byte[] oriented = transpose == 0 ? cells : transpose(cells);
+      int cluedBands = 0;
+      int band = 0;
+      for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+        if (oriented[cell] != 0) {
+          cluedBands |= 1 << (cell / BAND_CELLS);
+          band = cell / BAND_CELLS;
+        }
+      }
+      if (Integer.bitCount(cluedBands) <= 1) {
+        return Arrays.copyOfRange(oriented, band * BAND_CELLS, (band + 1) * BAND_CELLS);
+      }
+    }
+    return null;
+  }
+
+  private static byte[] transpose(byte[] cells) {
+    byte[] result = new byte[SudokuBoard.CELL_COUNT];
+    for (int row = 0; row < SIZE; row++) {
+      for (int col = 0; col < SIZE; col++) {
+        result[col * SIZE + row] = cells[row * SIZE + col];
+      }
+    }
+    return result;
+  }
+
+  private static int[][] buildTypeSymmetries() {
+    int[][] symmetries = new int[PERMUTATIONS.length * 216][TYPE_COUNT];
+    int index = 0;
+    for (int[] stackOrder : PERMUTATIONS) {
+      for (int[] first : PERMUTATIONS) {
+        for (int[] second : PERMUTATIONS) {
+          for (int[] third : PERMUTATIONS) {
+            int[][] columnOrders = {first, second, third};
+            for (int type = 0; type < TYPE_COUNT; type++) {
+              int image = 0;
+              for (int stack = 0, weight = 1; stack < BAND; stack++, weight *= BAND) {
+                int source = stackOrder[stack];
+                image += columnOrders[source][coordinate(type, source)] * weight;
+              }
+              symmetries[index][type] = image;
+            }
+            index++;
+          }
+        }
+      }
+    }
+    return symmetries;
+  }
+
+  private static int coordinate(int type, int stack) {
+    return stack == 0 ? type % BAND : stack == 1 ? (type / BAND) % BAND : type / (BAND * BAND);
+  }
+
+  /** Column sets of one band, rebuilt from the type of each digit. */
+  private static int[] columnSets(int[] digitTypes) {
+    int[] sets = new int[SIZE];
+    for (int digit = 0; digit < SIZE; digit++) {
+      int type = digitTypes[digit];
+      for (int stack = 0; stack < BAND; stack++) {
+        sets[stack * BAND + coordinate(type, stack)] |= 1 << digit;
+      }
+    }
+    return sets;
+  }
+
+  /** Packs a multiset of digit types as 27 two-bit counts; equal for relabelled signatures. */
+  private static long histogram(int[] digitTypes) {
+    long key = 0L;
+    for (int type : digitTypes) {
+      key += 1L << (2 * type);
+    }
+    return key;
+  }
+
+  private static int[] typesOfHistogram(long histogram) {
+    int[] types = new int[SIZE];
+    int digit = 0;
+    for (int type = 0; type < TYPE_COUNT; type++) {
+      int count = (int) ((histogram >>> (2 * type)) & 3L);
+      for (int i = 0; i < count; i++) {
+        types[digit++] = type;
+      }
+    }
+    return types;
+  }
+
+  private static long canonicalHistogram(long histogram) {
+    int[] types = typesOfHistogram(histogram);
+    long best = Long.MAX_VALUE;
+    for (int[] symmetry : TYPE_SYMMETRIES) {
+      long image = 0L;
+      for (int type : types) {
+        image += 1L << (2 * symmetry[type]);
+      }
+      best = Math.min(best, image);
+    }
+    return best;
+  }
+
+  /**
+   * Number of ways to fill one empty band whose columns must receive the given digit sets. Column
+   * sets that partition each box guarantee valid boxes, so only row conflicts are tracked: the
+   * state after each column is the digit set of rows 0 and 1.
+   */
+  private static long bandCompletions(int[] columnSets) {
+    LongCountMap current = new LongCountMap(64);
+    LongCountMap next = new LongCountMap(64);
+    current.add(0L, 1L);
+    int used = 0;
+    int[] digits = new int[BAND];
+    for (int col = 0; col < SIZE; col++) {
+      int set = columnSets[col];
+      for (int i = 0, bits = set; i < BAND; i++, bits &= bits - 1) {
+        digits[i] = bits & -bits;
+      }
+      next.clear();
+      for (int slot = 0; slot < current.capacity(); slot++) {
+        if (!current.occupied(slot)) {
+          continue;
+        }
+        long state = current.keyAt(slot);
+        long ways = current.valueAt(slot);
+        int row0 = (int) (state & 0x1FF);
+        int row1 = (int) (state >>> SIZE);
+        int row2 = used & ~row0 & ~row1;
+        for (int[] permutation : PERMUTATIONS) {
+          int d0 = digits[permutation[0]];
+          int d1 = digits[permutation[1]];
+          int d2 = digits[permutation[2]];
+          if ((row0 & d0) != 0 || (row1 & d1) != 0 || (row2 & d2) != 0) {
+            continue;
+          }
+          next.add((row0 | d0) | ((long) (row1 | d1) << SIZE), ways);
+        }
+      }
+      used |= set;
+      LongCountMap swap = current;
+      current = next;
+      next = swap;
+    }
+    long total = 0L;
+    for (int slot = 0; slot < current.capacity(); slot++) {
+      if (current.occupied(slot)) {
+        total += current.valueAt(slot);
+      }
+    }
+    return total;
+  }
+
+  private static final class CountingState {
+    private final byte[] topBand;
+    private final long deadlineNanos;
+    private final CancellationToken cancellationToken;
+    private final long nodeBudget;
+    // Completion counts of an empty lower band keyed by type histogram, backed by a cache keyed by
+    // symmetry class.
+    private final LongCountMap emptyBandCounts = new LongCountMap(1 << 12);
+    private final LongCountMap emptyBandClassCounts = new LongCountMap(1 << 10);
+    private BigInteger total = BigInteger.ZERO;
+    private long signatureClasses;
+    private long topBandConfigurations;
+    private long visitedNodes;
+    private int ticks;
+    private boolean timeLimitReached;
+    private boolean nodeBudgetReached;
+    private boolean cancelled;
+    private boolean interrupted;
+
+    /**
+     * @param topBand the cells of band 0, which holds every clue
+     */
+    private CountingState(byte[] topBand, SolverOptions options) {
+      this.topBand = topBand;
+      this.deadlineNanos = options.deadlineNanos();
+      this.cancellationToken = options.cancellationToken();
+      this.nodeBudget = options.nodeBudget();
+    }
+
+    /** Adds the lower-band completions of every signature class, weighted by its multiplicity. */
+    private BigInteger count() {
+      LongCountMap signatures = symmetricSignatures();
+      for (int slot = 0; slot < signatures.capacity() && !stopped(); slot++) {
+        if (!signatures.occupied(slot)) {
+          continue;
+        }
+        long lower = lowerBandCompletions(columnSets(typesOfHistogram(signatures.keyAt(slot))));
+        if (stopped()) {
+          break;
+        }
+        BigInteger weight = BigInteger.valueOf(signatures.valueAt(slot));
+        total = total.add(weight.multiply(BigInteger.valueOf(lower)));
+        signatureClasses++;
+      }
+      return total;
+    }
+
+    /**
+     * Top-band signatures reduced to classes. Box 0 is relabelled to 1..9 in reading order; the
+     * clues of boxes 1 and 2 move with the relabelling, so box-0 fillings that map those clues
+     * identically are enumerated once.
+     */
+    private LongCountMap symmetricSignatures() {
+      int[] clueCells = new int[BAND_CELLS];
+      int clueCount = 0;
+      for (int cell = 0; cell < BAND_CELLS; cell++) {
+        if (cell % SIZE >= BAND && topBand[cell] != 0) {
+          clueCells[clueCount++] = cell;
+        }
+      }
+      LongCountMap relabelledClues = new LongCountMap(64);
+      fillFirstBox(0, 0, new byte[BAND * BAND], clueCells, clueCount, relabelledClues);
+
+      LongCountMap histograms = new LongCountMap(1 << 12);
+      for (int slot = 0; slot < relabelledClues.capacity() && !stopped(); slot++) {
+        if (!relabelledClues.occupied(slot)) {
+          continue;
+        }
+        byte[] clues = new byte[BAND_CELLS];
+        long packed = relabelledClues.keyAt(slot);
+        for (int i = clueCount - 1; i >= 0; i--) {
+          clues[clueCells[i]] = (byte) (packed % 10);
+          packed /= 10;
+        }
+        LongCountMap found = new LongCountMap(1 << 12);
+        fillCanonicalBand(clues, found);
+        long multiplicity = relabelledClues.valueAt(slot);
+        for (int i = 0; i < found.capacity(); i++) {
+          if (found.occupied(i)) {
+            histograms.add(found.keyAt(i), found.valueAt(i) * multiplicity);
+          }
+        }
+      }
+
+      LongCountMap classes = new LongCountMap(256);
+      for (int slot = 0; slot < histograms.capacity() && !stopped(); slot++) {
+        if (histograms.occupied(slot)) {
+          classes.add(canonicalHistogram(histograms.keyAt(slot)), histograms.valueAt(slot));
+        }
+      }
+      return classes;
+    }
+
+    private void fillFirstBox(
+        int index,
+        int usedDigits,
+        byte[] box,
+        int[] clueCells,
+        int clueCount,
+        LongCountMap relabelledClues) {
+      if (index == box.length) {
+        // Relabelling maps box[i] to i + 1, so a clue with digit d becomes its position in box.
+        int[] relabel = new int[SIZE + 1];
+        for (int i = 0; i < box.length; i++) {
+          relabel[box[i]] = i + 1;
+        }
+        long packed = 0L;
+        for (int i = 0; i < clueCount; i++) {
+          packed = packed * 10 + relabel[topBand[clueCells[i]]];
+        }
+        relabelledClues.add(packed, 1L);
+        return;
+      }
+      int row = index / BAND;
+      int cell = row * SIZE + index % BAND;
+      int rowExcluded = 0;
+      for (int col = BAND; col < SIZE; col++) {
+        int clue = topBand[row * SIZE + col];
+        if (clue != 0) {
+          rowExcluded |= 1 << (clue - 1);
+        }
+      }
+      int given = topBand[cell];
+      int options = given != 0 ? 1 << (given - 1) : 0x1FF;
+      options &= ~usedDigits & ~rowExcluded;
+      while (options != 0) {
+        int bit = options & -options;
+        options &= options - 1;
+        box[index] = (byte) (Integer.numberOfTrailingZeros(bit) + 1);
+        fillFirstBox(index + 1, usedDigits | bit, box, clueCells, clueCount, relabelledClues);
+      }
+    }
+
+    /** Enumerates boxes 1 and 2 of band 0 with box 0 fixed to 1..9, recording type histograms. */
+    private void fillCanonicalBand(byte[] clues, LongCountMap found) {
+      int[] rowMasks = new int[BAND];
+      for (int row = 0; row < BAND; row++) {
+        rowMasks[row] = 0b111 << (BAND * row);
+      }
+      int[][] coordinates = new int[BAND][SIZE];
+      for (int digit = 0; digit < SIZE; digit++) {
+        coordinates[0][digit] = digit % BAND;
+      }
+      fillBandCell(0, clues, rowMasks, new int[SIZE], new int[BAND], coordinates, found);
+    }
+
+    private void fillBandCell(
+        int index,
+        byte[] clues,
+        int[] rowMasks,
+        int[] columnMasks,
+        int[] boxMasks,
+        int[][] coordinates,
+        LongCountMap found) {
+      if (index == 2 * BAND * BAND) {
+        long key = 0L;
+        for (int digit = 0; digit < SIZE; digit++) {
+          int type =
+              coordinates[0][digit]
+                  + BAND * coordinates[1][digit]
+                  + BAND * BAND * coordinates[2][digit];
+          key += 1L << (2 * type);
+        }
+        found.add(key, 1L);
+        topBandConfigurations++;
+        return;
+      }
+      if (shouldStop()) {
+        return;
+      }
+      int row = index / (2 * BAND);
+      int col = BAND + index % (2 * BAND);
+      int box = col / BAND;
+      int given = clues[row * SIZE + col];
+      int options = ~(rowMasks[row] | columnMasks[col] | boxMasks[box]) & 0x1FF;
+      if (given != 0) {
+        options &= 1 << (given - 1);
+      }
+      while (options != 0) {
+        int bit = options & -options;
+        options &= options - 1;
+        int digit = Integer.numberOfTrailingZeros(bit);
+        rowMasks[row] |= bit;
+        columnMasks[col] |= bit;
+        boxMasks[box] |= bit;
+        coordinates[box][digit] = col % BAND;
+        visitedNodes++;
+        fillBandCell(index + 1, clues, rowMasks, columnMasks, boxMasks, coordinates, found);
+        rowMasks[row] &= ~bit;
+        columnMasks[col] &= ~bit;
+        boxMasks[box] &= ~bit;
+      }
+    }
+
+    /**
+     * Completions of bands 1 and 2 given the top band's column sets. In each stack a digit must
+     * move to one of the two other columns in band 1 and to the remaining column in band 2, with
+     * three digits per column: 56 choices per stack.
+     */
+    private long lowerBandCompletions(int[] topSets) {
+      int[][][] second = new int[BAND][][];
+      int[][][] third = new int[BAND][][];
+      for (int stack = 0; stack < BAND; stack++) {
+        int[][][] choices = stackChoices(topSets, stack);
+        second[stack] = choices[0];
+        third[stack] = choices[1];
+        if (second[stack].length == 0) {
+          return 0L;
+        }
+      }
+      int[] secondTypes = new int[SIZE];
+      int[] thirdTypes = new int[SIZE];
+      long total = 0L;
+      for (int a = 0; a < second[0].length; a++) {
+        for (int b = 0; b < second[1].length; b++) {
+          for (int c = 0; c < second[2].length; c++) {
+            if (shouldStop()) {
+              return total;
+            }
+            for (int digit = 0; digit < SIZE; digit++) {
+              secondTypes[digit] =
+                  second[0][a][digit]
+                      + BAND * second[1][b][digit]
+                      + BAND * BAND * second[2][c][digit];
+              thirdTypes[digit] =
+                  third[0][a][digit] + BAND * third[1][b][digit] + BAND * BAND * third[2][c][digit];
+            }
+            visitedNodes++;
+            long middle = emptyBandCount(secondTypes);
+            if (middle != 0L) {
+              total += middle * emptyBandCount(thirdTypes);
+            }
+          }
+        }
+      }
+      return total;
+    }
+
+    /** Returns the valid column moves of one stack as {@code [band][choice][digit]} coordinates. */
+    private int[][][] stackChoices(int[] topSets, int stack) {
+      int[] topColumn = new int[SIZE];
+      for (int col = 0; col < BAND; col++) {
+        for (int bits = topSets[stack * BAND + col]; bits != 0; bits &= bits - 1) {
+          topColumn[Integer.numberOfTrailingZeros(bits)] = col;
+        }
+      }
+      int[][] second = new int[56][];
+      int[][] third = new int[56][];
+      int found = 0;
+      for (int choice = 0; choice < 1 << SIZE; choice++) {
+        int[] middle = new int[SIZE];
+        int[] bottom = new int[SIZE];
+        int[] perColumn = new int[BAND];
+        for (int digit = 0; digit < SIZE; digit++) {
+          int shift = 1 + ((choice >>> digit) & 1);
+          middle[digit] = (topColumn[digit] + shift) % BAND;
+          bottom[digit] = (topColumn[digit] + BAND - shift) % BAND;
+          perColumn[middle[digit]]++;
+        }
+        if (perColumn[0] != BAND || perColumn[1] != BAND) {
+          continue;
+        }
+        second[found] = middle;
+        third[found] = bottom;
+        found++;
+      }
+      return new int[][][] {Arrays.copyOf(second, found), Arrays.copyOf(third, found)};
+    }
+
+    private long emptyBandCount(int[] digitTypes) {
+      long key = histogram(digitTypes);
+      long cached = emptyBandCounts.get(key);
+      if (cached >= 0) {
+        return cached;
+      }
+      long classKey = canonicalHistogram(key);
+      long count = emptyBandClassCounts.get(classKey);
+      if (count < 0) {
+        count = bandCompletions(columnSets(digitTypes));
+        emptyBandClassCounts.add(classKey, count);
+      }
+      if (emptyBandCounts.size() >= CACHE_LIMIT) {
+        emptyBandCounts.clear();
+      }
+      emptyBandCounts.add(key, count);
+      return count;
+    }
+
+    private boolean stopped() {
+      return timeLimitReached || nodeBudgetReached || cancelled || interrupted;
+    }
+
+    private boolean shouldStop() {
+      if (stopped()) {
+        return true;
+      }
+      if (++ticks < STOP_CHECK_INTERVAL) {
+        return false;
+      }
+      ticks = 0;
+      if (deadlineNanos > 0 && System.nanoTime() >= deadlineNanos) {
+        timeLimitReached = true;
+        return true;
+      }
+      if (cancellationToken != null && cancellationToken.isCancelled()) {
+        cancelled = true;
+        return true;
+      }
+      if (nodeBudget > 0 && visitedNodes >= nodeBudget) {
+        nodeBudgetReached = true;
+        return true;
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        interrupted = true;
+        return true;
+      }
+      return false;
+    }
+
+    private String message(BigInteger count) {
+      String detail =
+          " ("
+              + topBandConfigurations
+              + " top-band configurations in "
+              + signatureClasses
+              + " symmetry classes)";
+      if (interrupted) {
+        return "Stopped due to interruption after counting at least " + count + detail;
+      } else if (timeLimitReached) {
+        return "Stopped after reaching time limit after counting at least " + count + detail;
+      } else if (nodeBudgetReached) {
+        return "Stopped after reaching node budget after counting at least " + count + detail;
+      } else if (cancelled) {
+        return "Stopped on request after counting at least " + count + detail;
+      } else if (count.signum() == 0) {
+        return "No solutions found" + detail;
+      }
+      return "Counted " + count + " solution(s)" + detail;
+    }
+  }
+
+  /** Open-addressing map from non-negative long keys to counts; absent keys read as -1. */
+  private static final class LongCountMap {
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+
+    private LongCountMap(int initialCapacity) {
+      allocate(Integer.highestOneBit(Math.max(4, initialCapacity)));
+    }
+
+    private long get(long key) {
+      int mask = keys.length - 1;
+      for (int slot = mix(key) & mask; used[slot]; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return values[slot];
+        }
+      }
+      return -1L;
+    }
+
+    private void add(long key, long delta) {
+      if (2 * (size + 1) > keys.length) {
+        grow();
+      }
+      int mask = keys.length - 1;
+      int slot = mix(key) & mask;
+      while (used[slot]) {
+        if (keys[slot] == key) {
+          values[slot] += delta;
+          return;
+        }
+        slot = (slot + 1) & mask;
+      }
+      used[slot] = true;
+      keys[slot] = key;
+      values[slot] = delta;
+      size++;
+    }
+
+    private void clear() {
+      if (size > 0) {
+        Arrays.fill(used, false);
+        size = 0;
+      }
+    }
+
+    private int size() {
+      return size;
+    }
+
+    private int capacity() {
+      return keys.length;
+    }
+
+    private boolean occupied(int slot) {
+      return used[slot];
+    }
+
+    private long keyAt(int slot) {
+      return keys[slot];
+    }
+
+    private long valueAt(int slot) {
+      return values[slot];
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      long[] oldValues = values;
+      boolean[] oldUsed = used;
+      allocate(keys.length * 2);
+      for (int slot = 0; slot < oldKeys.length; slot++) {
+        if (oldUsed[slot]) {
+          add(oldKeys[slot], oldValues[slot]);
+        }
+      }
+    }
+
+    private void allocate(int capacity) {
+      keys = new long[capacity];
+      values = new long[capacity];
+      used = new boolean[capacity];
+      size = 0;
+    }
+
+    private static int mix(long key) {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32));
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * How {@link SolverService#analyzeAll} spreads a batch: {@code parallelism} worker threads analyse
+ * boards concurrently, and at most {@code queueCapacity} boards are taken from the input before
+ * their results reach the consumer, so a slow consumer holds back the workers and a large input is
+ * never buffered whole. With {@code ordered}, results are delivered in input order, and one slow
+ * board holds back delivery (but not analysis) of up to {@code queueCapacity} boards behind it.
+ */
+public record BatchOptions(int parallelism, boolean ordered, int queueCapacity) {
+  private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+  public BatchOptions {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1");
+    }
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("queueCapacity must be >= 1");
+    }
+  }
+
+  /** One worker per available processor, results in input order. */
+  public static BatchOptions defaults() {
+    return new BatchOptions(
+        Runtime.getRuntime().availableProcessors(), true, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  public BatchOptions withParallelism(int newParallelism) {
+    return new BatchOptions(newParallelism, ordered, queueCapacity);
+  }
+
+  public BatchOptions withOrdered(boolean newOrdered) {
+    return new BatchOptions(parallelism, newOrdered, queueCapacity);
+  }
+
+  public BatchOptions withQueueCapacity(int newQueueCapacity) {
+    return new BatchOptions(parallelism, ordered, newQueueCapacity);
+  }
+}
@@ -0,0 +1,17 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * Totals for one {@link SolverService#analyzeAll} batch. {@code stoppedEarly} is set when the batch
+ * was cancelled or its calling thread interrupted before the input ran out.
+ */
+public record BatchReport(
+    long analyzed, long exploredNodes, long elapsedNanos, boolean stoppedEarly) {
+
+  public double boardsPerSecond() {
+    return elapsedNanos > 0 ? analyzed * 1e9 / elapsedNanos : 0d;
+  }
+
+  public double nodesPerSecond() {
+    return elapsedNanos > 0 ? exploredNodes * 1e9 / elapsedNanos : 0d;
+  }
+}
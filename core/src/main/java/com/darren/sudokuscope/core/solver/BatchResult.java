@@ -0,0 +1,7 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * One board's outcome in a {@link SolverService#analyzeAll} batch: its position in the input, its
+ * analysis and the wall-clock time the analysis took on its worker.
+ */
+public record BatchResult(long index, SudokuAnalysis analysis, long elapsedNanos) {}
@@ -0,0 +1,198 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One {@link SolverService#analyzeAll} batch. Workers claim a chunk of boards at a time from the
+ * shared iterator under a lock, after acquiring a permit per board from a window of {@code
+ * queueCapacity}, and hand each chunk's results to the calling thread through a queue; chunks keep
+ * the lock, queue and wake-ups off the per-board cost of small solves. The calling thread runs the
+ * consumer and returns the permits. In ordered mode it parks early chunks in a ring indexed by
+ * their first input position, which the window keeps from wrapping.
+ *
+ * <p>A failure, in the input or in an analysis, cancels the batch. The failing worker returns the
+ * permits it holds and the calling thread returns those of every chunk it has not delivered, and
+ * workers waiting for permits check the token between waits, so every worker stops and {@link #run}
+ * rethrows the failure.
+ */
+final class BatchRun {
+  private static final int MAX_CHUNK = 32;
+  private static final long ACQUIRE_POLL_MILLIS = 50L;
+  private static final Completed WORKER_DONE = new Completed(-1L, null, null);
+
+  private final Iterator<SudokuBoard> input;
+  private final BatchOptions batch;
+  private final CancellationToken token;
+  private final Function<SudokuBoard, SudokuAnalysis> analyzer;
+  private final int chunkSize;
+  private final Semaphore window;
+  private final BlockingQueue<Completed> results;
+  private long nextInputIndex;
+  private volatile boolean inputExhausted;
+
+  BatchRun(
+      Iterator<SudokuBoard> input,
+      BatchOptions batch,
+      CancellationToken token,
+      Function<SudokuBoard, SudokuAnalysis> analyzer) {
+    this.input = input;
+    this.batch = batch;
+    this.token = token;
+    this.analyzer = analyzer;
+    // Small enough that every worker can hold a chunk with as many again waiting for delivery.
+    this.chunkSize =
+        Math.max(1, Math.min(MAX_CHUNK, batch.queueCapacity() / (2 * batch.parallelism())));
+    this.window = new Semaphore(batch.queueCapacity());
+    // Every taken board holds a permit until delivered, so chunks never outnumber the window; each
+    // worker adds at most one failure and one done marker on top.
+    this.results = new ArrayBlockingQueue<>(batch.queueCapacity() + 2 * batch.parallelism());
+  }
+
+  BatchReport run(Consumer<? super BatchResult> consumer) {
+    long start = System.nanoTime();
+    ExecutorService workers =
+        Executors.newFixedThreadPool(
+            batch.parallelism(), SolverService.daemonThreadFactory("sudoku-batch"));
+    Completed[] pending = batch.ordered() ? new Completed[batch.queueCapacity()] : null;
+    long nextOutputIndex = 0;
+    long analyzed = 0;
+    long exploredNodes = 0;
+    Throwable failure = null;
+    boolean interrupted = false;
+    try {
+      for (int i = 0; i < batch.parallelism(); i++) {
+        workers.execute(this::work);
+      }
+      int running = batch.parallelism();
+      while (running > 0) {
+        Completed completed = results.take();
+        if (completed == WORKER_DONE) {
+          running--;
+        } else if (completed.failure() != null) {
+          if (failure == null) {
+            failure = completed.failure();
+            discard(pending);
+          }
+          token.cancel();
+        } else if (failure != null) {
+          window.release(completed.results().length); // draining after a failure
+        } else if (pending == null) {
+          exploredNodes += deliver(completed, consumer);
+          analyzed += completed.results().length;
+        } else {
+          pending[slot(completed.firstIndex())] = completed;
+          for (Completed next = pending[slot(nextOutputIndex)];
+              next != null;
+              next = pending[slot(nextOutputIndex)]) {
+            pending[slot(nextOutputIndex)] = null;
+            exploredNodes += deliver(next, consumer);
+            analyzed += next.results().length;
+            nextOutputIndex += next.results().length;
+          }
+        }
+      }
+    } catch (InterruptedException ex) {
+      interrupted = true;
+    } finally {
+      token.cancel();
+      workers.shutdownNow();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure instanceof Error error) {
+      throw error;
+    } else if (failure != null) {
+      throw (RuntimeException) failure;
+    }
+    return new BatchReport(analyzed, exploredNodes, System.nanoTime() - start, !inputExhausted);
+  }
+
+  /** Runs the consumer over a chunk, returns its permits and reports its explored nodes. */
+  private long deliver(Completed chunk, Consumer<? super BatchResult> consumer) {
+    long exploredNodes = 0;
+    for (BatchResult result : chunk.results()) {
+      consumer.accept(result);
+      exploredNodes += result.analysis().exploredNodes();
+      window.release();
+    }
+    return exploredNodes;
+  }
+
+  /** Returns the permits of the chunks parked in {@code pending}, which will not be delivered. */
+  private void discard(Completed[] pending) {
+    if (pending == null) {
+      return;
+    }
+    for (int i = 0; i < pending.length; i++) {
+      if (pending[i] != null) {
+        window.release(pending[i].results().length);
+        pending[i] = null;
+      }
+    }
+  }
+
+  private void work() {
+    SudokuBoard[] boards = new SudokuBoard[chunkSize];
+    int held = 0;
+    try {
+      while (!token.isCancelled()) {
+        while (!window.tryAcquire(chunkSize, ACQUIRE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          if (token.isCancelled()) {
+            return;
+          }
+        }
+        held = chunkSize;
+        int count = 0;
+        long firstIndex;
+        synchronized (input) {
+          firstIndex = nextInputIndex;
+          while (count < chunkSize && !token.isCancelled() && input.hasNext()) {
+            boards[count++] = input.next();
+          }
+          nextInputIndex += count;
+          if (count < chunkSize && !token.isCancelled()) {
+            inputExhausted = true;
+          }
+        }
+        window.release(chunkSize - count);
+        held = count;
+        if (count == 0) {
+          break;
+        }
+        BatchResult[] analysed = new BatchResult[count];
+        for (int i = 0; i < count; i++) {
+          long start = System.nanoTime();
+          SudokuAnalysis analysis = analyzer.apply(boards[i]);
+          analysed[i] = new BatchResult(firstIndex + i, analysis, System.nanoTime() - start);
+          boards[i] = null;
+        }
+        results.put(new Completed(firstIndex, analysed, null));
+        held = 0;
+      }
+    } catch (InterruptedException ex) {
+      // Shutting down.
+    } catch (RuntimeException | Error ex) {
+      token.cancel();
+      window.release(held);
+      results.offer(new Completed(-1L, null, ex));
+    } finally {
+      results.offer(WORKER_DONE);
+    }
+  }
+
+  private int slot(long index) {
+    return (int) (index % batch.queueCapacity());
+  }
+
+  private record Completed(long firstIndex, BatchResult[] results, Throwable failure) {}
+}
@@ -0,0 +1,79 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.CanonicalForm;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.Optional;
+
+/**
+ * What one analysis proved about a canonical board, shared by {@link AnalysisCache} and {@link
+ * MappedResultStore}. {@code solution} is in canonical coordinates and may be {@code null}; an
+ * inexact {@code count} is a lower bound.
+ */
+record CachedResult(
+    BigInteger count, boolean exact, SudokuBoard solution, long exploredNodes, String message) {
+
+  /** The result of {@code analysis}, with its exemplar mapped onto {@code form}'s board. */
+  static CachedResult of(CanonicalForm form, SudokuAnalysis analysis) {
+    return new CachedResult(
+        analysis.solutionCount(),
+        !analysis.limitReached(),
+        analysis.exemplarSolution().map(form.symmetry()::apply).orElse(null),
+        analysis.exploredNodes(),
+        analysis.message());
+  }
+
+  /** Whether a search with {@code options} would have returned what this result knows. */
+  boolean answers(SolverOptions options) {
+    if (options.captureFirstSolution() && solution == null && count.signum() > 0) {
+      return false;
+    }
+    return exact || (!options.isUnlimited() && reaches(options.maxSolutions()));
+  }
+
+  /** The analysis of {@code board}, whose canonical form is {@code form}, under {@code options}. */
+  SudokuAnalysis answer(SudokuBoard board, CanonicalForm form, SolverOptions options) {
+    Optional<SudokuBoard> exemplar =
+        options.captureFirstSolution() && solution != null
+            ? Optional.of(form.toOriginal(solution))
+            : Optional.empty();
+    if (options.isUnlimited() || !reaches(options.maxSolutions())) {
+      return new SudokuAnalysis(
+          board,
+          true,
+          SolverSupport.statusFor(count, false),
+          count,
+          exemplar,
+          false,
+          exploredNodes,
+          message);
+    }
+    // The search asked for would have stopped at its own limit.
+    int limit = options.maxSolutions();
+    return new SudokuAnalysis(
+        board,
+        true,
+        SolverStatus.LIMIT_REACHED,
+        BigInteger.valueOf(limit),
+        exemplar,
+        true,
+        exploredNodes,
+        SolverSupport.completionMessage(false, false, false, false, true, limit, limit));
+  }
+
+  private boolean reaches(int limit) {
+    return count.compareTo(BigInteger.valueOf(limit)) >= 0;
+  }
+
+  /** Merge function: an exact count beats a bound, a higher bound a lower one. */
+  static CachedResult better(CachedResult current, CachedResult candidate) {
+    if (current.exact != candidate.exact) {
+      return current.exact ? current : candidate;
+    }
+    int order = candidate.count.compareTo(current.count);
+    if (order != 0) {
+      return order > 0 ? candidate : current;
+    }
+    return current.solution == null && candidate.solution != null ? candidate : current;
+  }
+}
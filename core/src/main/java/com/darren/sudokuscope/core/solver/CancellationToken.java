@@ -0,0 +1,34 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * Cooperative cancellation for a running analysis; see {@link SolverOptions#withCancellationToken}.
+ * Searches poll {@link #isCancelled()} at their periodic stop check, every 1024 nodes for the
+ * backtracking engine, so cancelling works from any thread and with pooled or virtual threads,
+ * without relying on interrupts. A cancelled search reports the solutions found so far with status
+ * {@link SolverStatus#LIMIT_REACHED}.
+ */
+public final class CancellationToken {
+  private final CancellationToken parent;
+  private volatile boolean cancelled;
+
+  public CancellationToken() {
+    this(null);
+  }
+
+  private CancellationToken(CancellationToken parent) {
+    this.parent = parent;
+  }
+
+  /** Returns a token that is cancelled along with this one and can also be cancelled alone. */
+  public CancellationToken child() {
+    return new CancellationToken(this);
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  public boolean isCancelled() {
+    return cancelled || (parent != null && parent.isCancelled());
+  }
+}
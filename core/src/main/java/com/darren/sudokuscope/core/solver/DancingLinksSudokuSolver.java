@@ -0,0 +1,278 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Algorithm X over the Sudoku exact-cover matrix. Each of the 729 candidate rows (cell, digit)
+ * covers four of the 324 constraint columns: the cell itself, and the digit within its row, column
+ * and box. Column sizes are maintained by the links, so the most constrained column is found
+ * without re-deriving candidates from the board.
+ */
+final class DancingLinksSudokuSolver implements SudokuSolver {
+  private static final int DIGITS = SudokuBoard.SIZE;
+  private static final int COLUMN_COUNT = 4 * SudokuBoard.CELL_COUNT;
+  private static final int ROW_COUNT = SudokuBoard.CELL_COUNT * DIGITS;
+  private static final int ROOT = 0;
+  private static final int FIRST_ROW_NODE = COLUMN_COUNT + 1;
+  private static final int NODE_COUNT = FIRST_ROW_NODE + ROW_COUNT * 4;
+  // Stop checks between polls of the deadline, cancellation token, node budget and interrupt flag.
+  private static final int STOP_CHECK_INTERVAL = 1 << 10;
+
+  // Fully linked matrix. Row links never change, so searches copy only the header ring and the
+  // vertical links.
+  private static final int[] LEFT = new int[NODE_COUNT];
+  private static final int[] RIGHT = new int[NODE_COUNT];
+  private static final int[] UP = new int[NODE_COUNT];
+  private static final int[] DOWN = new int[NODE_COUNT];
+  private static final int[] COLUMN = new int[NODE_COUNT];
+  private static final int[] COLUMN_SIZE = new int[COLUMN_COUNT + 1];
+
+  static {
+    for (int header = 0; header <= COLUMN_COUNT; header++) {
+      LEFT[header] = header == 0 ? COLUMN_COUNT : header - 1;
+      RIGHT[header] = header == COLUMN_COUNT ? 0 : header + 1;
+      UP[header] = header;
+      DOWN[header] = header;
+      COLUMN[header] = header;
+    }
+    for (int row = 0; row < ROW_COUNT; row++) {
+      int cell = row / DIGITS;
+      int digit = row % DIGITS;
+      int boardRow = cell / SudokuBoard.SIZE;
+      int boardCol = cell % SudokuBoard.SIZE;
+      int box = SolverSupport.boxIndex(boardRow, boardCol);
+      int[] headers = {
+        1 + cell,
+        1 + SudokuBoard.CELL_COUNT + boardRow * DIGITS + digit,
+        1 + 2 * SudokuBoard.CELL_COUNT + boardCol * DIGITS + digit,
+        1 + 3 * SudokuBoard.CELL_COUNT + box * DIGITS + digit
+      };
+      int first = nodeOf(row);
+      for (int i = 0; i < headers.length; i++) {
+        int node = first + i;
+        int header = headers[i];
+        COLUMN[node] = header;
+        UP[node] = UP[header];
+        DOWN[node] = header;
+        DOWN[UP[header]] = node;
+        UP[header] = node;
+        COLUMN_SIZE[header]++;
+        LEFT[node] = first + (i + 3) % 4;
+        RIGHT[node] = first + (i + 1) % 4;
+      }
+    }
+  }
+
+  @Override
+  public SudokuAnalysis analyze(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+
+    SudokuAnalysis preflight = SolverSupport.preflight(board, options);
+    if (preflight != null) {
+      return preflight;
+    }
+
+    SearchState state = new SearchState(board, options);
+    state.search();
+
+    SolverStatus status = SolverSupport.statusFor(state.solutionCount, state.limitReached);
+
+    Optional<SudokuBoard> solution =
+        state.firstSolution == null
+            ? Optional.empty()
+            : Optional.of(SudokuBoard.fromBytes(state.firstSolution));
+
+    return new SudokuAnalysis(
+        board,
+        true,
+        status,
+        BigInteger.valueOf(state.solutionCount),
+        solution,
+        state.limitReached,
+        state.visitedNodes,
+        state.message);
+  }
+
+  private static int nodeOf(int matrixRow) {
+    return FIRST_ROW_NODE + matrixRow * 4;
+  }
+
+  private static int matrixRowOf(int node) {
+    return (node - FIRST_ROW_NODE) / 4;
+  }
+
+  private static final class SearchState {
+    private final SolverOptions options;
+    private final int limit;
+    private final long deadlineNanos;
+    private final CancellationToken cancellationToken;
+    private final long nodeBudget;
+    private final byte[] working;
+    private final int[] left = Arrays.copyOf(LEFT, COLUMN_COUNT + 1);
+    private final int[] right = Arrays.copyOf(RIGHT, COLUMN_COUNT + 1);
+    private final int[] up = UP.clone();
+    private final int[] down = DOWN.clone();
+    private final int[] size = COLUMN_SIZE.clone();
+    private byte[] firstSolution;
+    private long solutionCount;
+    private boolean limitReached;
+    private boolean timeLimitReached;
+    private boolean nodeBudgetReached;
+    private boolean cancelled;
+    private boolean interrupted;
+    private int stopCheckCountdown = 1;
+    private long visitedNodes;
+    private String message = "Search completed";
+
+    private SearchState(SudokuBoard board, SolverOptions options) {
+      this.options = options;
+      this.limit = options.isUnlimited() ? Integer.MAX_VALUE : options.maxSolutions();
+      this.deadlineNanos = options.deadlineNanos();
+      this.cancellationToken = options.cancellationToken();
+      this.nodeBudget = options.nodeBudget();
+      this.working = board.toByteArray();
+      for (int cell = 0; cell < working.length; cell++) {
+        int value = working[cell];
+        if (value != 0) {
+          // Givens were validated, so their four columns are still uncovered.
+          selectRow(nodeOf(cell * DIGITS + value - 1));
+        }
+      }
+    }
+
+    private void search() {
+      backtrack();
+      message =
+          SolverSupport.completionMessage(
+              interrupted,
+              cancelled,
+              timeLimitReached,
+              nodeBudgetReached,
+              limitReached,
+              limit,
+              solutionCount);
+    }
+
+    private void backtrack() {
+      if (shouldStop()) {
+        return;
+      }
+      if (right[ROOT] == ROOT) {
+        solutionCount++;
+        if (firstSolution == null && options.captureFirstSolution()) {
+          firstSolution = working.clone();
+        }
+        if (!options.isUnlimited() && solutionCount >= limit) {
+          limitReached = true;
+        }
+        return;
+      }
+
+      int column = smallestColumn();
+      if (size[column] == 0) {
+        return; // dead end
+      }
+      cover(column);
+      for (int node = down[column]; node != column; node = down[node]) {
+        int matrixRow = matrixRowOf(node);
+        working[matrixRow / DIGITS] = (byte) (matrixRow % DIGITS + 1);
+        for (int j = RIGHT[node]; j != node; j = RIGHT[j]) {
+          cover(COLUMN[j]);
+        }
+        visitedNodes++;
+        backtrack();
+        for (int j = LEFT[node]; j != node; j = LEFT[j]) {
+          uncover(COLUMN[j]);
+        }
+        working[matrixRow / DIGITS] = 0;
+        if (shouldStop()) {
+          break;
+        }
+      }
+      uncover(column);
+    }
+
+    private int smallestColumn() {
+      int best = right[ROOT];
+      int bestSize = size[best];
+      for (int column = right[best]; column != ROOT && bestSize > 1; column = right[column]) {
+        if (size[column] < bestSize) {
+          best = column;
+          bestSize = size[column];
+        }
+      }
+      return best;
+    }
+
+    private void selectRow(int node) {
+      cover(COLUMN[node]);
+      for (int j = RIGHT[node]; j != node; j = RIGHT[j]) {
+        cover(COLUMN[j]);
+      }
+    }
+
+    private void cover(int column) {
+      right[left[column]] = right[column];
+      left[right[column]] = left[column];
+      for (int i = down[column]; i != column; i = down[i]) {
+        for (int j = RIGHT[i]; j != i; j = RIGHT[j]) {
+          down[up[j]] = down[j];
+          up[down[j]] = up[j];
+          size[COLUMN[j]]--;
+        }
+      }
+    }
+
+    private void uncover(int column) {
+      for (int i = up[column]; i != column; i = up[i]) {
+        for (int j = LEFT[i]; j != i; j = LEFT[j]) {
+          size[COLUMN[j]]++;
+          down[up[j]] = j;
+          up[down[j]] = j;
+        }
+      }
+      right[left[column]] = column;
+      left[right[column]] = column;
+    }
+
+    /**
+     * Returns whether the search must stop. The solution limit is checked on every call, the other
+     * stop conditions every {@link #STOP_CHECK_INTERVAL} calls.
+     */
+    private boolean shouldStop() {
+      if (limitReached) {
+        return true;
+      }
+      if (--stopCheckCountdown > 0) {
+        return false;
+      }
+      stopCheckCountdown = STOP_CHECK_INTERVAL;
+      if (deadlineNanos > 0 && System.nanoTime() >= deadlineNanos) {
+        timeLimitReached = true;
+        limitReached = true;
+        return true;
+      }
+      if (cancellationToken != null && cancellationToken.isCancelled()) {
+        cancelled = true;
+        limitReached = true;
+        return true;
+      }
+      if (nodeBudget > 0 && visitedNodes >= nodeBudget) {
+        nodeBudgetReached = true;
+        limitReached = true;
+        return true;
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        interrupted = true;
+        limitReached = true;
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.PackedBoard;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * The asynchronous analyses a {@link SolverService} has started and not yet finished, so that a
+ * request for the same board with options giving the same result joins the one in flight instead of
+ * searching again. Each caller gets a future of its own: cancelling it only detaches that caller,
+ * and the shared computation is cancelled once every caller has.
+ *
+ * <p>Deadlines are not part of the key. A request joins only an analysis that will run at least as
+ * long as it asked for, one without a deadline or with a deadline no earlier than its own;
+ * otherwise it starts its own analysis, which later identical requests join instead.
+ */
+final class InFlightAnalyses {
+  private final Map<Key, Flight> flights = new HashMap<>();
+  private final Consumer<AnalysisPriority> onCoalesced;
+
+  /**
+   * @param onCoalesced told the priority of each request that joined one in flight
+   */
+  InFlightAnalyses(Consumer<AnalysisPriority> onCoalesced) {
+    this.onCoalesced = onCoalesced;
+  }
+
+  /**
+   * The key a request is coalesced under, or {@code null} if it must run on its own: a caller's
+   * progress listener or cancellation token belongs to that caller's search alone. Only the options
+   * that change the result are part of it; parallelism and propagation change how fast the same
+   * answer comes, and the deadline is matched separately by {@link #join}.
+   */
+  static Key keyFor(PackedBoard board, SolverOptions options) {
+    if (options.progressListener() != null || options.cancellationToken() != null) {
+      return null;
+    }
+    return new Key(
+        board,
+        options.maxSolutions(),
+        options.captureFirstSolution(),
+        options.treatEmptyBoardAsKnown(),
+        options.nodeBudget());
+  }
+
+  /**
+   * Joins the unfinished analysis under {@code key} if its deadline is no earlier than {@code
+   * deadlineNanos} or, if there is none, registers {@code computation} as the analysis and runs
+   * {@code start} to begin it. A joined request hands its priority to the analysis's {@code raise},
+   * so an urgent request does not wait at the priority of a less urgent one that got there first.
+   *
+   * @param deadlineNanos the request's {@link SolverOptions#deadlineNanos()}, 0 for none
+   * @param computation completed by {@code start}; cancelled once every caller has cancelled
+   * @param raise told the priority of each request that later joins this analysis
+   * @return this caller's future
+   */
+  CompletableFuture<SudokuAnalysis> join(
+      Key key,
+      long deadlineNanos,
+      AnalysisPriority priority,
+      CompletableFuture<SudokuAnalysis> computation,
+      Runnable start,
+      Consumer<AnalysisPriority> raise) {
+    Flight flight;
+    boolean joined;
+    synchronized (this) {
+      flight = flights.get(key);
+      joined =
+          flight != null
+              && !flight.computation.isDone()
+              && runsAtLeastUntil(flight.deadlineNanos, deadlineNanos);
+      if (joined) {
+        flight.callers++;
+      } else {
+        flight = new Flight(key, deadlineNanos, computation, raise);
+        flights.put(key, flight);
+      }
+    }
+    Caller caller = new Caller(flight);
+    if (joined) {
+      onCoalesced.accept(priority);
+      flight.raise.accept(priority);
+    } else {
+      Flight started = flight;
+      computation.whenComplete((analysis, failure) -> land(started));
+      start.run();
+    }
+    flight.computation.whenComplete(
+        (analysis, failure) -> {
+          if (failure == null) {
+            caller.complete(analysis);
+          } else {
+            caller.completeExceptionally(failure);
+          }
+        });
+    return caller;
+  }
+
+  /** Number of analyses in flight. */
+  synchronized int size() {
+    return flights.size();
+  }
+
+  /** Whether an analysis stopping at {@code running} runs as long as one wanting {@code wanted}. */
+  private static boolean runsAtLeastUntil(long running, long wanted) {
+    return running == 0L || (wanted != 0L && running - wanted >= 0L);
+  }
+
+  private synchronized void land(Flight flight) {
+    flights.remove(flight.key, flight);
+  }
+
+  private void leave(Flight flight) {
+    boolean abandoned;
+    synchronized (this) {
+      // A flight a later request displaced is no longer in the map, but still has to stop.
+      abandoned = --flight.callers == 0;
+      if (abandoned) {
+        flights.remove(flight.key, flight);
+      }
+    }
+    if (abandoned) {
+      flight.computation.cancel(false);
+    }
+  }
+
+  /** A board and the options that decide its analysis. */
+  record Key(
+      PackedBoard board,
+      int maxSolutions,
+      boolean captureFirstSolution,
+      boolean treatEmptyBoardAsKnown,
+      long nodeBudget) {}
+
+  private static final class Flight {
+    private final Key key;
+    private final long deadlineNanos;
+    private final CompletableFuture<SudokuAnalysis> computation;
+    private final Consumer<AnalysisPriority> raise;
+    private int callers = 1;
+
+    private Flight(
+        Key key,
+        long deadlineNanos,
+        CompletableFuture<SudokuAnalysis> computation,
+        Consumer<AnalysisPriority> raise) {
+      this.key = key;
+      this.deadlineNanos = deadlineNanos;
+      this.computation = computation;
+      this.raise = raise;
+    }
+  }
+
+  /** One caller's view of a shared analysis; cancelling it detaches only this caller. */
+  private final class Caller extends CompletableFuture<SudokuAnalysis> {
+    private final Flight flight;
+
+    private Caller(Flight flight) {
+      this.flight = flight;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      boolean cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        leave(flight);
+      }
+      return cancelled;
+    }
+  }
+}
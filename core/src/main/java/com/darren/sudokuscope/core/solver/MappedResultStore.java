@@ -0,0 +1,451 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.CanonicalForm;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Disk-backed store of analyses that survives restarts, for counts too expensive to repeat. The
+ * file is a fixed-size open-addressing hash table of 112-byte records, memory-mapped in chunks of
+ * up to 2 GB, so a few hundred million entries cost page cache rather than heap. Records are keyed
+ * on the board's {@link SudokuBoard#canonicalForm() canonical form} and answer requests by the same
+ * rules as {@link AnalysisCache}: an exact count answers anything, a bound only requests whose
+ * limit it reached.
+ *
+ * <p>Lookups take no lock and may run on any number of threads. Stores are serialized, and the file
+ * is locked so that only one process has it open for writing. Other processes can share a store
+ * through {@link #openReadOnly}, which takes a shared lock instead: any number of readers, but
+ * never alongside the writer. Each record carries a version in its first word, set last on every
+ * write, so a reader that overlaps a rewrite of the record retries instead of returning a torn
+ * result.
+ *
+ * <p>The table never grows or evicts: once {@link #capacity()} entries are stored, analyses of new
+ * boards are dropped (see {@link Stats#rejected()}) while known boards can still be improved.
+ * Callers should therefore keep cheap analyses out; {@link SolverService} only stores those that
+ * explored enough nodes. A process crash loses nothing that was stored; a machine crash can lose
+ * records not yet written back, which {@link #force()} and {@link #close()} flush.
+ */
+public final class MappedResultStore implements AutoCloseable {
+  private static final int MAGIC = 0x53535253; // "SSRS"
+  private static final int FORMAT_VERSION = 1;
+  private static final int FILE_HEADER_BYTES = 4096;
+  private static final int MAGIC_OFFSET = 0;
+  private static final int VERSION_OFFSET = 4;
+  private static final int RECORD_SIZE_OFFSET = 8;
+  private static final int SLOTS_OFFSET = 16;
+  private static final int CAPACITY_OFFSET = 24;
+  private static final int ENTRIES_OFFSET = 32;
+
+  /*
+   * Record layout, little-endian:
+   *   0  header: flags (bits 0-7), write version (8-31), count bits 64-95 (32-63)
+   *   8  count bits 0-63
+   *  16  explored nodes
+   *  24  canonical board, two cells per byte (41 bytes)
+   *  65  canonical exemplar solution, same packing (41 bytes)
+   */
+  static final int RECORD_SIZE = 112;
+  private static final int COUNT_OFFSET = 8;
+  private static final int NODES_OFFSET = 16;
+  private static final int KEY_OFFSET = 24;
+  private static final int SOLUTION_OFFSET = 65;
+  private static final int PACKED_BOARD_BYTES = (SudokuBoard.CELL_COUNT + 1) / 2;
+
+  private static final long OCCUPIED = 1L;
+  private static final long WRITING = 1L << 1;
+  private static final long EXACT = 1L << 2;
+  private static final long HAS_SOLUTION = 1L << 3;
+  private static final int VERSION_SHIFT = 8;
+  private static final long VERSION_MASK = 0xFF_FFFFL << VERSION_SHIFT;
+  private static final int COUNT_HIGH_SHIFT = 32;
+  private static final int MAX_COUNT_BITS = 96;
+
+  // 2^24 records of 112 bytes is 1.75 GB per mapping and keeps every chunk page-aligned.
+  private static final int CHUNK_BITS = 24;
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+  private static final double MAX_LOAD = 0.75;
+  private static final int READ_ATTEMPTS = 16;
+
+  private static final VarHandle LONGS =
+      MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private final FileChannel channel;
+  private final FileLock lock;
+  private final boolean readOnly;
+  private final MappedByteBuffer fileHeader;
+  private final MappedByteBuffer[] chunks;
+  private final long slots;
+  private final long capacity;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private long entries;
+  private long rejected;
+  private volatile boolean closed;
+
+  private MappedResultStore(
+      FileChannel channel, FileLock lock, boolean readOnly, long slots, long capacity)
+      throws IOException {
+    this.channel = channel;
+    this.lock = lock;
+    this.readOnly = readOnly;
+    this.slots = slots;
+    this.capacity = capacity;
+    FileChannel.MapMode mode =
+        readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+    this.fileHeader = map(channel, mode, 0, FILE_HEADER_BYTES);
+    int chunkCount = (int) ((slots + CHUNK_MASK) >>> CHUNK_BITS);
+    this.chunks = new MappedByteBuffer[chunkCount];
+    for (int i = 0; i < chunkCount; i++) {
+      long first = (long) i << CHUNK_BITS;
+      long count = Math.min(slots - first, 1L << CHUNK_BITS);
+      chunks[i] = map(channel, mode, FILE_HEADER_BYTES + first * RECORD_SIZE, count * RECORD_SIZE);
+    }
+    this.entries = fileHeader.getLong(ENTRIES_OFFSET);
+  }
+
+  /**
+   * Opens the store in {@code file}, creating it with room for {@code capacity} entries if it does
+   * not exist. An existing store keeps the capacity it was created with.
+   *
+   * @throws IOException if the file cannot be mapped, is not a result store, or is already open in
+   *     this or another process
+   */
+  public static MappedResultStore open(Path file, long capacity) throws IOException {
+    Objects.requireNonNull(file, "file");
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be >= 1");
+    }
+    return open(file, capacity, false);
+  }
+
+  /**
+   * Opens the existing store in {@code file} for lookups only; {@link #store} ignores analyses. Any
+   * number of processes may do so at once, one store per process.
+   *
+   * @throws IOException if the file cannot be mapped, is not a result store, or is open for
+   *     writing, or already open in this process
+   */
+  public static MappedResultStore openReadOnly(Path file) throws IOException {
+    Objects.requireNonNull(file, "file");
+    return open(file, 0L, true);
+  }
+
+  private static MappedResultStore open(Path file, long capacity, boolean readOnly)
+      throws IOException {
+    FileChannel channel =
+        readOnly
+            ? FileChannel.open(file, StandardOpenOption.READ)
+            : FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      FileLock lock;
+      try {
+        lock = channel.tryLock(0L, Long.MAX_VALUE, readOnly);
+      } catch (OverlappingFileLockException ex) {
+        lock = null;
+      }
+      if (lock == null) {
+        throw new IOException(file + (readOnly ? " is open for writing" : " is already open"));
+      }
+      if (channel.size() == 0 && !readOnly) {
+        initialize(channel, capacity);
+      }
+      ByteBuffer header = ByteBuffer.allocate(40).order(ByteOrder.LITTLE_ENDIAN);
+      channel.read(header, 0);
+      if (header.getInt(MAGIC_OFFSET) != MAGIC
+          || header.getInt(VERSION_OFFSET) != FORMAT_VERSION
+          || header.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+        throw new IOException(file + " is not a result store of format " + FORMAT_VERSION);
+      }
+      long slots = header.getLong(SLOTS_OFFSET);
+      if (Long.bitCount(slots) != 1 || channel.size() < FILE_HEADER_BYTES + slots * RECORD_SIZE) {
+        throw new IOException(file + " is truncated");
+      }
+      return new MappedResultStore(channel, lock, readOnly, slots, header.getLong(CAPACITY_OFFSET));
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /** Returns the stored answer for {@code board} under {@code options}, if a record has one. */
+  public Optional<SudokuAnalysis> lookup(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+    return AnalysisCache.cacheable(board)
+        ? lookup(board, board.canonicalForm(), options)
+        : Optional.empty();
+  }
+
+  /**
+   * Records {@code analysis} of {@code board} unless the stored record already knows more or the
+   * store is read-only.
+   */
+  public void store(SudokuBoard board, SudokuAnalysis analysis) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(analysis, "analysis");
+    if (AnalysisCache.cacheable(board)) {
+      store(board.canonicalForm(), analysis);
+    }
+  }
+
+  /** Whether this store was opened by {@link #openReadOnly} and ignores analyses. */
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /** The number of entries the store accepts before it drops analyses of new boards. */
+  public long capacity() {
+    return capacity;
+  }
+
+  public synchronized Stats stats() {
+    return new Stats(hits.sum(), misses.sum(), entries, capacity, rejected);
+  }
+
+  /** Writes stored records back to the file. */
+  public synchronized void force() {
+    ensureOpen();
+    if (readOnly) {
+      return;
+    }
+    for (MappedByteBuffer chunk : chunks) {
+      chunk.force();
+    }
+    fileHeader.force();
+  }
+
+  /**
+   * Flushes and releases the file for other processes. The mappings themselves are released once
+   * they become unreachable.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    force();
+    closed = true;
+    try {
+      lock.release();
+    } finally {
+      channel.close();
+    }
+  }
+
+  Optional<SudokuAnalysis> lookup(SudokuBoard board, CanonicalForm form, SolverOptions options) {
+    ensureOpen();
+    CachedResult result = find(form.board().toByteArray());
+    if (result == null || !result.answers(options)) {
+      misses.increment();
+      return Optional.empty();
+    }
+    hits.increment();
+    return Optional.of(result.answer(board, form, options));
+  }
+
+  void store(CanonicalForm form, SudokuAnalysis analysis) {
+    if (readOnly || !analysis.valid() || analysis.solutionCount().bitLength() > MAX_COUNT_BITS) {
+      return;
+    }
+    CachedResult candidate = CachedResult.of(form, analysis);
+    byte[] cells = form.board().toByteArray();
+    byte[] key = pack(cells);
+    synchronized (this) {
+      ensureOpen();
+      long mask = slots - 1;
+      for (long slot = hash(cells) & mask, probes = 0;
+          probes < slots;
+          slot = (slot + 1) & mask, probes++) {
+        ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_BITS)];
+        int base = (int) (slot & CHUNK_MASK) * RECORD_SIZE;
+        long header = (long) LONGS.get(chunk, base);
+        if (header == 0) {
+          if (entries >= capacity) {
+            rejected++;
+            return;
+          }
+          // Not yet reachable by readers: their probes stop at a zero header.
+          chunk.put(base + KEY_OFFSET, key);
+          writeRecord(chunk, base, candidate, 0);
+          fileHeader.putLong(ENTRIES_OFFSET, ++entries);
+          return;
+        }
+        if (matches(chunk, base, key)) {
+          CachedResult current = decode(chunk, base, header);
+          if (CachedResult.better(current, candidate) != current) {
+            LONGS.setOpaque(chunk, base, header | WRITING);
+            VarHandle.storeStoreFence();
+            writeRecord(chunk, base, candidate, header);
+          }
+          return;
+        }
+      }
+      rejected++;
+    }
+  }
+
+  /** Reads the record for {@code cells}, or {@code null} if there is none or it stays busy. */
+  private CachedResult find(byte[] cells) {
+    byte[] key = pack(cells);
+    long mask = slots - 1;
+    for (long slot = hash(cells) & mask, probes = 0;
+        probes < slots;
+        slot = (slot + 1) & mask, probes++) {
+      ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_BITS)];
+      int base = (int) (slot & CHUNK_MASK) * RECORD_SIZE;
+      for (int attempt = 0; ; attempt++) {
+        if (attempt == READ_ATTEMPTS) {
+          return null;
+        }
+        long header = (long) LONGS.getAcquire(chunk, base);
+        if (header == 0) {
+          return null;
+        }
+        if ((header & WRITING) != 0) {
+          Thread.onSpinWait();
+          continue;
+        }
+        // Keys never change once published, so a mismatch needs no second look.
+        if (!matches(chunk, base, key)) {
+          break;
+        }
+        CachedResult result = decode(chunk, base, header);
+        VarHandle.acquireFence();
+        if ((long) LONGS.getAcquire(chunk, base) == header) {
+          return result;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Writes everything but the key, then publishes the record with the next write version. */
+  private static void writeRecord(ByteBuffer chunk, int base, CachedResult result, long previous) {
+    BigInteger count = result.count();
+    chunk.putLong(base + COUNT_OFFSET, count.longValue());
+    chunk.putLong(base + NODES_OFFSET, result.exploredNodes());
+    long flags = OCCUPIED;
+    if (result.exact()) {
+      flags |= EXACT;
+    }
+    if (result.solution() != null) {
+      flags |= HAS_SOLUTION;
+      chunk.put(base + SOLUTION_OFFSET, pack(result.solution().toByteArray()));
+    }
+    long version = (previous + (1L << VERSION_SHIFT)) & VERSION_MASK;
+    long high = count.shiftRight(Long.SIZE).longValue() << COUNT_HIGH_SHIFT;
+    LONGS.setRelease(chunk, base, high | version | flags);
+  }
+
+  private static CachedResult decode(ByteBuffer chunk, int base, long header) {
+    long low = chunk.getLong(base + COUNT_OFFSET);
+    BigInteger unsignedLow =
+        low < 0 ? BigInteger.valueOf(low & Long.MAX_VALUE).setBit(63) : BigInteger.valueOf(low);
+    BigInteger count =
+        BigInteger.valueOf(header >>> COUNT_HIGH_SHIFT).shiftLeft(Long.SIZE).or(unsignedLow);
+    SudokuBoard solution = null;
+    if ((header & HAS_SOLUTION) != 0) {
+      byte[] packed = new byte[PACKED_BOARD_BYTES];
+      chunk.get(base + SOLUTION_OFFSET, packed);
+      solution = SudokuBoard.fromBytes(unpack(packed));
+    }
+    // Messages are not stored; a bound is only ever answered with a limit message of its own.
+    String message =
+        count.signum() == 0 ? "No solutions found" : "Enumerated " + count + " solution(s)";
+    return new CachedResult(
+        count, (header & EXACT) != 0, solution, chunk.getLong(base + NODES_OFFSET), message);
+  }
+
+  private static boolean matches(ByteBuffer chunk, int base, byte[] key) {
+    for (int i = 0; i < PACKED_BOARD_BYTES; i++) {
+      if (chunk.get(base + KEY_OFFSET + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] pack(byte[] cells) {
+    byte[] packed = new byte[PACKED_BOARD_BYTES];
+    for (int i = 0; i < cells.length; i++) {
+      packed[i >> 1] |= (byte) (cells[i] << ((i & 1) << 2));
+    }
+    return packed;
+  }
+
+  private static byte[] unpack(byte[] packed) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) ((packed[i >> 1] >> ((i & 1) << 2)) & 0xF);
+    }
+    return cells;
+  }
+
+  /** FNV-1a over the cells, finished with the MurmurHash3 mixer; stable across runs. */
+  private static long hash(byte[] cells) {
+    long h = 0xcbf29ce484222325L;
+    for (byte cell : cells) {
+      h = (h ^ cell) * 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+
+  private static void initialize(FileChannel channel, long capacity) throws IOException {
+    long slots = Long.highestOneBit((long) Math.ceil(capacity / MAX_LOAD) - 1) << 1;
+    slots = Math.max(slots, 16);
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC_OFFSET, MAGIC);
+    header.putInt(VERSION_OFFSET, FORMAT_VERSION);
+    header.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+    header.putLong(SLOTS_OFFSET, slots);
+    header.putLong(CAPACITY_OFFSET, capacity);
+    header.putLong(ENTRIES_OFFSET, 0);
+    channel.write(header, 0);
+    // Extend the file to full size; on most file systems the untouched records stay sparse.
+    channel.write(ByteBuffer.allocate(1), FILE_HEADER_BYTES + slots * RECORD_SIZE - 1);
+  }
+
+  private static MappedByteBuffer map(
+      FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+    MappedByteBuffer buffer = channel.map(mode, position, size);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("Result store is closed");
+    }
+  }
+
+  /**
+   * Counters for this process's use of the store; {@code entries} counts every record in the file,
+   * and {@code rejected} the analyses of new boards dropped because the store was full.
+   */
+  public record Stats(long hits, long misses, long entries, long capacity, long rejected) {
+    /** Fraction of lookups answered from the store, or 0 before the first lookup. */
+    public double hitRatio() {
+      long lookups = hits + misses;
+      return lookups == 0 ? 0d : (double) hits / lookups;
+    }
+  }
+}
@@ -0,0 +1,468 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.simd.CellKernels;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Counting engine that caches subproblem counts. The number of completions below a search node
+ * depends only on the row, column and box masks and on the set of cells still empty, so the search
+ * packs exactly that into a {@link TranspositionTable} key and counts identical sub-boards reached
+ * through different placement orders once. Keys describe digits by the units still missing them
+ * rather than by value, so sub-boards that differ only by a digit relabelling share an entry as
+ * well.
+ *
+ * <p>When the empty cells of a node fall into groups that share no row, column or box, each group
+ * is counted on its own and the counts are multiplied. The check runs at every node, so groups that
+ * separate only after some placements are split as well.
+ *
+ * <p>Counts are exact: {@code maxSolutions} is not applied because solutions are never enumerated
+ * one at a time. Deadlines and interruption stop the count early with a lower bound and {@link
+ * SolverStatus#LIMIT_REACHED}.
+ *
+ * <p>The table holds up to 2^20 entries by default, about 64 MB once full. Each thread keeps its
+ * table between counts, so concurrent counts on a service's workers hold one table per worker
+ * rather than one per request, and a repeated count does not allocate it again.
+ */
+final class MemoizedCountingSolver implements SudokuSolver {
+  static final int DEFAULT_MAX_TABLE_ENTRIES = 1 << 20;
+  private static final int ALL_DIGITS_MASK = 0x1FF; // 9 bits set
+  private static final int PROFILE_BITS = 3 * SudokuBoard.SIZE;
+  private static final int[] CELL_UNITS = new int[SudokuBoard.CELL_COUNT];
+  // Cells sharing a row, column or box with each cell, split over two words like the empty sets.
+  private static final long[] PEERS_LOW = new long[SudokuBoard.CELL_COUNT];
+  private static final long[] PEERS_HIGH = new long[SudokuBoard.CELL_COUNT];
+  // Stop checks between polls of the deadline, cancellation token, node budget and interrupt flag.
+  private static final int STOP_CHECK_INTERVAL = 1 << 10;
+
+  static {
+    for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      CELL_UNITS[cell] =
+          (1 << row)
+              | (1 << (SudokuBoard.SIZE + col))
+              | (1 << (2 * SudokuBoard.SIZE + SolverSupport.boxIndex(row, col)));
+    }
+    for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+      for (int other = 0; other < SudokuBoard.CELL_COUNT; other++) {
+        if ((CELL_UNITS[cell] & CELL_UNITS[other]) == 0) {
+          continue;
+        }
+        if (other < Long.SIZE) {
+          PEERS_LOW[cell] |= 1L << other;
+        } else {
+          PEERS_HIGH[cell] |= 1L << (other - Long.SIZE);
+        }
+      }
+    }
+  }
+
+  // One table per thread, cleared between counts, like the backtracking engine's search buffers.
+  private final ThreadLocal<TranspositionTable> tables;
+
+  MemoizedCountingSolver() {
+    this(DEFAULT_MAX_TABLE_ENTRIES);
+  }
+
+  MemoizedCountingSolver(int maxTableEntries) {
+    this.tables = ThreadLocal.withInitial(() -> new TranspositionTable(maxTableEntries));
+  }
+
+  @Override
+  public SudokuAnalysis analyze(SudokuBoard board, SolverOptions options) {
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+
+    SudokuAnalysis preflight = SolverSupport.preflight(board, options);
+    if (preflight != null) {
+      return preflight;
+    }
+
+    TranspositionTable table = tables.get();
+    table.clear();
+    CountingState state = new CountingState(board, options, table);
+    BigInteger count = state.countAll();
+    boolean limitReached = state.stopped();
+
+    // Boards counted component by component are never complete at a leaf.
+    Optional<SudokuBoard> solution =
+        state.firstSolution == null
+            ? SolverSupport.exemplar(board, options, count, limitReached)
+            : Optional.of(SudokuBoard.fromBytes(state.firstSolution));
+
+    return new SudokuAnalysis(
+        board,
+        true,
+        SolverSupport.statusFor(count, limitReached),
+        count,
+        solution,
+        limitReached,
+        state.visitedNodes,
+        state.message(count));
+  }
+
+  private static final class CountingState {
+    private final SolverOptions options;
+    private final long deadlineNanos;
+    private final CancellationToken cancellationToken;
+    private final long nodeBudget;
+    private final TranspositionTable table;
+    private final CellKernels kernels = CellKernels.preferred();
+    private final byte[] working;
+    private final int[] rowMasks = new int[SudokuBoard.SIZE];
+    private final int[] columnMasks = new int[SudokuBoard.SIZE];
+    private final int[] boxMasks = new int[SudokuBoard.SIZE];
+    private final long[] key = new long[TranspositionTable.KEY_WORDS];
+    private final int[] digitProfiles = new int[SudokuBoard.SIZE];
+    private final int[] profiles = new int[SudokuBoard.SIZE];
+    private final long rootEmptyLow;
+    private final long rootEmptyHigh;
+    private long componentLow;
+    private long componentHigh;
+    private int filledCells;
+    private long componentSplits;
+    private byte[] firstSolution;
+    private boolean timeLimitReached;
+    private boolean nodeBudgetReached;
+    private boolean cancelled;
+    private boolean interrupted;
+    private int ticks;
+    private long visitedNodes;
+
+    private CountingState(SudokuBoard board, SolverOptions options, TranspositionTable table) {
+      this.options = options;
+      this.deadlineNanos = options.deadlineNanos();
+      this.cancellationToken = options.cancellationToken();
+      this.nodeBudget = options.nodeBudget();
+      this.table = table;
+      this.working = board.toByteArray();
+      long low = 0L;
+      long high = 0L;
+      Arrays.fill(digitProfiles, (1 << PROFILE_BITS) - 1);
+      for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+        int value = working[cell];
+        if (value == 0) {
+          if (cell < Long.SIZE) {
+            low |= 1L << cell;
+          } else {
+            high |= 1L << (cell - Long.SIZE);
+          }
+        } else {
+          filledCells++;
+          int row = cell / SudokuBoard.SIZE;
+          int col = cell % SudokuBoard.SIZE;
+          int bit = 1 << (value - 1);
+          rowMasks[row] |= bit;
+          columnMasks[col] |= bit;
+          boxMasks[SolverSupport.boxIndex(row, col)] |= bit;
+          digitProfiles[value - 1] &= ~CELL_UNITS[cell];
+        }
+      }
+      this.rootEmptyLow = low;
+      this.rootEmptyHigh = high;
+    }
+
+    private BigInteger countAll() {
+      return countExact(rootEmptyLow, rootEmptyHigh);
+    }
+
+    /**
+     * Counts the node with {@link BigInteger} arithmetic. Only nodes whose subtree overflows a
+     * {@code long} take this path, which in practice means the first few levels of near-empty
+     * boards.
+     */
+    private BigInteger countExact(long emptyLow, long emptyHigh) {
+      try {
+        return BigInteger.valueOf(count(emptyLow, emptyHigh));
+      } catch (CountOverflow overflow) {
+        // fall through and recount this node child by child
+      }
+      long[] components = splitComponents(emptyLow, emptyHigh);
+      if (components != null) {
+        BigInteger product = BigInteger.ONE;
+        for (int i = 0; i < components.length && !stopped(); i += 2) {
+          product = product.multiply(countExact(components[i], components[i + 1]));
+        }
+        return stopped() ? BigInteger.ZERO : product;
+      }
+      int cell = selectPivot(emptyLow, emptyHigh);
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      int box = SolverSupport.boxIndex(row, col);
+      int candidates = candidates(row, col, box);
+      long childLow = cell < Long.SIZE ? emptyLow & ~(1L << cell) : emptyLow;
+      long childHigh = cell < Long.SIZE ? emptyHigh : emptyHigh & ~(1L << (cell - Long.SIZE));
+      BigInteger total = BigInteger.ZERO;
+      while (candidates != 0 && !stopped()) {
+        int bit = candidates & -candidates;
+        candidates &= candidates - 1;
+        place(row, col, box, cell, bit);
+        try {
+          total = total.add(countExact(childLow, childHigh));
+        } finally {
+          remove(row, col, box, cell, bit);
+        }
+      }
+      return total;
+    }
+
+    private long count(long emptyLow, long emptyHigh) {
+      if ((emptyLow | emptyHigh) == 0L) {
+        if (firstSolution == null
+            && options.captureFirstSolution()
+            && filledCells == SudokuBoard.CELL_COUNT) {
+          firstSolution = working.clone();
+        }
+        return 1L;
+      }
+      if (shouldStop()) {
+        return 0L;
+      }
+      packKey(emptyLow, emptyHigh);
+      long cached = table.get(key);
+      if (cached >= 0) {
+        return cached;
+      }
+
+      long workBefore = visitedNodes;
+      long[] components = splitComponents(emptyLow, emptyHigh);
+      if (components != null) {
+        long product = 1L;
+        for (int i = 0; i < components.length; i += 2) {
+          long componentCount = count(components[i], components[i + 1]);
+          if (stopped()) {
+            return 0L; // the remaining components are uncounted
+          }
+          product = multiplyExact(product, componentCount);
+          if (product == 0L) {
+            break;
+          }
+        }
+        packKey(emptyLow, emptyHigh);
+        table.put(key, product, visitedNodes - workBefore);
+        return product;
+      }
+      int cell = selectPivot(emptyLow, emptyHigh);
+      int row = cell / SudokuBoard.SIZE;
+      int col = cell % SudokuBoard.SIZE;
+      int box = SolverSupport.boxIndex(row, col);
+      int candidates = candidates(row, col, box);
+      long childLow = cell < Long.SIZE ? emptyLow & ~(1L << cell) : emptyLow;
+      long childHigh = cell < Long.SIZE ? emptyHigh : emptyHigh & ~(1L << (cell - Long.SIZE));
+      long total = 0L;
+      while (candidates != 0) {
+        int bit = candidates & -candidates;
+        candidates &= candidates - 1;
+        place(row, col, box, cell, bit);
+        visitedNodes++;
+        try {
+          total = addExact(total, count(childLow, childHigh));
+        } finally {
+          remove(row, col, box, cell, bit);
+        }
+        if (stopped()) {
+          return total; // partial counts are lower bounds and never cached
+        }
+      }
+      packKey(emptyLow, emptyHigh);
+      table.put(key, total, visitedNodes - workBefore);
+      return total;
+    }
+
+    /**
+     * Splits the empty cells into groups that share no unit. Returns {@code null} when they form a
+     * single group, otherwise the groups as consecutive low/high word pairs.
+     */
+    private long[] splitComponents(long emptyLow, long emptyHigh) {
+      componentOf(emptyLow, emptyHigh);
+      if (componentLow == emptyLow && componentHigh == emptyHigh) {
+        return null;
+      }
+      componentSplits++;
+      long[] groups = new long[2 * Long.bitCount(emptyLow) + 2 * Long.bitCount(emptyHigh)];
+      int found = 0;
+      long restLow = emptyLow;
+      long restHigh = emptyHigh;
+      while ((restLow | restHigh) != 0L) {
+        componentOf(restLow, restHigh);
+        groups[found++] = componentLow;
+        groups[found++] = componentHigh;
+        restLow &= ~componentLow;
+        restHigh &= ~componentHigh;
+      }
+      return Arrays.copyOf(groups, found);
+    }
+
+    /** Flood-fills the peers of the lowest cell in the given set into the component fields. */
+    private void componentOf(long emptyLow, long emptyHigh) {
+      long frontierLow = emptyLow & -emptyLow;
+      long frontierHigh = frontierLow == 0L ? emptyHigh & -emptyHigh : 0L;
+      long reachedLow = frontierLow;
+      long reachedHigh = frontierHigh;
+      while ((frontierLow | frontierHigh) != 0L) {
+        long nextLow = 0L;
+        long nextHigh = 0L;
+        for (long bits = frontierLow; bits != 0L; bits &= bits - 1) {
+          int cell = Long.numberOfTrailingZeros(bits);
+          nextLow |= PEERS_LOW[cell];
+          nextHigh |= PEERS_HIGH[cell];
+        }
+        for (long bits = frontierHigh; bits != 0L; bits &= bits - 1) {
+          int cell = Long.numberOfTrailingZeros(bits) + Long.SIZE;
+          nextLow |= PEERS_LOW[cell];
+          nextHigh |= PEERS_HIGH[cell];
+        }
+        frontierLow = nextLow & emptyLow & ~reachedLow;
+        frontierHigh = nextHigh & emptyHigh & ~reachedHigh;
+        reachedLow |= frontierLow;
+        reachedHigh |= frontierHigh;
+      }
+      componentLow = reachedLow;
+      componentHigh = reachedHigh;
+    }
+
+    private int selectPivot(long emptyLow, long emptyHigh) {
+      return kernels.fewestCandidates(rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh);
+    }
+
+    private int candidates(int row, int col, int box) {
+      return (~(rowMasks[row] | columnMasks[col] | boxMasks[box])) & ALL_DIGITS_MASK;
+    }
+
+    private void place(int row, int col, int box, int cell, int bit) {
+      int digit = Integer.numberOfTrailingZeros(bit);
+      working[cell] = (byte) (digit + 1);
+      filledCells++;
+      digitProfiles[digit] &= ~CELL_UNITS[cell];
+      rowMasks[row] |= bit;
+      columnMasks[col] |= bit;
+      boxMasks[box] |= bit;
+    }
+
+    private void remove(int row, int col, int box, int cell, int bit) {
+      working[cell] = 0;
+      filledCells--;
+      digitProfiles[Integer.numberOfTrailingZeros(bit)] |= CELL_UNITS[cell];
+      rowMasks[row] &= ~bit;
+      columnMasks[col] &= ~bit;
+      boxMasks[box] &= ~bit;
+    }
+
+    private void packKey(long emptyLow, long emptyHigh) {
+      // Completions are invariant under relabelling digits, so each digit is described only by
+      // the set of units still missing it, and the nine profiles are stored sorted.
+      for (int digit = 0; digit < SudokuBoard.SIZE; digit++) {
+        int profile = digitProfiles[digit];
+        int slot = digit;
+        while (slot > 0 && profiles[slot - 1] > profile) {
+          profiles[slot] = profiles[slot - 1];
+          slot--;
+        }
+        profiles[slot] = profile;
+      }
+      key[0] = 0L;
+      key[1] = 0L;
+      key[2] = 0L;
+      key[3] = 0L;
+      int bitPosition = 0;
+      for (int profile : profiles) {
+        int word = bitPosition >>> 6;
+        int offset = bitPosition & 63;
+        key[word] |= (long) profile << offset;
+        if (offset > Long.SIZE - PROFILE_BITS) {
+          key[word + 1] |= (long) profile >>> (Long.SIZE - offset);
+        }
+        bitPosition += PROFILE_BITS;
+      }
+      key[4] = emptyLow;
+      key[5] = emptyHigh;
+    }
+
+    private boolean stopped() {
+      return timeLimitReached || nodeBudgetReached || cancelled || interrupted;
+    }
+
+    private boolean shouldStop() {
+      if (stopped()) {
+        return true;
+      }
+      if (++ticks < STOP_CHECK_INTERVAL) {
+        return false;
+      }
+      ticks = 0;
+      if (deadlineNanos > 0 && System.nanoTime() >= deadlineNanos) {
+        timeLimitReached = true;
+        return true;
+      }
+      if (cancellationToken != null && cancellationToken.isCancelled()) {
+        cancelled = true;
+        return true;
+      }
+      if (nodeBudget > 0 && visitedNodes >= nodeBudget) {
+        nodeBudgetReached = true;
+        return true;
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        interrupted = true;
+        return true;
+      }
+      return false;
+    }
+
+    private String message(BigInteger count) {
+      String prefix;
+      if (interrupted) {
+        prefix = "Stopped due to interruption after counting at least " + count;
+      } else if (timeLimitReached) {
+        prefix = "Stopped after reaching time limit after counting at least " + count;
+      } else if (nodeBudgetReached) {
+        prefix = "Stopped after reaching node budget after counting at least " + count;
+      } else if (cancelled) {
+        prefix = "Stopped on request after counting at least " + count;
+      } else if (count.signum() == 0) {
+        prefix = "No solutions found";
+      } else {
+        prefix = "Counted " + count + " solution(s)";
+      }
+      return prefix
+          + " (transposition table: "
+          + table.hits()
+          + " hits, "
+          + table.misses()
+          + " misses, "
+          + table.evictions()
+          + " evictions; "
+          + componentSplits
+          + " component splits)";
+    }
+
+    private static long multiplyExact(long a, long b) {
+      long product = a * b;
+      if (Math.multiplyHigh(a, b) != 0L || product < 0L) {
+        throw CountOverflow.INSTANCE;
+      }
+      return product;
+    }
+
+    private static long addExact(long a, long b) {
+      long sum = a + b;
+      if (((a ^ sum) & (b ^ sum)) < 0) {
+        throw CountOverflow.INSTANCE;
+      }
+      return sum;
+    }
+  }
+
+  /** Signals that a subtree count no longer fits in a {@code long}. */
+  private static final class CountOverflow extends RuntimeException {
+    private static final CountOverflow INSTANCE = new CountOverflow();
+
+    private CountOverflow() {
+      super(null, null, false, false);
+    }
+  }
+}
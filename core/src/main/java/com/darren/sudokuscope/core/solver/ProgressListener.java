@@ -0,0 +1,16 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * Receives periodic {@link SolverProgress} reports from a running search; see {@link
+ * SolverOptions#withProgressListener}. Sequential searches call it on the searching thread,
+ * parallel counts on the thread that called {@code analyze}. It should return quickly, since the
+ * search waits for it.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+  /**
+   * Returns {@code false} to stop the search; the analysis then reports the solutions found so far,
+   * like a search that reached its time limit.
+   */
+  boolean onProgress(SolverProgress progress);
+}
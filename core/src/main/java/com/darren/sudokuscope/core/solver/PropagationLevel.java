@@ -0,0 +1,25 @@
+package com.darren.sudokuscope.core.solver;
+
+/**
+ * Deductions the backtracking engine applies at every search node before branching. Each level
+ * includes the ones before it; everything it deduces is undone when the search backtracks.
+ */
+public enum PropagationLevel {
+  /** Branch on the most constrained cell without any deductions. */
+  NONE,
+  /** Fill cells that have a single candidate. */
+  NAKED_SINGLES,
+  /** Also fill the only cell of a row, column or box that can take a digit. */
+  HIDDEN_SINGLES,
+  /**
+   * Also remove a digit from a row or column when a box confines it to that line, and from a box
+   * when a line confines it to that box.
+   */
+  LOCKED_CANDIDATES,
+  /** Also remove the digits of naked pairs, triples and quads from the rest of their unit. */
+  SUBSETS;
+
+  boolean includes(PropagationLevel level) {
+    return compareTo(level) >= 0;
+  }
+}
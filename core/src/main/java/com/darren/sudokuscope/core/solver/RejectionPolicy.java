@@ -0,0 +1,17 @@
+package com.darren.sudokuscope.core.solver;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/** What a {@link SolverService} with a bounded queue does with a request that finds it full. */
+public enum RejectionPolicy {
+  /** Fails the new request's future with a {@link RejectedExecutionException}. */
+  ABORT,
+  /** Runs the new request on the submitting thread, which slows submitters down to the service. */
+  CALLER_RUNS,
+  /**
+   * Fails the oldest queued request of the lowest priority present to make room, provided that
+   * priority does not rank above the new request's; otherwise fails the new request as {@link
+   * #ABORT} does.
+   */
+  DISCARD_OLDEST
+}
@@ -0,0 +1,246 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.simd.CellKernels;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Monte Carlo estimate of the number of solutions, for boards too open to count exactly. Each probe
+ * follows one random path down the search tree, always branching on the cell with the fewest
+ * candidates, and scores the product of the branching factors it passed when the path ends in a
+ * solution and zero when it ends in a contradiction. The mean over probes is an unbiased estimate
+ * of the solution count (Knuth's estimator for the size of a backtrack tree), and the spread of the
+ * scores gives its standard error.
+ *
+ * <p>Probes run on {@code parallelism} workers in the common fork/join pool until the sample count
+ * or the time limit is reached, whichever comes first. A probe allocates nothing.
+ */
+public final class SolutionCountEstimator {
+  private static final int ALL_DIGITS_MASK = 0x1FF; // 9 bits set
+
+  private final int parallelism;
+  private final CellKernels kernels = CellKernels.preferred();
+
+  public SolutionCountEstimator() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  public SolutionCountEstimator(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1");
+    }
+    this.parallelism = parallelism;
+  }
+
+  /** Estimates with a fresh random seed. */
+  public Estimate estimate(SudokuBoard board, int maxSamples, long timeLimitMillis) {
+    return estimate(board, maxSamples, timeLimitMillis, System.nanoTime());
+  }
+
+  /**
+   * Runs up to {@code maxSamples} probes, stopping early once {@code timeLimitMillis} (when
+   * positive) has elapsed or the calling thread is interrupted, which every worker checks between
+   * probes. The same seed, sample count and parallelism give the same estimate when the time limit
+   * does not cut the run short.
+   */
+  public Estimate estimate(SudokuBoard board, int maxSamples, long timeLimitMillis, long seed) {
+    Objects.requireNonNull(board, "board");
+    if (maxSamples < 1) {
+      throw new IllegalArgumentException("maxSamples must be >= 1");
+    }
+    long start = System.nanoTime();
+    if (!BoardValidator.isValid(board)) {
+      return Estimate.exact(0L, 0L);
+    }
+    if (board.isComplete()) {
+      return Estimate.exact(1L, 0L);
+    }
+    long deadline = timeLimitMillis <= 0 ? 0L : start + timeLimitMillis * 1_000_000L;
+    byte[] cells = board.toByteArray();
+    int workers = Math.min(parallelism, maxSamples);
+
+    SplittableRandom seeds = new SplittableRandom(seed);
+    List<Probe> probes = new ArrayList<>(workers);
+    for (int i = 0; i < workers; i++) {
+      int share = maxSamples / workers + (i < maxSamples % workers ? 1 : 0);
+      probes.add(new Probe(cells, share, deadline, seeds.split(), Thread.currentThread()));
+    }
+    if (workers == 1) {
+      probes.get(0).run();
+    } else {
+      List<ForkJoinTask<?>> tasks = new ArrayList<>(workers);
+      for (Probe probe : probes) {
+        tasks.add(ForkJoinTask.adapt(probe));
+      }
+      ForkJoinTask.invokeAll(tasks); // the caller runs one worker, the common pool the rest
+    }
+
+    Probe total = probes.get(0);
+    for (int i = 1; i < probes.size(); i++) {
+      total.merge(probes.get(i));
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
+    return Estimate.of(total.samples, total.mean, total.squaredDeviations, elapsedMillis);
+  }
+
+  /**
+   * Result of an estimate. {@code standardError} is the standard deviation of {@code mean} across
+   * runs; roughly 95% of runs land within two standard errors of the true count.
+   */
+  public record Estimate(double mean, double standardError, long samples, long elapsedMillis) {
+    static Estimate exact(long count, long elapsedMillis) {
+      return new Estimate(count, 0d, 0L, elapsedMillis);
+    }
+
+    static Estimate of(long samples, double mean, double squaredDeviations, long elapsedMillis) {
+      if (samples < 2) {
+        return new Estimate(mean, Double.POSITIVE_INFINITY, samples, elapsedMillis);
+      }
+      double variance = Math.max(0d, squaredDeviations / (samples - 1));
+      return new Estimate(mean, Math.sqrt(variance / samples), samples, elapsedMillis);
+    }
+
+    /** The estimate rounded to a whole count. */
+    public BigInteger count() {
+      return new BigDecimal(mean).setScale(0, RoundingMode.HALF_UP).toBigInteger();
+    }
+
+    /** Whether the result is exact rather than sampled (invalid or complete boards). */
+    public boolean exact() {
+      return samples == 0;
+    }
+
+    /**
+     * Standard error relative to the mean: 0 for exact results, infinite when every probe hit a
+     * dead end, since a zero mean only says the count is small.
+     */
+    public double relativeError() {
+      if (exact()) {
+        return 0d;
+      }
+      return mean == 0d ? Double.POSITIVE_INFINITY : standardError / mean;
+    }
+  }
+
+  /** One worker: a sequence of probes with a running mean and variance (Welford). */
+  private final class Probe implements Runnable {
+    private final int[] initialRows = new int[SudokuBoard.SIZE];
+    private final int[] initialColumns = new int[SudokuBoard.SIZE];
+    private final int[] initialBoxes = new int[SudokuBoard.SIZE];
+    private final int[] rowMasks = new int[SudokuBoard.SIZE];
+    private final int[] columnMasks = new int[SudokuBoard.SIZE];
+    private final int[] boxMasks = new int[SudokuBoard.SIZE];
+    private long initialEmptyLow;
+    private long initialEmptyHigh;
+    private final int maxSamples;
+    private final long deadline;
+    private final SplittableRandom random;
+    private final Thread caller;
+    private long samples;
+    private double mean;
+    private double squaredDeviations;
+
+    private Probe(
+        byte[] cells, int maxSamples, long deadline, SplittableRandom random, Thread caller) {
+      this.maxSamples = maxSamples;
+      this.deadline = deadline;
+      this.random = random;
+      this.caller = caller;
+      for (int cell = 0; cell < SudokuBoard.CELL_COUNT; cell++) {
+        int row = cell / SudokuBoard.SIZE;
+        int col = cell % SudokuBoard.SIZE;
+        if (cells[cell] == 0) {
+          if (cell < Long.SIZE) {
+            initialEmptyLow |= 1L << cell;
+          } else {
+            initialEmptyHigh |= 1L << cell;
+          }
+        } else {
+          int bit = 1 << (cells[cell] - 1);
+          initialRows[row] |= bit;
+          initialColumns[col] |= bit;
+          initialBoxes[SolverSupport.boxIndex(row, col)] |= bit;
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      while (samples < maxSamples) {
+        if (samples > 0 && deadline > 0 && System.nanoTime() >= deadline) {
+          break;
+        }
+        // Workers in the common pool never see the caller's interrupt, so they poll its flag.
+        if (caller.isInterrupted()) {
+          break;
+        }
+        add(probe());
+      }
+    }
+
+    /** Walks one random MRV path; returns the product of branching factors, or 0 at a dead end. */
+    private double probe() {
+      System.arraycopy(initialRows, 0, rowMasks, 0, SudokuBoard.SIZE);
+      System.arraycopy(initialColumns, 0, columnMasks, 0, SudokuBoard.SIZE);
+      System.arraycopy(initialBoxes, 0, boxMasks, 0, SudokuBoard.SIZE);
+      long emptyLow = initialEmptyLow;
+      long emptyHigh = initialEmptyHigh;
+      double weight = 1d;
+      while (true) {
+        int cell = kernels.fewestCandidates(rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh);
+        if (cell < 0) {
+          return weight;
+        }
+        int row = cell / SudokuBoard.SIZE;
+        int col = cell % SudokuBoard.SIZE;
+        int box = SolverSupport.boxIndex(row, col);
+        int candidates = ~(rowMasks[row] | columnMasks[col] | boxMasks[box]) & ALL_DIGITS_MASK;
+        int count = Integer.bitCount(candidates);
+        if (count == 0) {
+          return 0d;
+        }
+        weight *= count;
+        for (int skip = random.nextInt(count); skip > 0; skip--) {
+          candidates &= candidates - 1;
+        }
+        int bit = candidates & -candidates;
+        rowMasks[row] |= bit;
+        columnMasks[col] |= bit;
+        boxMasks[box] |= bit;
+        if (cell < Long.SIZE) {
+          emptyLow &= ~(1L << cell);
+        } else {
+          emptyHigh &= ~(1L << cell);
+        }
+      }
+    }
+
+    private void add(double value) {
+      samples++;
+      double delta = value - mean;
+      mean += delta / samples;
+      squaredDeviations += delta * (value - mean);
+    }
+
+    /** Folds another worker's statistics into this one (Chan et al. pairwise update). */
+    private void merge(Probe other) {
+      if (other.samples == 0) {
+        return;
+      }
+      long combined = samples + other.samples;
+      double delta = other.mean - mean;
+      mean += delta * other.samples / combined;
+      squaredDeviations +=
+          other.squaredDeviations + delta * delta * ((double) samples * other.samples / combined);
+      samples = combined;
+    }
+  }
+}
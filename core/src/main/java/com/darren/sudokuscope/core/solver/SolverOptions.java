@@ -1,11 +1,31 @@
 package com.darren.sudokuscope.core.solver;
 
-/** Options to tune solver behaviour. */
+import java.util.Objects;
+
+/**
+ * Options to tune solver behaviour.
+ *
+ * <p>{@code parallelism} greater than one lets the backtracking engine split the top of the search
+ * tree into tasks for a fork/join pool, shared by all counts, of one worker per processor; values
+ * above the processor count split no further. Other engines search sequentially. {@code
+ * propagation} selects the deductions the backtracking engine applies at each node. A {@code
+ * progressListener}, when set, hears from the backtracking engine every {@code
+ * progressIntervalNanos}; other engines do not report progress. Every engine stops early when its
+ * {@code cancellationToken} is cancelled or, with a positive {@code nodeBudget}, after visiting
+ * that many search nodes; both are polled at the periodic stop check.
+ */
 public record SolverOptions(
     int maxSolutions,
     boolean captureFirstSolution,
     boolean treatEmptyBoardAsKnown,
-    long deadlineNanos) {
+    long deadlineNanos,
+    int parallelism,
+    PropagationLevel propagation,
+    ProgressListener progressListener,
+    long progressIntervalNanos,
+    CancellationToken cancellationToken,
+    long nodeBudget) {
+  private static final long DEFAULT_PROGRESS_INTERVAL_MILLIS = 250L;
 
   public SolverOptions {
     if (maxSolutions == 0) {
@@ -14,6 +34,50 @@ public record SolverOptions(
     if (deadlineNanos < 0) {
       throw new IllegalArgumentException("deadlineNanos must be >= 0");
     }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be >= 1");
+    }
+    Objects.requireNonNull(propagation, "propagation");
+    if (progressListener != null && progressIntervalNanos <= 0) {
+      throw new IllegalArgumentException("progressIntervalNanos must be > 0 with a listener");
+    }
+    if (nodeBudget < 0) {
+      throw new IllegalArgumentException("nodeBudget must be >= 0. Use 0 for unlimited.");
+    }
+  }
+
+  public SolverOptions(
+      int maxSolutions,
+      boolean captureFirstSolution,
+      boolean treatEmptyBoardAsKnown,
+      long deadlineNanos,
+      int parallelism,
+      PropagationLevel propagation) {
+    this(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        null,
+        0L,
+        null,
+        0L);
+  }
+
+  public SolverOptions(
+      int maxSolutions,
+      boolean captureFirstSolution,
+      boolean treatEmptyBoardAsKnown,
+      long deadlineNanos) {
+    this(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        1,
+        PropagationLevel.NAKED_SINGLES);
   }
 
   public static SolverOptions defaultOptions() {
@@ -33,15 +97,45 @@ public record SolverOptions(
   }
 
   public SolverOptions withMaxSolutions(int newMax) {
-    return new SolverOptions(newMax, captureFirstSolution, treatEmptyBoardAsKnown, deadlineNanos);
+    return new SolverOptions(
+        newMax,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodeBudget);
   }
 
   public SolverOptions withoutEmptyBoardShortcut() {
-    return new SolverOptions(maxSolutions, captureFirstSolution, false, deadlineNanos);
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        false,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodeBudget);
   }
 
   public SolverOptions withDeadlineNanos(long newDeadlineNanos) {
-    return new SolverOptions(maxSolutions, captureFirstSolution, treatEmptyBoardAsKnown, newDeadlineNanos);
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        newDeadlineNanos,
+        parallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodeBudget);
   }
 
   public SolverOptions withTimeLimitMillis(long millis) {
@@ -51,4 +145,93 @@ public record SolverOptions(
     long deadline = System.nanoTime() + millis * 1_000_000L;
     return withDeadlineNanos(deadline);
   }
+
+  public SolverOptions withParallelism(int newParallelism) {
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        newParallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodeBudget);
+  }
+
+  public SolverOptions withPropagation(PropagationLevel newPropagation) {
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        newPropagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodeBudget);
+  }
+
+  /** Reports progress to {@code listener} every 250 ms. */
+  public SolverOptions withProgressListener(ProgressListener listener) {
+    return withProgressListener(listener, DEFAULT_PROGRESS_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Reports progress to {@code listener} about every {@code intervalMillis}; the search checks the
+   * clock every 1024 nodes, so reports can lag by that much work. A null listener turns reporting
+   * off.
+   */
+  public SolverOptions withProgressListener(ProgressListener listener, long intervalMillis) {
+    if (listener != null && intervalMillis <= 0) {
+      throw new IllegalArgumentException("intervalMillis must be > 0");
+    }
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        listener,
+        listener == null ? 0L : intervalMillis * 1_000_000L,
+        cancellationToken,
+        nodeBudget);
+  }
+
+  /** Stops the search once {@code token} is cancelled; null removes the token. */
+  public SolverOptions withCancellationToken(CancellationToken token) {
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        token,
+        nodeBudget);
+  }
+
+  /**
+   * Stops the search after about {@code nodes} search nodes, a deterministic alternative to a time
+   * limit; 0 means unlimited. Engines count nodes differently, so budgets do not carry over between
+   * strategies.
+   */
+  public SolverOptions withNodeBudget(long nodes) {
+    return new SolverOptions(
+        maxSolutions,
+        captureFirstSolution,
+        treatEmptyBoardAsKnown,
+        deadlineNanos,
+        parallelism,
+        propagation,
+        progressListener,
+        progressIntervalNanos,
+        cancellationToken,
+        nodes);
+  }
 }
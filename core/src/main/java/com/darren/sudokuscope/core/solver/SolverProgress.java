@@ -0,0 +1,40 @@
+package com.darren.sudokuscope.core.solver;
+
+import java.util.OptionalLong;
+
+/**
+ * Snapshot of a running search, passed to a {@link ProgressListener}.
+ *
+ * <p>{@code fractionExplored} is the share of the search tree already finished, weighting each
+ * branch of a decision equally: finishing one of three candidates at the top pivot counts as a
+ * third, whatever the size of its subtree. Subtrees are rarely balanced, so the fraction is a rough
+ * guide to the remaining time rather than a precise one.
+ */
+public record SolverProgress(
+    long solutionsFound,
+    long exploredNodes,
+    double nodesPerSecond,
+    double fractionExplored,
+    long elapsedNanos) {
+
+  static SolverProgress of(
+      long solutionsFound, long exploredNodes, double fractionExplored, long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    return new SolverProgress(
+        solutionsFound,
+        exploredNodes,
+        seconds > 0d ? exploredNodes / seconds : 0d,
+        Math.min(1d, Math.max(0d, fractionExplored)),
+        elapsedNanos);
+  }
+
+  /**
+   * Time left if the rest of the tree goes at the pace so far; empty until some of it is finished.
+   */
+  public OptionalLong estimatedRemainingNanos() {
+    if (fractionExplored <= 0d) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of((long) (elapsedNanos * (1d - fractionExplored) / fractionExplored));
+  }
+}
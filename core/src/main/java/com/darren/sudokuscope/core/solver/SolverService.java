@@ -1,63 +1,489 @@
 package com.darren.sudokuscope.core.solver;
 
+import com.darren.sudokuscope.core.CanonicalForm;
+import com.darren.sudokuscope.core.PackedBoard;
 import com.darren.sudokuscope.core.SudokuBoard;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-/** Thin asynchronous wrapper around a {@link SudokuSolver}. */
+/**
+ * Thin asynchronous wrapper around a {@link SudokuSolver}. An optional {@link AnalysisCache} and,
+ * behind it, an optional {@link MappedResultStore} are consulted before each search and receive its
+ * result.
+ *
+ * <p>Asynchronous requests wait in a queue in front of the service's threads and start in {@link
+ * AnalysisPriority} order, oldest first within a priority. {@link #builder()} chooses the threads
+ * (a fixed pool, a work-stealing pool or virtual threads), a bound on the queue and what happens to
+ * requests that find it full; {@link #stats()} reports how long requests waited and ran. A request
+ * for a board and options already being analysed joins that analysis rather than queueing a second
+ * one.
+ */
 public final class SolverService implements AutoCloseable {
+  private static final String THREAD_NAME_PREFIX = "sudoku-solver";
+  private static final long DEFAULT_STORE_MIN_EXPLORED_NODES = 100_000L;
+
   private final SudokuSolver solver;
-  private final ExecutorService executor;
-  private final boolean shutdownOnClose;
+  private final AnalysisScheduler scheduler;
+  private final InFlightAnalyses inFlight;
+  private final AnalysisCache cache;
+  private final MappedResultStore store;
+  private final long storeMinExploredNodes;
 
   public SolverService(SudokuSolver solver, ExecutorService executor, boolean shutdownOnClose) {
+    this(solver, executor, shutdownOnClose, null, null);
+  }
+
+  public SolverService(
+      SudokuSolver solver, ExecutorService executor, boolean shutdownOnClose, AnalysisCache cache) {
+    this(solver, executor, shutdownOnClose, cache, null);
+  }
+
+  /**
+   * {@code cache} and {@code store} may each be {@code null}. The service never closes {@code
+   * store}; its owner does, after closing the service. The queue is unbounded and hands requests to
+   * {@code executor} as fast as it takes them, so any limit is the executor's own. Analyses go to
+   * the store as with {@link Builder#withResultStoreMinExploredNodes} left alone.
+   */
+  public SolverService(
+      SudokuSolver solver,
+      ExecutorService executor,
+      boolean shutdownOnClose,
+      AnalysisCache cache,
+      MappedResultStore store) {
+    this(
+        solver,
+        new AnalysisScheduler(
+            Objects.requireNonNull(executor, "executor"),
+            shutdownOnClose ? executor : null,
+            Integer.MAX_VALUE,
+            Integer.MAX_VALUE,
+            RejectionPolicy.ABORT),
+        true,
+        cache,
+        store,
+        DEFAULT_STORE_MIN_EXPLORED_NODES);
+  }
+
+  private SolverService(
+      SudokuSolver solver,
+      AnalysisScheduler scheduler,
+      boolean coalescing,
+      AnalysisCache cache,
+      MappedResultStore store,
+      long storeMinExploredNodes) {
     this.solver = Objects.requireNonNull(solver, "solver");
-    this.executor = Objects.requireNonNull(executor, "executor");
-    this.shutdownOnClose = shutdownOnClose;
+    this.scheduler = scheduler;
+    this.inFlight = coalescing ? new InFlightAnalyses(scheduler::recordCoalesced) : null;
+    this.cache = cache;
+    this.store = store;
+    this.storeMinExploredNodes = storeMinExploredNodes;
   }
 
+  /** One solver thread and an unbounded queue. */
   public static SolverService createDefault() {
-    return new SolverService(
-        SudokuSolver.createDefault(), newSingleThreadExecutor("sudoku-solver"), true);
+    return builder().build();
+  }
+
+  /** The default service with a cache of up to {@code maxEntries} analyses. */
+  public static SolverService createCaching(int maxEntries) {
+    return builder().withCacheSize(maxEntries).build();
+  }
+
+  /**
+   * The default service with a cache of up to {@code maxEntries} analyses in front of {@code
+   * store}, which may be {@code null}.
+   */
+  public static SolverService createCaching(int maxEntries, MappedResultStore store) {
+    return builder().withCacheSize(maxEntries).withResultStore(store).build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Optional<AnalysisCache> cache() {
+    return Optional.ofNullable(cache);
+  }
+
+  public Optional<MappedResultStore> resultStore() {
+    return Optional.ofNullable(store);
+  }
+
+  /** Counters of the asynchronous requests that reached the queue, over all priorities. */
+  public Stats stats() {
+    return scheduler.stats();
+  }
+
+  /** Counters of the asynchronous requests of one priority. */
+  public Stats stats(AnalysisPriority priority) {
+    return scheduler.stats(Objects.requireNonNull(priority, "priority"));
   }
 
   public CompletableFuture<SudokuAnalysis> analyzeAsync(SudokuBoard board) {
     return analyzeAsync(board, SolverOptions.defaultOptions());
   }
 
+  /** Analyses at {@link AnalysisPriority#NORMAL} priority. */
   public CompletableFuture<SudokuAnalysis> analyzeAsync(SudokuBoard board, SolverOptions options) {
+    return analyzeAsync(board, options, AnalysisPriority.NORMAL);
+  }
+
+  /**
+   * Analyses on the service's threads once every queued request of higher {@code priority}, and
+   * every earlier one of the same priority, has started. Cancelling the returned future takes the
+   * request off the queue or, once it runs, stops the search through a {@link CancellationToken},
+   * so the thread is freed within about a thousand nodes even though {@link
+   * CompletableFuture#cancel} never interrupts. A token already in {@code options} keeps working
+   * alongside. With a cache or result store, the board's canonical form is computed on the calling
+   * thread first, which takes up to about a millisecond, and a hit completes the future at once,
+   * there. A request the queue turns away, or still waiting when the service closes, fails with a
+   * {@link java.util.concurrent.RejectedExecutionException}.
+   *
+   * <p>If a request for the same cells, with the same solution limit, exemplar, empty-board and
+   * node-budget options, is still queued or running and its deadline is no earlier than this one's,
+   * this one joins it and shares its result; see {@link Stats#coalesced()}. If it is more urgent
+   * than the request it joins and that request is still queued, the analysis moves up to its
+   * priority's queue. Cancelling one caller's future then detaches only that caller, and the
+   * analysis stops when the last of them cancels. Requests whose options carry a progress listener
+   * or a cancellation token always run on their own.
+   */
+  public CompletableFuture<SudokuAnalysis> analyzeAsync(
+      SudokuBoard board, SolverOptions options, AnalysisPriority priority) {
     Objects.requireNonNull(board, "board");
     Objects.requireNonNull(options, "options");
-    return CompletableFuture.supplyAsync(() -> solver.analyze(board, options), executor);
+    Objects.requireNonNull(priority, "priority");
+    CanonicalForm form = cacheKey(board);
+    Optional<SudokuAnalysis> cached = lookup(board, form, options);
+    if (cached.isPresent()) {
+      return CompletableFuture.completedFuture(cached.get());
+    }
+    CancellationToken token =
+        options.cancellationToken() == null
+            ? new CancellationToken()
+            : options.cancellationToken().child();
+    SolverOptions cancellable = options.withCancellationToken(token);
+    CancellableFuture future = new CancellableFuture(token);
+    AnalysisScheduler.Task task =
+        new AnalysisScheduler.Task(
+            priority,
+            () -> {
+              if (future.isDone()) {
+                return; // cancelled while queued
+              }
+              try {
+                future.complete(analyzeAndStore(board, form, cancellable));
+              } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+              }
+            },
+            future::completeExceptionally);
+    future.dequeue = () -> scheduler.remove(task);
+    InFlightAnalyses.Key key =
+        inFlight == null ? null : InFlightAnalyses.keyFor(PackedBoard.of(board), options);
+    if (key == null) {
+      scheduler.submit(task);
+      return future;
+    }
+    return inFlight.join(
+        key,
+        options.deadlineNanos(),
+        priority,
+        future,
+        () -> scheduler.submit(task),
+        urgency -> scheduler.raise(task, urgency));
   }
 
   public SudokuAnalysis analyzeBlocking(SudokuBoard board, SolverOptions options) {
-    return solver.analyze(board, options);
+    Objects.requireNonNull(board, "board");
+    Objects.requireNonNull(options, "options");
+    CanonicalForm form = cacheKey(board);
+    return lookup(board, form, options).orElseGet(() -> analyzeAndStore(board, form, options));
+  }
+
+  /**
+   * Analyses every board from {@code boards} on a pool of {@code batch.parallelism()} threads and
+   * hands each {@link BatchResult} to {@code consumer} on the calling thread. The cache and result
+   * store are used as by {@link #analyzeBlocking}. Cancelling {@code options}' token or
+   * interrupting the caller stops the batch early; if an analysis or the iterator throws, the batch
+   * stops and the exception is rethrown here.
+   */
+  public BatchReport analyzeAll(
+      Iterable<SudokuBoard> boards,
+      SolverOptions options,
+      BatchOptions batch,
+      Consumer<? super BatchResult> consumer) {
+    Objects.requireNonNull(boards, "boards");
+    Objects.requireNonNull(options, "options");
+    Objects.requireNonNull(batch, "batch");
+    Objects.requireNonNull(consumer, "consumer");
+    CancellationToken token =
+        options.cancellationToken() == null
+            ? new CancellationToken()
+            : options.cancellationToken().child();
+    SolverOptions cancellable = options.withCancellationToken(token);
+    return new BatchRun(
+            boards.iterator(), batch, token, board -> analyzeBlocking(board, cancellable))
+        .run(consumer);
+  }
+
+  /** {@link #analyzeAll(Iterable, SolverOptions, BatchOptions, Consumer)} over a stream. */
+  public BatchReport analyzeAll(
+      Stream<SudokuBoard> boards,
+      SolverOptions options,
+      BatchOptions batch,
+      Consumer<? super BatchResult> consumer) {
+    Objects.requireNonNull(boards, "boards");
+    return analyzeAll(boards::iterator, options, batch, consumer);
+  }
+
+  /** The canonical form to cache {@code board} under, or {@code null} when nothing is cached. */
+  private CanonicalForm cacheKey(SudokuBoard board) {
+    return (cache != null || store != null) && AnalysisCache.cacheable(board)
+        ? board.canonicalForm()
+        : null;
+  }
+
+  /** Tries the cache, then the store; store hits are not copied into the cache. */
+  private Optional<SudokuAnalysis> lookup(
+      SudokuBoard board, CanonicalForm form, SolverOptions options) {
+    if (form == null) {
+      return Optional.empty();
+    }
+    Optional<SudokuAnalysis> cached =
+        cache == null ? Optional.empty() : cache.lookup(board, form, options);
+    return cached.isEmpty() && store != null ? store.lookup(board, form, options) : cached;
   }
 
+  private SudokuAnalysis analyzeAndStore(
+      SudokuBoard board, CanonicalForm form, SolverOptions options) {
+    SudokuAnalysis analysis = solver.analyze(board, options);
+    if (form != null) {
+      if (cache != null) {
+        cache.store(form, analysis);
+      }
+      if (store != null && analysis.exploredNodes() >= storeMinExploredNodes) {
+        store.store(form, analysis);
+      }
+    }
+    return analysis;
+  }
+
+  /**
+   * Fails the requests still queued and, unless the service was given an executor it should leave
+   * running, shuts its threads down, interrupting the analyses in progress.
+   */
   @Override
   public void close() {
-    if (shutdownOnClose) {
-      executor.shutdownNow();
+    scheduler.close();
+  }
+
+  /**
+   * Counters of the asynchronous requests that reached the queue; cache hits and blocking calls
+   * never do. {@code coalesced} counts the requests that joined an identical one in flight instead,
+   * and is not part of {@code submitted}. {@code totalQueueNanos} and {@code totalRunNanos} add up
+   * how long the completed requests waited to start and then ran.
+   */
+  public record Stats(
+      long submitted,
+      long completed,
+      long rejected,
+      long cancelled,
+      long coalesced,
+      int queued,
+      int active,
+      long totalQueueNanos,
+      long totalRunNanos) {
+    public double meanQueueNanos() {
+      return completed == 0 ? 0d : (double) totalQueueNanos / completed;
+    }
+
+    public double meanRunNanos() {
+      return completed == 0 ? 0d : (double) totalRunNanos / completed;
+    }
+  }
+
+  /**
+   * Configures a {@link SolverService}. Left alone, it builds what {@link #createDefault()} does:
+   * the default solver on one platform thread behind an unbounded queue, with no cache.
+   */
+  public static final class Builder {
+    private SudokuSolver solver;
+    private int threads = 1;
+    private boolean workStealing;
+    private boolean virtualThreads;
+    private int queueCapacity = Integer.MAX_VALUE;
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+    private boolean coalescing = true;
+    private AnalysisCache cache;
+    private MappedResultStore store;
+    private long storeMinExploredNodes = DEFAULT_STORE_MIN_EXPLORED_NODES;
+    private String threadNamePrefix = THREAD_NAME_PREFIX;
+
+    private Builder() {}
+
+    public Builder withSolver(SudokuSolver newSolver) {
+      this.solver = Objects.requireNonNull(newSolver, "solver");
+      return this;
+    }
+
+    /** Analyses run at most {@code newThreads} at a time. */
+    public Builder withThreads(int newThreads) {
+      if (newThreads < 1) {
+        throw new IllegalArgumentException("threads must be >= 1");
+      }
+      this.threads = newThreads;
+      return this;
+    }
+
+    /** Runs analyses on a work-stealing {@link java.util.concurrent.ForkJoinPool}. */
+    public Builder withWorkStealing(boolean newWorkStealing) {
+      this.workStealing = newWorkStealing;
+      return this;
+    }
+
+    /**
+     * Runs analyses on virtual threads, still at most {@link #withThreads threads} at a time, for
+     * callers that mix analyses with blocking I/O on the same threads.
+     */
+    public Builder withVirtualThreads(boolean newVirtualThreads) {
+      this.virtualThreads = newVirtualThreads;
+      return this;
+    }
+
+    /** At most {@code newQueueCapacity} requests wait; see {@link #withRejectionPolicy}. */
+    public Builder withQueueCapacity(int newQueueCapacity) {
+      if (newQueueCapacity < 1) {
+        throw new IllegalArgumentException("queueCapacity must be >= 1");
+      }
+      this.queueCapacity = newQueueCapacity;
+      return this;
+    }
+
+    public Builder withRejectionPolicy(RejectionPolicy newRejectionPolicy) {
+      this.rejectionPolicy = Objects.requireNonNull(newRejectionPolicy, "rejectionPolicy");
+      return this;
+    }
+
+    /**
+     * Whether a request joins an identical one in flight, which it does by default; see {@link
+     * SolverService#analyzeAsync(SudokuBoard, SolverOptions, AnalysisPriority)}.
+     */
+    public Builder withCoalescing(boolean newCoalescing) {
+      this.coalescing = newCoalescing;
+      return this;
+    }
+
+    /** {@code newCache} may be {@code null} for none. */
+    public Builder withCache(AnalysisCache newCache) {
+      this.cache = newCache;
+      return this;
+    }
+
+    /** A new {@link AnalysisCache} of up to {@code maxEntries} analyses. */
+    public Builder withCacheSize(int maxEntries) {
+      return withCache(new AnalysisCache(maxEntries));
+    }
+
+    /** {@code newStore} may be {@code null} for none; the service never closes it. */
+    public Builder withResultStore(MappedResultStore newStore) {
+      this.store = newStore;
+      return this;
+    }
+
+    /**
+     * Only analyses that explored at least {@code minExploredNodes} nodes, 100,000 by default, go
+     * to the result store. Cheaper ones take about as long to repeat as to look up, and would fill
+     * a store that never evicts, leaving no room for the expensive counts it exists for.
+     */
+    public Builder withResultStoreMinExploredNodes(long minExploredNodes) {
+      if (minExploredNodes < 0) {
+        throw new IllegalArgumentException("minExploredNodes must be >= 0");
+      }
+      this.storeMinExploredNodes = minExploredNodes;
+      return this;
+    }
+
+    public Builder withThreadNamePrefix(String newThreadNamePrefix) {
+      this.threadNamePrefix = Objects.requireNonNull(newThreadNamePrefix, "threadNamePrefix");
+      return this;
+    }
+
+    public SolverService build() {
+      if (workStealing && virtualThreads) {
+        throw new IllegalStateException("Choose work stealing or virtual threads, not both");
+      }
+      ExecutorService runner;
+      if (virtualThreads) {
+        runner =
+            Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(threadNamePrefix + "-", 1).factory());
+      } else if (workStealing) {
+        runner = newWorkStealingPool(threads, threadNamePrefix);
+      } else {
+        runner = Executors.newFixedThreadPool(threads, daemonThreadFactory(threadNamePrefix));
+      }
+      return new SolverService(
+          solver == null ? SudokuSolver.createDefault() : solver,
+          new AnalysisScheduler(runner, runner, threads, queueCapacity, rejectionPolicy),
+          coalescing,
+          cache,
+          store,
+          storeMinExploredNodes);
     }
   }
 
-  private static ExecutorService newSingleThreadExecutor(String prefix) {
-    ThreadFactory factory =
-        new ThreadFactory() {
-          private final AtomicInteger counter = new AtomicInteger(1);
+  /** A future whose cancellation also cancels the search computing it, or its queued request. */
+  private static final class CancellableFuture extends CompletableFuture<SudokuAnalysis> {
+    private final CancellationToken token;
+    private volatile Runnable dequeue;
+
+    private CancellableFuture(CancellationToken token) {
+      this.token = token;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      token.cancel();
+      Runnable action = dequeue;
+      if (action != null) {
+        action.run();
+      }
+      return super.cancel(mayInterruptIfRunning);
+    }
+  }
 
-          @Override
-          public Thread newThread(Runnable r) {
-            Thread thread = new Thread(r, prefix + "-" + counter.getAndIncrement());
-            thread.setDaemon(true);
-            return thread;
-          }
+  private static ExecutorService newWorkStealingPool(int parallelism, String prefix) {
+    AtomicInteger counter = new AtomicInteger(1);
+    ForkJoinPool.ForkJoinWorkerThreadFactory factory =
+        pool -> {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName(prefix + "-" + counter.getAndIncrement());
+          thread.setDaemon(true);
+          return thread;
         };
-    return Executors.newSingleThreadExecutor(factory);
+    return new ForkJoinPool(parallelism, factory, null, true);
+  }
+
+  static ThreadFactory daemonThreadFactory(String prefix) {
+    return new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger(1);
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, prefix + "-" + counter.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+      }
+    };
   }
 }
@@ -0,0 +1,21 @@
+package com.darren.sudokuscope.core.solver;
+
+/** Search engines available through {@link SudokuSolver#create(SolverStrategy)}. */
+public enum SolverStrategy {
+  /** Bit-mask backtracking with MRV pivots and naked-single propagation. */
+  BACKTRACKING,
+  /** Knuth's Algorithm X over the 324-column exact-cover matrix using dancing links. */
+  DANCING_LINKS,
+  /**
+   * Exact counting that caches subproblem counts in a bounded transposition table. Ignores {@code
+   * maxSolutions}; intended for boards with too many completions to enumerate.
+   */
+  MEMOIZED_COUNT,
+  /**
+   * Exact counting by top-band enumeration and symmetry classes, after Felgenhauer and Jarvis.
+   * Ignores {@code maxSolutions}. Only for boards whose clues all sit in one band or one stack; any
+   * other board is answered at once with {@link SolverStatus#LIMIT_REACHED}, a count of zero and an
+   * "Unsupported clue layout" message.
+   */
+  BAND_DECOMPOSITION
+}
@@ -0,0 +1,152 @@
+package com.darren.sudokuscope.core.solver;
+
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.SudokuFacts;
+import com.darren.sudokuscope.core.simd.CellKernels;
+import java.math.BigInteger;
+import java.util.Optional;
+
+/** Checks and verdict mapping shared by the {@link SudokuSolver} implementations. */
+final class SolverSupport {
+  static final String ALREADY_SOLVED_MESSAGE = "Board already solved";
+
+  private SolverSupport() {}
+
+  /**
+   * Resolves boards that never need a search: invalid, empty (when the shortcut is enabled) and
+   * already complete boards. Returns {@code null} when the caller has to search.
+   */
+  static SudokuAnalysis preflight(SudokuBoard board, SolverOptions options) {
+    BoardValidator.ValidationResult validation = BoardValidator.validate(board);
+    if (!validation.valid()) {
+      return SudokuAnalysis.invalid(board, validation.message());
+    }
+
+    if (board.isEmptyBoard() && options.treatEmptyBoardAsKnown()) {
+      return SudokuAnalysis.emptyBoard(board, SudokuFacts.TOTAL_COMPLETED_GRIDS);
+    }
+
+    if (board.isComplete()) {
+      return new SudokuAnalysis(
+          board,
+          true,
+          SolverStatus.UNIQUE_SOLUTION,
+          BigInteger.ONE,
+          Optional.of(board),
+          false,
+          0L,
+          ALREADY_SOLVED_MESSAGE);
+    }
+    return null;
+  }
+
+  /**
+   * Allocation-free {@link #preflight(SudokuBoard, SolverOptions)} over raw cells. Fills {@code
+   * result} and returns {@code true} when no search is needed. Only invalid boards allocate, to
+   * build the conflict message.
+   */
+  static boolean preflight(byte[] cells, SolverOptions options, AnalysisResult result) {
+    if (cells.length != SudokuBoard.CELL_COUNT) {
+      throw new IllegalArgumentException("Expected 81 values but got " + cells.length);
+    }
+    boolean empty = true;
+    boolean complete = true;
+    for (byte cell : cells) {
+      int value = Byte.toUnsignedInt(cell);
+      if (value > SudokuBoard.SIZE) {
+        throw new IllegalArgumentException("Cell values must be between 0 and 9 but was " + value);
+      }
+      empty &= value == 0;
+      complete &= value != 0;
+    }
+    if (CellKernels.preferred().hasDuplicates(cells)) {
+      result.copyFrom(preflight(SudokuBoard.fromBytes(cells), options));
+      return true;
+    }
+    if (empty && options.treatEmptyBoardAsKnown()) {
+      result.setResolved(
+          SolverStatus.MULTIPLE_SOLUTIONS,
+          Long.MAX_VALUE,
+          SudokuFacts.TOTAL_COMPLETED_GRIDS,
+          SudokuAnalysis.EMPTY_BOARD_MESSAGE);
+      return true;
+    }
+    if (complete) {
+      result.setResolved(SolverStatus.UNIQUE_SOLUTION, 1L, null, ALREADY_SOLVED_MESSAGE);
+      result.setSolution(cells);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * An example solution for an engine that counted {@code count} solutions without reaching a
+   * complete grid, found by a backtracking search under the caller's deadline, cancellation token
+   * and node budget. Empty when the caller did not ask for one, when there is none, or when the
+   * count already stopped early.
+   */
+  static Optional<SudokuBoard> exemplar(
+      SudokuBoard board, SolverOptions options, BigInteger count, boolean limitReached) {
+    if (!options.captureFirstSolution() || count.signum() == 0 || limitReached) {
+      return Optional.empty();
+    }
+    SolverOptions firstOnly =
+        SolverOptions.findFirstSolution()
+            .withDeadlineNanos(options.deadlineNanos())
+            .withCancellationToken(options.cancellationToken())
+            .withNodeBudget(options.nodeBudget());
+    return new BacktrackingSudokuSolver().analyze(board, firstOnly).exemplarSolution();
+  }
+
+  static SolverStatus statusFor(long solutionCount, boolean limitReached) {
+    if (limitReached) {
+      return SolverStatus.LIMIT_REACHED;
+    } else if (solutionCount == 0) {
+      return SolverStatus.NO_SOLUTION;
+    } else if (solutionCount == 1) {
+      return SolverStatus.UNIQUE_SOLUTION;
+    }
+    return SolverStatus.MULTIPLE_SOLUTIONS;
+  }
+
+  static SolverStatus statusFor(BigInteger solutionCount, boolean limitReached) {
+    if (limitReached) {
+      return SolverStatus.LIMIT_REACHED;
+    } else if (solutionCount.signum() == 0) {
+      return SolverStatus.NO_SOLUTION;
+    } else if (solutionCount.equals(BigInteger.ONE)) {
+      return SolverStatus.UNIQUE_SOLUTION;
+    }
+    return SolverStatus.MULTIPLE_SOLUTIONS;
+  }
+
+  static String completionMessage(
+      boolean interrupted,
+      boolean cancelled,
+      boolean timeLimitReached,
+      boolean nodeBudgetReached,
+      boolean limitReached,
+      int limit,
+      long solutionCount) {
+    if (interrupted) {
+      return "Stopped due to interruption";
+    } else if (cancelled) {
+      return "Stopped on request";
+    } else if (timeLimitReached) {
+      return "Stopped after reaching time limit";
+    } else if (nodeBudgetReached) {
+      return "Stopped after reaching node budget";
+    } else if (limitReached) {
+      return "Stopped after reaching maxSolutions=" + limit;
+    } else if (solutionCount == 0) {
+      return "No solutions found";
+    }
+    return "Enumerated " + solutionCount + " solution(s)";
+  }
+
+  static int boxIndex(int row, int column) {
+    return (row / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE
+        + (column / SudokuBoard.REGION_SIZE);
+  }
+}
@@ -15,6 +15,7 @@ public record SudokuAnalysis(
     boolean limitReached,
     long exploredNodes,
     String message) {
+  static final String EMPTY_BOARD_MESSAGE = "Empty board has a known number of completions";
 
   public SudokuAnalysis {
     Objects.requireNonNull(initialBoard, "initialBoard");
@@ -49,6 +50,6 @@ public record SudokuAnalysis(
         Optional.empty(),
         false,
         0L,
-        "Empty board has a known number of completions");
+        EMPTY_BOARD_MESSAGE);
   }
 }
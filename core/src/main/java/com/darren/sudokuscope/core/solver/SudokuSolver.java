@@ -1,7 +1,9 @@
 package com.darren.sudokuscope.core.solver;
 
 import com.darren.sudokuscope.core.SudokuBoard;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /** Contract for Sudoku solving strategies. */
 public interface SudokuSolver {
@@ -11,6 +13,31 @@ public interface SudokuSolver {
     return analyze(board, SolverOptions.defaultOptions());
   }
 
+  /**
+   * Analyses the 81 {@code cells} (0 for empty, row by row) into a caller-owned {@code result}, for
+   * loops that analyse many boards. {@code cells} is read but neither modified nor retained. The
+   * backtracking engine runs sequential analyses without allocating; other engines, and parallel
+   * counts, fall back to {@link #analyze(SudokuBoard, SolverOptions)} and copy.
+   */
+  default void analyzeInto(byte[] cells, SolverOptions options, AnalysisResult result) {
+    Objects.requireNonNull(result, "result");
+    result.copyFrom(analyze(SudokuBoard.fromBytes(cells), options));
+  }
+
+  /**
+   * Returns the solutions of {@code board} as a lazy stream: each element is found only when the
+   * stream pulls it, so short-circuiting operations such as {@code limit} or {@code findAny} stop
+   * the search, and the solutions are never held in memory together. The stream splits the search
+   * tree, so {@code parallel()} searches subtrees concurrently; it is unordered. Invalid boards
+   * give an empty stream. The deadline, cancellation token, node budget and propagation level of
+   * {@code options} apply, the budget to the nodes of the whole stream, parallel parts included;
+   * {@code maxSolutions} and the empty-board shortcut do not, so use {@code limit} to cap the
+   * count. Engines without their own enumeration use the backtracking engine's.
+   */
+  default Stream<SudokuBoard> solutions(SudokuBoard board, SolverOptions options) {
+    return create(SolverStrategy.BACKTRACKING).solutions(board, options);
+  }
+
   default Optional<SudokuBoard> solve(SudokuBoard board) {
     SudokuAnalysis analysis = analyze(board, SolverOptions.findFirstSolution());
     return analysis.exemplarSolution();
@@ -22,6 +49,16 @@ public interface SudokuSolver {
   }
 
   static SudokuSolver createDefault() {
-    return new BacktrackingSudokuSolver();
+    return create(SolverStrategy.BACKTRACKING);
+  }
+
+  static SudokuSolver create(SolverStrategy strategy) {
+    Objects.requireNonNull(strategy, "strategy");
+    return switch (strategy) {
+      case BACKTRACKING -> new BacktrackingSudokuSolver();
+      case DANCING_LINKS -> new DancingLinksSudokuSolver();
+      case MEMOIZED_COUNT -> new MemoizedCountingSolver();
+      case BAND_DECOMPOSITION -> new BandDecompositionCounter();
+    };
   }
 }
@@ -21,13 +21,39 @@ public final class TargetPuzzleSearch {
       long elapsedMillis,
       BigInteger delta) {}
 
+  /**
+   * Told about each puzzle closer to the target than any before it, on the searching thread. It
+   * should return quickly, since the search waits for it.
+   */
+  @FunctionalInterface
+  public interface ImprovementListener {
+    /** Returns {@code false} to stop the search, which then returns {@code best}. */
+    boolean onImprovement(SearchResult best);
+  }
+
   public SearchResult findClosest(
       BigInteger target, long timeLimitMillis, int maxSolutions, long seed) {
+    return findClosest(target, timeLimitMillis, maxSolutions, seed, null, null);
+  }
+
+  /**
+   * {@link #findClosest(BigInteger, long, int, long)}, reporting each improvement to {@code
+   * listener} and returning the best puzzle so far once {@code token} is cancelled; either may be
+   * {@code null}.
+   */
+  public SearchResult findClosest(
+      BigInteger target,
+      long timeLimitMillis,
+      int maxSolutions,
+      long seed,
+      ImprovementListener listener,
+      CancellationToken token) {
     SudokuBoard solved = generateRandomSolved(timeLimitMillis, seed);
     if (solved == null) {
       return new SearchResult(SudokuBoard.empty(), BigInteger.ZERO, true, 0L, 0L, target);
     }
-    return findClosestFromSolved(solved, target, timeLimitMillis, maxSolutions, seed);
+    return findClosestFromSolved(
+        solved, target, timeLimitMillis, maxSolutions, seed, listener, token);
   }
 
   public SudokuBoard generateRandomSolved(long timeLimitMillis, long seed) {
@@ -39,6 +65,23 @@ public final class TargetPuzzleSearch {
 
   public SearchResult findClosestFromSolved(
       SudokuBoard solved, BigInteger target, long timeLimitMillis, int maxSolutions, long seed) {
+    return findClosestFromSolved(solved, target, timeLimitMillis, maxSolutions, seed, null, null);
+  }
+
+  /**
+   * {@link #findClosestFromSolved(SudokuBoard, BigInteger, long, int, long)}, reporting each
+   * improvement, starting with {@code solved} itself, to {@code listener} and returning the best
+   * puzzle so far once {@code token} is cancelled; either may be {@code null}. The token is polled
+   * between candidates and passed to the solver, so a cancelled search stops within one count.
+   */
+  public SearchResult findClosestFromSolved(
+      SudokuBoard solved,
+      BigInteger target,
+      long timeLimitMillis,
+      int maxSolutions,
+      long seed,
+      ImprovementListener listener,
+      CancellationToken token) {
     Objects.requireNonNull(solved, "solved");
     Objects.requireNonNull(target, "target");
     if (target.signum() <= 0) {
@@ -52,41 +95,30 @@ public final class TargetPuzzleSearch {
     long deadline = start + boundedLimit * 1_000_000L;
     int solverLimit = resolveMaxSolutions(target, maxSolutions);
     boolean limitImpliesOverTarget = limitImpliesOverTarget(target, solverLimit);
-    SolverOptions options = new SolverOptions(solverLimit, false, true, 0L);
+    SolverOptions options =
+        new SolverOptions(solverLimit, false, true, 0L).withCancellationToken(token);
     Random random = new Random(seed);
     long iterations = 0;
 
     byte[] solvedBytes = solved.toByteArray();
-    Candidate best = evaluate(solvedBytes, target, options, deadline, limitImpliesOverTarget);
+    AnalysisResult analysis = new AnalysisResult();
+    Candidate best =
+        evaluate(solvedBytes, target, options, deadline, limitImpliesOverTarget, analysis)
+            .snapshot();
     iterations++;
-    if (!best.approximate && best.delta.equals(BigInteger.ZERO)) {
-      long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
-      return new SearchResult(
-          SudokuBoard.fromBytes(best.puzzle),
-          best.solutionCount,
-          best.approximate,
-          iterations,
-          elapsedMillis,
-          best.delta);
-    }
-    if (target.equals(BigInteger.ONE)) {
-      long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
-      return new SearchResult(
-          SudokuBoard.fromBytes(best.puzzle),
-          best.solutionCount,
-          best.approximate,
-          iterations,
-          elapsedMillis,
-          best.delta);
+    if (!report(listener, best, iterations, start)
+        || (!best.approximate && best.delta.equals(BigInteger.ZERO))
+        || target.equals(BigInteger.ONE)) {
+      return result(best, iterations, start);
     }
 
-    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+    while (System.nanoTime() < deadline && !stopRequested(token)) {
       byte[] puzzle = solvedBytes.clone();
       int[] removalOrder = shuffledCells(random);
       int clues = SudokuBoard.CELL_COUNT;
 
       for (int cell : removalOrder) {
-        if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted()) {
+        if (System.nanoTime() >= deadline || stopRequested(token)) {
           break;
         }
         if (clues <= MIN_CLUES) {
@@ -100,7 +132,7 @@ public final class TargetPuzzleSearch {
         clues--;
 
         Candidate candidate =
-            evaluate(puzzle, target, options, deadline, limitImpliesOverTarget);
+            evaluate(puzzle, target, options, deadline, limitImpliesOverTarget, analysis);
         iterations++;
         if (candidate.approximate || candidate.overTarget) {
           puzzle[cell] = previous;
@@ -108,21 +140,31 @@ public final class TargetPuzzleSearch {
           continue;
         }
         if (isBetter(candidate, best)) {
-          best = candidate;
+          best = candidate.snapshot();
+          if (!report(listener, best, iterations, start)) {
+            return result(best, iterations, start);
+          }
         }
         if (candidate.delta.equals(BigInteger.ZERO)) {
-          long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
-          return new SearchResult(
-              SudokuBoard.fromBytes(best.puzzle),
-              best.solutionCount,
-              best.approximate,
-              iterations,
-              elapsedMillis,
-              best.delta);
+          return result(best, iterations, start);
         }
       }
     }
 
+    return result(best, iterations, start);
+  }
+
+  private static boolean stopRequested(CancellationToken token) {
+    return Thread.currentThread().isInterrupted() || (token != null && token.isCancelled());
+  }
+
+  /** Tells {@code listener}, if any, about {@code best}; {@code false} means stop. */
+  private static boolean report(
+      ImprovementListener listener, Candidate best, long iterations, long start) {
+    return listener == null || listener.onImprovement(result(best, iterations, start));
+  }
+
+  private static SearchResult result(Candidate best, long iterations, long start) {
     long elapsedMillis = (System.nanoTime() - start) / 1_000_000L;
     return new SearchResult(
         SudokuBoard.fromBytes(best.puzzle),
@@ -133,16 +175,19 @@ public final class TargetPuzzleSearch {
         best.delta);
   }
 
+  /**
+   * Counts {@code puzzle} into the reused {@code analysis}. The returned candidate shares {@code
+   * puzzle}, which the caller keeps mutating; {@link Candidate#snapshot} it before keeping it.
+   */
   private Candidate evaluate(
       byte[] puzzle,
       BigInteger target,
       SolverOptions options,
       long deadlineNanos,
-      boolean limitImpliesOverTarget) {
-    byte[] snapshot = puzzle.clone();
-    SudokuBoard board = SudokuBoard.fromBytes(snapshot);
+      boolean limitImpliesOverTarget,
+      AnalysisResult analysis) {
     SolverOptions timedOptions = options.withDeadlineNanos(deadlineNanos);
-    SudokuAnalysis analysis = solver.analyze(board, timedOptions);
+    solver.analyzeInto(puzzle, timedOptions, analysis);
     BigInteger count = analysis.solutionCount();
     boolean approximate = analysis.limitReached();
     boolean maxSolutionsHit =
@@ -153,7 +198,7 @@ public final class TargetPuzzleSearch {
         (!approximate && count.compareTo(target) > 0)
             || (maxSolutionsHit && limitImpliesOverTarget);
     BigInteger delta = count.subtract(target).abs();
-    return new Candidate(snapshot, count, approximate, overTarget, delta, countClues(snapshot));
+    return new Candidate(puzzle, count, approximate, overTarget, delta, countClues(puzzle));
   }
 
   private int resolveMaxSolutions(BigInteger target, int maxSolutions) {
@@ -303,5 +348,10 @@ public final class TargetPuzzleSearch {
       this.delta = delta;
       this.clueCount = clueCount;
     }
+
+    private Candidate snapshot() {
+      return new Candidate(
+          puzzle.clone(), solutionCount, approximate, overTarget, delta, clueCount);
+    }
   }
 }
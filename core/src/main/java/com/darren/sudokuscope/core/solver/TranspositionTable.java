@@ -0,0 +1,140 @@
+package com.darren.sudokuscope.core.solver;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of subproblem counts keyed on packed search states. Buckets hold two entries; a new
+ * entry replaces the one that cost the least work to compute, so large subtrees survive longer. The
+ * table starts small and doubles until it reaches its maximum size, and {@link #clear} keeps the
+ * capacity it has grown to, so a table reused for the next count is not allocated again.
+ */
+final class TranspositionTable {
+  static final int KEY_WORDS = 6;
+  private static final int INITIAL_CAPACITY = 1 << 12;
+  private static final long ABSENT = -1L;
+
+  private final int maxCapacity;
+  private long[] keys;
+  private long[] counts;
+  private long[] work;
+  private int capacity;
+  private int size;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  TranspositionTable(int maxEntries) {
+    if (maxEntries < 2) {
+      throw new IllegalArgumentException("maxEntries must be >= 2");
+    }
+    this.maxCapacity = Integer.highestOneBit(maxEntries);
+    allocate(Math.min(INITIAL_CAPACITY, maxCapacity));
+  }
+
+  /** Returns the cached count for {@code key}, or -1 when it is not cached. */
+  long get(long[] key) {
+    int slot = bucketOf(key);
+    for (int i = slot; i < slot + 2; i++) {
+      if (counts[i] != ABSENT && matches(i, key)) {
+        hits++;
+        return counts[i];
+      }
+    }
+    misses++;
+    return ABSENT;
+  }
+
+  void put(long[] key, long count, long cost) {
+    if (size >= capacity / 2 && capacity < maxCapacity) {
+      resize(capacity * 2);
+    }
+    insert(key, count, cost, true);
+  }
+
+  /** Empties the table and resets its statistics, keeping its current capacity. */
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(counts, ABSENT);
+      size = 0;
+    }
+    hits = 0L;
+    misses = 0L;
+    evictions = 0L;
+  }
+
+  long hits() {
+    return hits;
+  }
+
+  long misses() {
+    return misses;
+  }
+
+  long evictions() {
+    return evictions;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void insert(long[] key, long count, long cost, boolean track) {
+    int slot = bucketOf(key);
+    int target = slot;
+    if (counts[slot] != ABSENT && counts[slot + 1] == ABSENT) {
+      target = slot + 1;
+    } else if (counts[slot] != ABSENT) {
+      target = work[slot] <= work[slot + 1] ? slot : slot + 1;
+      if (track) {
+        evictions++;
+      }
+      size--;
+    }
+    System.arraycopy(key, 0, keys, target * KEY_WORDS, KEY_WORDS);
+    counts[target] = count;
+    work[target] = cost;
+    size++;
+  }
+
+  private void resize(int newCapacity) {
+    long[] oldKeys = keys;
+    long[] oldCounts = counts;
+    long[] oldWork = work;
+    allocate(newCapacity);
+    long[] key = new long[KEY_WORDS];
+    for (int i = 0; i < oldCounts.length; i++) {
+      if (oldCounts[i] != ABSENT) {
+        System.arraycopy(oldKeys, i * KEY_WORDS, key, 0, KEY_WORDS);
+        insert(key, oldCounts[i], oldWork[i], false);
+      }
+    }
+  }
+
+  private void allocate(int newCapacity) {
+    capacity = newCapacity;
+    size = 0;
+    keys = new long[newCapacity * KEY_WORDS];
+    counts = new long[newCapacity];
+    work = new long[newCapacity];
+    Arrays.fill(counts, ABSENT);
+  }
+
+  private boolean matches(int slot, long[] key) {
+    int base = slot * KEY_WORDS;
+    for (int i = 0; i < KEY_WORDS; i++) {
+      if (keys[base + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int bucketOf(long[] key) {
+    long hash = 0x9E3779B97F4A7C15L;
+    for (long word : key) {
+      hash = (hash ^ word) * 0xBF58476D1CE4E5B9L;
+      hash ^= hash >>> 31;
+    }
+    return (int) (hash & (capacity - 2));
+  }
+}
@@ -0,0 +1,121 @@
+package com.darren.sudokuscope.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import com.darren.sudokuscope.core.solver.SudokuSolver;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CanonicalFormTest {
+  private static final SudokuBoard PUZZLE =
+      new BoardBuilder()
+          .withStringRows(
+              List.of(
+                  "800000000",
+                  "003600000",
+                  "070090200",
+                  "050007000",
+                  "000045700",
+                  "000100030",
+                  "001000068",
+                  "008500010",
+                  "090000400"))
+          .build();
+
+  private static final BoardSymmetry SHUFFLE =
+      BoardSymmetry.of(
+          true,
+          new int[] {5, 3, 4, 8, 6, 7, 1, 0, 2},
+          new int[] {2, 1, 0, 6, 8, 7, 4, 3, 5},
+          new int[] {4, 9, 2, 7, 1, 3, 8, 6, 5});
+
+  @Test
+  void symmetricBoardsShareOneCanonicalBoard() {
+    SudokuBoard shuffled = SHUFFLE.apply(PUZZLE);
+
+    assertThat(shuffled).isNotEqualTo(PUZZLE);
+    assertThat(shuffled.canonicalForm().board()).isEqualTo(PUZZLE.canonicalForm().board());
+  }
+
+  @Test
+  void symmetryMapsTheBoardToItsCanonicalBoardAndBack() {
+    SudokuBoard shuffled = SHUFFLE.apply(PUZZLE);
+    CanonicalForm form = shuffled.canonicalForm();
+
+    assertThat(form.symmetry().apply(shuffled)).isEqualTo(form.board());
+    assertThat(form.toOriginal(form.board())).isEqualTo(shuffled);
+    assertThat(SHUFFLE.inverse().apply(shuffled)).isEqualTo(PUZZLE);
+    assertThat(form.board().canonicalForm().board()).isEqualTo(form.board());
+  }
+
+  @Test
+  void canonicalBoardKeepsTheSolutionCountAndSolutionsMapBack() {
+    SudokuBoard board =
+        SHUFFLE.apply(
+            new BoardBuilder()
+                .withStringRows(
+                    List.of(
+                        "534678912",
+                        "672195348",
+                        "198342567",
+                        "859761423",
+                        "426853791",
+                        "713924856",
+                        "000000000",
+                        "000000000",
+                        "000000000"))
+                .build());
+    CanonicalForm form = board.canonicalForm();
+    SudokuSolver solver = SudokuSolver.createDefault();
+    SolverOptions options = new SolverOptions(-1, true, true, 0L);
+
+    SudokuAnalysis original = solver.analyze(board, options);
+    SudokuAnalysis canonical = solver.analyze(form.board(), options);
+
+    assertThat(canonical.solutionCount())
+        .isEqualTo(original.solutionCount())
+        .isEqualTo(BigInteger.valueOf(120));
+    SudokuBoard solution = form.toOriginal(canonical.exemplarSolution().orElseThrow());
+    assertThat(solution.isComplete()).isTrue();
+    assertThat(BoardValidator.isValid(solution)).isTrue();
+    board.forEachCell(
+        (position, value) -> {
+          if (value != 0) {
+            assertThat(solution.valueAt(position)).isEqualTo(value);
+          }
+        });
+  }
+
+  @Test
+  void emptyAndCompleteBoardsHaveCanonicalForms() {
+    assertThat(SudokuBoard.empty().canonicalForm().board()).isEqualTo(SudokuBoard.empty());
+
+    SudokuBoard solved =
+        new BoardBuilder()
+            .withCanonicalString(
+                "534678912672195348198342567859761423426853791713924856961537284287419635345286179")
+            .build();
+    SudokuBoard canonical = solved.canonicalForm().board();
+    assertThat(canonical.toCanonicalString()).startsWith("123456789");
+    assertThat(SHUFFLE.apply(solved).canonicalForm().board()).isEqualTo(canonical);
+  }
+
+  @Test
+  void symmetryRejectsOrdersThatSplitABand() {
+    int[] identity = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+    assertThatThrownBy(
+            () ->
+                BoardSymmetry.of(
+                    false, new int[] {0, 1, 3, 2, 4, 5, 6, 7, 8}, identity, new int[9]))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () ->
+                BoardSymmetry.of(false, identity, identity, new int[] {1, 1, 2, 3, 4, 5, 6, 7, 8}))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
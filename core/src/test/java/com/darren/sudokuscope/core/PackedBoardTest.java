@@ -0,0 +1,64 @@
+package com.darren.sudokuscope.core;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class PackedBoardTest {
+  private static final String SOLVED =
+      "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+  @Test
+  void holdsTheSameCellsAsTheBoardItPacks() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 100; trial++) {
+      byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+      for (int i = 0; i < cells.length; i++) {
+        cells[i] = (byte) random.nextInt(10);
+      }
+      SudokuBoard board = SudokuBoard.fromBytes(cells);
+      PackedBoard packed = PackedBoard.of(board);
+
+      assertThat(ReadableBoard.sameCells(packed, board)).isTrue();
+      assertThat(packed.toBoard()).isEqualTo(board);
+      assertThat(packed.toCanonicalString()).isEqualTo(board.toCanonicalString());
+      assertThat(packed).isEqualTo(PackedBoard.fromBytes(cells)).hasSameHashCodeAs(packed);
+    }
+  }
+
+  @Test
+  void withValueChangesOneCell() {
+    PackedBoard board = PackedBoard.empty();
+    PackedBoard last = board.withValue(new CellPosition(8, 8), 9);
+    PackedBoard first = last.withValue(new CellPosition(0, 0), 4).clear(new CellPosition(8, 8));
+
+    assertThat(board.isEmptyBoard()).isTrue();
+    assertThat(last.valueAt(8, 8)).isEqualTo(9);
+    assertThat(first.valueAt(0, 0)).isEqualTo(4);
+    assertThat(first.valueAt(8, 8)).isZero();
+    assertThat(first).isNotEqualTo(last).isEqualTo(board.withValue(new CellPosition(0, 0), 4));
+    assertThatThrownBy(() -> board.withValue(new CellPosition(0, 0), 10))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void completenessChecksEveryCell() {
+    PackedBoard solved = PackedBoard.fromBytes(digits(SOLVED));
+
+    assertThat(solved.isComplete()).isTrue();
+    for (int i = 0; i < SudokuBoard.CELL_COUNT; i++) {
+      CellPosition position = new CellPosition(i / SudokuBoard.SIZE, i % SudokuBoard.SIZE);
+      assertThat(solved.clear(position).isComplete()).as("cell %d cleared", i).isFalse();
+    }
+  }
+
+  private static byte[] digits(String text) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) (text.charAt(i) - '0');
+    }
+    return cells;
+  }
+}
@@ -0,0 +1,69 @@
+package com.darren.sudokuscope.core.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.SudokuFacts;
+import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SudokuAnalysis;
+import com.darren.sudokuscope.core.solver.SudokuSolver;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class AnalysisCodecTest {
+  private static final String PUZZLE =
+      "530070000600195000098000060800060003400803001700020006000419005000080079000000000";
+
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+
+  @Test
+  void roundTripsSolverResults() {
+    SudokuBoard puzzle = board(PUZZLE);
+    SudokuAnalysis withSolution = solver.analyze(puzzle, new SolverOptions(2, true, true, 0L));
+    SudokuAnalysis bounded =
+        solver.analyze(
+            SudokuBoard.empty().withValue(new CellPosition(0, 0), 1),
+            new SolverOptions(5, false, true, 0L));
+    SudokuAnalysis empty =
+        SudokuAnalysis.emptyBoard(SudokuBoard.empty(), SudokuFacts.TOTAL_COMPLETED_GRIDS);
+    SudokuAnalysis invalid = SudokuAnalysis.invalid(puzzle, "Zeile doppelt \u2013 ung\u00fcltig");
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+    int expectedBytes = 0;
+    for (SudokuAnalysis analysis : new SudokuAnalysis[] {withSolution, bounded, empty, invalid}) {
+      AnalysisCodec.encode(analysis, buffer);
+      expectedBytes += AnalysisCodec.encodedBytes(analysis);
+    }
+
+    assertThat(buffer.position()).isEqualTo(expectedBytes);
+    buffer.flip();
+    assertThat(AnalysisCodec.decode(buffer)).isEqualTo(withSolution);
+    assertThat(AnalysisCodec.decode(buffer)).isEqualTo(bounded);
+    assertThat(AnalysisCodec.decode(buffer)).isEqualTo(empty);
+    assertThat(AnalysisCodec.decode(buffer)).isEqualTo(invalid);
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  void rejectsAnUnknownFormatVersion() {
+    ByteBuffer buffer = ByteBuffer.allocate(256);
+    AnalysisCodec.encode(solver.analyze(board(PUZZLE), SolverOptions.defaultOptions()), buffer);
+    buffer.flip();
+    buffer.put(0, (byte) (AnalysisCodec.FORMAT_VERSION + 1));
+
+    assertThatThrownBy(() -> AnalysisCodec.decode(buffer))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("format");
+    assertThat(buffer.position()).isZero();
+  }
+
+  private static SudokuBoard board(String digits) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) (digits.charAt(i) - '0');
+    }
+    return SudokuBoard.fromBytes(cells);
+  }
+}
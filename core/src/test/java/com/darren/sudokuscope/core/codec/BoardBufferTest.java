@@ -0,0 +1,53 @@
+package com.darren.sudokuscope.core.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.PackedBoard;
+import com.darren.sudokuscope.core.ReadableBoard;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BoardBufferTest {
+  @Test
+  void viewsReadTheBoardsInPlace() {
+    List<SudokuBoard> boards = new ArrayList<>();
+    ByteBuffer bytes = ByteBuffer.allocateDirect(9 * BoardCodec.DENSE_BYTES);
+    for (int digit = 1; digit <= 9; digit++) {
+      SudokuBoard board = SudokuBoard.empty().withValue(new CellPosition(digit - 1, 8), digit);
+      boards.add(board);
+      BoardCodec.encodeDense(board, bytes);
+    }
+    BoardBuffer buffer = BoardBuffer.wrap(bytes.flip());
+
+    assertThat(buffer.size()).isEqualTo(9);
+    BoardBuffer.View view = buffer.view(0);
+    for (int i = 0; i < buffer.size(); i++) {
+      assertThat(ReadableBoard.sameCells(view.moveTo(i), boards.get(i))).isTrue();
+    }
+    assertThat(view.toBoard()).isEqualTo(boards.get(8));
+    assertThat(PackedBoard.of(view)).isEqualTo(PackedBoard.of(boards.get(8)));
+
+    List<String> seen = new ArrayList<>();
+    buffer.forEach(board -> seen.add(board.toCanonicalString()));
+    assertThat(seen)
+        .containsExactlyElementsOf(boards.stream().map(SudokuBoard::toCanonicalString).toList());
+  }
+
+  @Test
+  void rejectsPartialBoardsAndBadCells() {
+    assertThatThrownBy(() -> BoardBuffer.wrap(ByteBuffer.allocate(BoardCodec.DENSE_BYTES + 1)))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    ByteBuffer bytes = ByteBuffer.allocate(BoardCodec.DENSE_BYTES);
+    bytes.put(3, (byte) 0xB0); // cell 7 holds 11
+    BoardBuffer.View view = BoardBuffer.wrap(bytes).view(0);
+    assertThat(view.valueAt(0, 6)).isZero();
+    assertThatThrownBy(() -> view.valueAt(0, 7)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> view.moveTo(1)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
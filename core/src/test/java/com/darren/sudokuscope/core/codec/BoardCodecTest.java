@@ -0,0 +1,87 @@
+package com.darren.sudokuscope.core.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import org.junit.jupiter.api.Test;
+
+class BoardCodecTest {
+  private static final SudokuBoard SOLVED =
+      board("534678912672195348198342567859761423426853791713924856961537284287419635345286179");
+  private static final SudokuBoard SEVENTEEN_CLUES =
+      board("000000010400000000020000000000050407008000300001090000300400200050100000000806000");
+
+  @Test
+  void denseRoundTripsInFortyOneBytes() {
+    ByteBuffer buffer = ByteBuffer.allocate(2 * BoardCodec.DENSE_BYTES);
+    BoardCodec.encodeDense(SOLVED, buffer);
+    BoardCodec.encodeDense(SudokuBoard.empty(), buffer);
+
+    assertThat(buffer.position()).isEqualTo(82);
+    assertThat(buffer.get(0)).isEqualTo((byte) 0x35); // cells 5 and 3, the even cell low
+    buffer.flip();
+    assertThat(BoardCodec.decodeDense(buffer)).isEqualTo(SOLVED);
+    assertThat(BoardCodec.decodeDense(buffer)).isEqualTo(SudokuBoard.empty());
+    assertThat(buffer.hasRemaining()).isFalse();
+  }
+
+  @Test
+  void sparseTakesABitmapAndHalfAByteAClue() {
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    BoardCodec.encodeSparse(SEVENTEEN_CLUES, buffer);
+
+    assertThat(BoardCodec.sparseBytes(SEVENTEEN_CLUES)).isEqualTo(20);
+    assertThat(buffer.position()).isEqualTo(20);
+    buffer.flip();
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    BoardCodec.decodeSparse(buffer, cells);
+    assertThat(cells).isEqualTo(SEVENTEEN_CLUES.toByteArray());
+  }
+
+  @Test
+  void taggedEncodingPicksTheShorterForm() {
+    ByteBuffer buffer = ByteBuffer.allocate(3 * BoardCodec.MAX_ENCODED_BYTES);
+    for (SudokuBoard board : new SudokuBoard[] {SEVENTEEN_CLUES, SOLVED, SudokuBoard.empty()}) {
+      BoardCodec.encode(board, buffer);
+    }
+
+    assertThat(buffer.position()).isEqualTo(21 + 42 + 12);
+    buffer.flip();
+    assertThat(BoardCodec.decode(buffer)).isEqualTo(SEVENTEEN_CLUES);
+    assertThat(BoardCodec.decode(buffer)).isEqualTo(SOLVED);
+    assertThat(BoardCodec.decode(buffer)).isEqualTo(SudokuBoard.empty());
+  }
+
+  @Test
+  void failuresLeaveTheBufferPositionUnchanged() {
+    ByteBuffer small = ByteBuffer.allocate(BoardCodec.DENSE_BYTES - 1);
+    assertThatThrownBy(() -> BoardCodec.encodeDense(SOLVED, small))
+        .isInstanceOf(BufferOverflowException.class);
+    assertThat(small.position()).isZero();
+
+    ByteBuffer truncated = ByteBuffer.allocate(BoardCodec.MAX_ENCODED_BYTES);
+    BoardCodec.encode(SEVENTEEN_CLUES, truncated);
+    truncated.flip().limit(truncated.limit() - 1);
+    assertThatThrownBy(() -> BoardCodec.decode(truncated))
+        .isInstanceOf(BufferUnderflowException.class);
+    assertThat(truncated.position()).isZero();
+
+    ByteBuffer corrupt = ByteBuffer.allocate(BoardCodec.DENSE_BYTES);
+    corrupt.put(0, (byte) 0x0A);
+    assertThatThrownBy(() -> BoardCodec.decodeDense(corrupt))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThat(corrupt.position()).isZero();
+  }
+
+  private static SudokuBoard board(String digits) {
+    byte[] cells = new byte[SudokuBoard.CELL_COUNT];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) (digits.charAt(i) - '0');
+    }
+    return SudokuBoard.fromBytes(cells);
+  }
+}
@@ -0,0 +1,104 @@
+package com.darren.sudokuscope.core.simd;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.Optional;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class CellKernelsTest {
+  private static final String SOLVED =
+      "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+  private final CellKernels scalar = CellKernels.scalar();
+
+  @Test
+  void detectsDuplicatesInEveryUnitKind() {
+    byte[] row = new byte[81];
+    row[0] = 4;
+    row[8] = 4;
+    byte[] column = new byte[81];
+    column[2] = 7;
+    column[74] = 7;
+    byte[] box = new byte[81];
+    box[30] = 9;
+    box[50] = 9;
+
+    assertThat(scalar.hasDuplicates(grid(SOLVED))).isFalse();
+    assertThat(scalar.hasDuplicates(row)).isTrue();
+    assertThat(scalar.hasDuplicates(column)).isTrue();
+    assertThat(scalar.hasDuplicates(box)).isTrue();
+  }
+
+  @Test
+  void buildsPlanesFromUnitMasks() {
+    int[] rowMasks = new int[9];
+    int[] columnMasks = new int[9];
+    int[] boxMasks = new int[9];
+    rowMasks[0] = 0b1; // digit 1 placed in row 0
+    columnMasks[0] = 0b10; // digit 2 placed in column 0
+    boxMasks[8] = 0b100; // digit 3 placed in the last box
+    long[] planesLow = new long[9];
+    long[] planesHigh = new long[9];
+
+    scalar.candidatePlanes(rowMasks, columnMasks, boxMasks, 0b11L, 1L << 16, planesLow, planesHigh);
+
+    assertThat(planesLow[0]).isZero();
+    assertThat(planesLow[1]).isEqualTo(0b10L);
+    assertThat(planesLow[2]).isEqualTo(0b11L);
+    assertThat(planesHigh[2]).isZero(); // cell 80 sits in the last box
+    assertThat(planesHigh[3]).isEqualTo(1L << 16);
+  }
+
+  @Test
+  void vectorKernelsMatchScalarKernels() {
+    Optional<CellKernels> vector = CellKernels.vector();
+    assumeTrue(vector.isPresent(), "Vector API not enabled");
+    CellKernels kernels = vector.orElseThrow();
+    Random random = new Random(42);
+
+    for (int trial = 0; trial < 5_000; trial++) {
+      byte[] cells = new byte[81];
+      for (int i = random.nextInt(30); i > 0; i--) {
+        cells[random.nextInt(81)] = (byte) (1 + random.nextInt(9));
+      }
+      assertThat(kernels.hasDuplicates(cells)).isEqualTo(scalar.hasDuplicates(cells));
+
+      int[] rowMasks = randomMasks(random);
+      int[] columnMasks = randomMasks(random);
+      int[] boxMasks = randomMasks(random);
+      long emptyLow = random.nextLong() & random.nextLong();
+      long emptyHigh = random.nextLong() & random.nextLong() & ((1L << 17) - 1);
+      long[] expectedLow = new long[9];
+      long[] expectedHigh = new long[9];
+      long[] actualLow = new long[9];
+      long[] actualHigh = new long[9];
+      scalar.candidatePlanes(
+          rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh, expectedLow, expectedHigh);
+      kernels.candidatePlanes(
+          rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh, actualLow, actualHigh);
+
+      assertThat(actualLow).containsExactly(expectedLow);
+      assertThat(actualHigh).containsExactly(expectedHigh);
+      assertThat(kernels.fewestCandidates(rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh))
+          .isEqualTo(scalar.fewestCandidates(rowMasks, columnMasks, boxMasks, emptyLow, emptyHigh));
+    }
+  }
+
+  private static int[] randomMasks(Random random) {
+    int[] masks = new int[9];
+    for (int i = 0; i < masks.length; i++) {
+      masks[i] = random.nextInt(512) & random.nextInt(512);
+    }
+    return masks;
+  }
+
+  private static byte[] grid(String digits) {
+    byte[] cells = new byte[81];
+    for (int i = 0; i < cells.length; i++) {
+      cells[i] = (byte) (digits.charAt(i) - '0');
+    }
+    return cells;
+  }
+}
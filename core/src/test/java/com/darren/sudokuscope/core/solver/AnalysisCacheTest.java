@@ -0,0 +1,127 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.BoardSymmetry;
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class AnalysisCacheTest {
+  private static final BoardSymmetry SHUFFLE =
+      BoardSymmetry.of(
+          true,
+          new int[] {5, 3, 4, 8, 6, 7, 1, 0, 2},
+          new int[] {2, 1, 0, 6, 8, 7, 4, 3, 5},
+          new int[] {4, 9, 2, 7, 1, 3, 8, 6, 5});
+
+  /** The solved grid with its first two rows cleared: four solutions. */
+  private static final SudokuBoard FOUR_SOLUTIONS =
+      new BoardBuilder()
+          .withStringRows(
+              List.of(
+                  "000000000",
+                  "000000000",
+                  "198342567",
+                  "859761423",
+                  "426853791",
+                  "713924856",
+                  "961537284",
+                  "287419635",
+                  "345286179"))
+          .build();
+
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+
+  @Test
+  void symmetricBoardHitsAndGetsItsOwnSolution() {
+    SudokuBoard puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "800000000",
+                    "003600000",
+                    "070090200",
+                    "050007000",
+                    "000045700",
+                    "000100030",
+                    "001000068",
+                    "008500010",
+                    "090000400"))
+            .build();
+    AnalysisCache cache = new AnalysisCache(8);
+    cache.store(puzzle, solver.analyze(puzzle, SolverOptions.uniquenessProbe()));
+    SudokuBoard shuffled = SHUFFLE.apply(puzzle);
+
+    SudokuAnalysis hit = cache.lookup(shuffled, SolverOptions.uniquenessProbe()).orElseThrow();
+
+    assertThat(hit.initialBoard()).isEqualTo(shuffled);
+    assertThat(hit.status()).isEqualTo(SolverStatus.UNIQUE_SOLUTION);
+    SudokuBoard solution = hit.exemplarSolution().orElseThrow();
+    assertThat(solution.isComplete()).isTrue();
+    assertThat(BoardValidator.isValid(solution)).isTrue();
+    shuffled.forEachCell(
+        (position, value) -> {
+          if (value != 0) {
+            assertThat(solution.valueAt(position)).isEqualTo(value);
+          }
+        });
+  }
+
+  @Test
+  void exactCountAnswersSmallerLimitsAsLimited() {
+    AnalysisCache cache = new AnalysisCache(8);
+    cache.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, SolverOptions.defaultOptions()));
+
+    SudokuAnalysis limited =
+        cache.lookup(FOUR_SOLUTIONS, SolverOptions.uniquenessProbe()).orElseThrow();
+    SudokuAnalysis exact =
+        cache
+            .lookup(FOUR_SOLUTIONS, SolverOptions.defaultOptions().withMaxSolutions(-1))
+            .orElseThrow();
+
+    SudokuAnalysis searched = solver.analyze(FOUR_SOLUTIONS, SolverOptions.uniquenessProbe());
+    assertThat(limited.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(limited.solutionCount()).isEqualTo(BigInteger.TWO);
+    assertThat(limited.limitReached()).isTrue();
+    assertThat(limited.message()).isEqualTo(searched.message());
+    assertThat(exact.limitReached()).isFalse();
+    assertThat(exact.solutionCount()).isEqualTo(BigInteger.valueOf(4));
+  }
+
+  @Test
+  void limitedResultDoesNotAnswerLargerLimits() {
+    AnalysisCache cache = new AnalysisCache(8);
+    cache.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, SolverOptions.uniquenessProbe()));
+
+    Optional<SudokuAnalysis> smaller =
+        cache.lookup(FOUR_SOLUTIONS, SolverOptions.findFirstSolution());
+    Optional<SudokuAnalysis> larger = cache.lookup(FOUR_SOLUTIONS, SolverOptions.defaultOptions());
+
+    assertThat(smaller).get().extracting(SudokuAnalysis::limitReached).isEqualTo(true);
+    assertThat(larger).isEmpty();
+    assertThat(cache.stats().hits()).isEqualTo(1);
+    assertThat(cache.stats().misses()).isEqualTo(1);
+  }
+
+  @Test
+  void evictsTheLeastRecentlyUsedEntry() {
+    SudokuBoard other = FOUR_SOLUTIONS.withValue(new CellPosition(0, 0), 5);
+    AnalysisCache cache = new AnalysisCache(1);
+    SolverOptions options = SolverOptions.defaultOptions();
+    cache.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, options));
+    cache.store(other, solver.analyze(other, options));
+
+    assertThat(cache.lookup(FOUR_SOLUTIONS, options)).isEmpty();
+    assertThat(cache.lookup(other, options)).isPresent();
+    assertThat(cache.stats())
+        .isEqualTo(new AnalysisCache.Stats(1, 1, 1, 1, 1))
+        .extracting(AnalysisCache.Stats::hitRatio)
+        .isEqualTo(0.5);
+  }
+}
@@ -1,5 +1,6 @@
 package com.darren.sudokuscope.core.solver;
 
+import static java.util.stream.Collectors.toSet;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.darren.sudokuscope.core.BoardBuilder;
@@ -7,7 +8,9 @@ import com.darren.sudokuscope.core.BoardValidator;
 import com.darren.sudokuscope.core.SudokuBoard;
 import com.darren.sudokuscope.core.SudokuFacts;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 
 class BacktrackingSudokuSolverTest {
@@ -67,4 +70,240 @@ class BacktrackingSudokuSolverTest {
     assertThat(analysis.solutionCount()).isEqualByComparingTo(BigInteger.valueOf(2));
     assertThat(analysis.limitReached()).isTrue();
   }
+
+  @Test
+  void everyPropagationLevelFindsTheSameSolutions() {
+    SudokuBoard hard =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "800000000",
+                    "003600000",
+                    "070090200",
+                    "050007000",
+                    "000045700",
+                    "000100030",
+                    "001000068",
+                    "008500010",
+                    "090000400"))
+            .build();
+    SudokuBoard eightSolutions =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "000000938",
+                    "000000162",
+                    "000000457",
+                    "739254000",
+                    "254861000",
+                    "861739000",
+                    "318597624",
+                    "642318579",
+                    "597642381"))
+            .build();
+    SolverOptions unlimited = SolverOptions.defaultOptions().withMaxSolutions(-1);
+
+    for (PropagationLevel level : PropagationLevel.values()) {
+      SolverOptions options = unlimited.withPropagation(level);
+      SudokuAnalysis unique = solver.analyze(hard, options);
+      SudokuAnalysis multiple = solver.analyze(eightSolutions, options);
+
+      assertThat(unique.status()).as(level.name()).isEqualTo(SolverStatus.UNIQUE_SOLUTION);
+      assertThat(BoardValidator.isValid(unique.exemplarSolution().orElseThrow())).isTrue();
+      assertThat(multiple.solutionCount())
+          .as(level.name())
+          .isEqualByComparingTo(BigInteger.valueOf(8));
+    }
+  }
+
+  @Test
+  void parallelCountMatchesSequentialCount() {
+    SudokuBoard puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "000000000",
+                    "000000000",
+                    "000000000"))
+            .build();
+    SolverOptions sequential = SolverOptions.defaultOptions().withMaxSolutions(-1);
+
+    SudokuAnalysis expected = solver.analyze(puzzle, sequential);
+    SudokuAnalysis parallel = solver.analyze(puzzle, sequential.withParallelism(4));
+
+    assertThat(parallel.status()).isEqualTo(SolverStatus.MULTIPLE_SOLUTIONS);
+    assertThat(parallel.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+    assertThat(parallel.exemplarSolution()).isPresent();
+    assertThat(BoardValidator.isValid(parallel.exemplarSolution().orElseThrow())).isTrue();
+  }
+
+  @Test
+  void parallelCountRespectsSolutionLimit() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 0, 0, 0, 0, 0, 0, 0, 0).build();
+    SolverOptions options = SolverOptions.defaultOptions().withMaxSolutions(500).withParallelism(4);
+
+    SudokuAnalysis analysis = solver.analyze(sparse, options);
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(BigInteger.valueOf(500));
+  }
+
+  @Test
+  void parallelCountsShareOnePoolWhateverTheirParallelism() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 0, 0, 0, 0, 0, 0, 0, 0).build();
+    SolverOptions options = SolverOptions.defaultOptions().withMaxSolutions(500);
+
+    for (int parallelism = 2; parallelism <= 64; parallelism++) {
+      SudokuAnalysis analysis = solver.analyze(sparse, options.withParallelism(parallelism));
+      assertThat(analysis.solutionCount()).isEqualByComparingTo(BigInteger.valueOf(500));
+    }
+
+    long workers =
+        Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().startsWith("sudoku-count-"))
+            .count();
+    assertThat(workers).isLessThanOrEqualTo(Runtime.getRuntime().availableProcessors());
+  }
+
+  @Test
+  void reusedResultHolderMatchesAnalyze() {
+    SudokuBoard classic =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "060000280",
+                    "000419005",
+                    "000080079"))
+            .build();
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 0, 0, 0, 0, 0, 0, 0, 0).build();
+    SudokuBoard invalid = new BoardBuilder().withRow(0, 1, 1, 0, 0, 0, 0, 0, 0, 0).build();
+    SolverOptions options = SolverOptions.defaultOptions().withMaxSolutions(3);
+    AnalysisResult result = new AnalysisResult();
+
+    for (SudokuBoard board : List.of(classic, sparse, invalid, SudokuBoard.empty(), classic)) {
+      byte[] cells = board.toByteArray();
+      SudokuAnalysis expected = solver.analyze(board, options);
+
+      solver.analyzeInto(cells, options, result);
+
+      assertThat(result.toAnalysis(board)).isEqualTo(expected);
+      assertThat(cells).containsExactly(board.toByteArray());
+    }
+  }
+
+  @Test
+  void solutionStreamEnumeratesEverySolution() {
+    SudokuBoard eightSolutions =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "000000938",
+                    "000000162",
+                    "000000457",
+                    "739254000",
+                    "254861000",
+                    "861739000",
+                    "318597624",
+                    "642318579",
+                    "597642381"))
+            .build();
+    SolverOptions options = SolverOptions.defaultOptions();
+
+    Set<SudokuBoard> sequential = solver.solutions(eightSolutions, options).collect(toSet());
+    Set<SudokuBoard> parallel =
+        solver.solutions(eightSolutions, options).parallel().collect(toSet());
+
+    assertThat(sequential).hasSize(8).allMatch(BoardValidator::isValid);
+    assertThat(parallel).isEqualTo(sequential);
+  }
+
+  @Test
+  void solutionStreamStopsAtLimit() {
+    List<SudokuBoard> first =
+        solver.solutions(SudokuBoard.empty(), SolverOptions.defaultOptions()).limit(5).toList();
+
+    assertThat(first).hasSize(5).doesNotHaveDuplicates().allMatch(SudokuBoard::isComplete);
+  }
+
+  @Test
+  void solutionStreamStopsAtNodeBudget() {
+    SolverOptions options = SolverOptions.defaultOptions().withNodeBudget(10_000);
+
+    // The empty board has far more solutions than any budget reaches, so only the budget ends it.
+    long sequential = solver.solutions(SudokuBoard.empty(), options).count();
+    long parallel = solver.solutions(SudokuBoard.empty(), options).parallel().count();
+
+    assertThat(sequential).isPositive().isLessThan(100_000);
+    assertThat(parallel).isPositive().isLessThan(100_000);
+  }
+
+  @Test
+  void progressListenerSeesTheSearchAndCanStopIt() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    List<SolverProgress> reports = new ArrayList<>();
+    SolverOptions options =
+        SolverOptions.defaultOptions()
+            .withMaxSolutions(-1)
+            .withProgressListener(
+                progress -> {
+                  reports.add(progress);
+                  return reports.size() < 3;
+                },
+                1);
+
+    SudokuAnalysis analysis = solver.analyze(sparse, options);
+
+    assertThat(reports).hasSize(3);
+    assertThat(reports.get(2).exploredNodes()).isGreaterThan(reports.get(0).exploredNodes());
+    assertThat(reports.get(2).solutionsFound()).isPositive();
+    assertThat(reports)
+        .allSatisfy(progress -> assertThat(progress.fractionExplored()).isBetween(0d, 1d));
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.message()).isEqualTo("Stopped on request");
+  }
+
+  @Test
+  void nodeBudgetStopsSequentialAndParallelSearches() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    SolverOptions options =
+        SolverOptions.defaultOptions().withMaxSolutions(-1).withNodeBudget(20_000);
+
+    SudokuAnalysis sequential = solver.analyze(sparse, options);
+    SudokuAnalysis parallel = solver.analyze(sparse, options.withParallelism(4));
+
+    assertThat(sequential.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(sequential.message()).isEqualTo("Stopped after reaching node budget");
+    assertThat(sequential.exploredNodes()).isBetween(20_000L, 22_000L);
+    assertThat(parallel.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(parallel.message()).isEqualTo("Stopped after reaching node budget");
+  }
+
+  @Test
+  void cancelledTokenStopsTheSearch() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    CancellationToken token = new CancellationToken();
+    token.cancel();
+    SolverOptions options =
+        SolverOptions.defaultOptions().withMaxSolutions(-1).withCancellationToken(token.child());
+
+    SudokuAnalysis sequential = solver.analyze(sparse, options);
+    SudokuAnalysis parallel = solver.analyze(sparse, options.withParallelism(4));
+
+    assertThat(sequential.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(sequential.message()).isEqualTo("Stopped on request");
+    assertThat(parallel.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(parallel.message()).isEqualTo("Stopped on request");
+  }
 }
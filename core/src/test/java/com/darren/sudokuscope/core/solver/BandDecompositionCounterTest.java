@@ -0,0 +1,102 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.SudokuFacts;
+import java.math.BigInteger;
+import org.junit.jupiter.api.Test;
+
+class BandDecompositionCounterTest {
+  private static final SolverOptions UNLIMITED =
+      SolverOptions.defaultOptions().withMaxSolutions(-1);
+
+  private final SudokuSolver solver = SudokuSolver.create(SolverStrategy.BAND_DECOMPOSITION);
+
+  @Test
+  void countsEmptyBoardExactly() {
+    SudokuAnalysis analysis =
+        solver.analyze(SudokuBoard.empty(), UNLIMITED.withoutEmptyBoardShortcut());
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.MULTIPLE_SOLUTIONS);
+    assertThat(analysis.solutionCount()).isEqualTo(SudokuFacts.TOTAL_COMPLETED_GRIDS);
+    assertThat(analysis.message()).contains("symmetry classes");
+  }
+
+  @Test
+  void countsBoardWithFirstRowGiven() {
+    SudokuBoard board = new BoardBuilder().withRow(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).build();
+
+    SudokuAnalysis analysis = solver.analyze(board, UNLIMITED);
+
+    // Every completed grid relabels uniquely to one whose first row reads 1..9.
+    BigInteger expected = SudokuFacts.TOTAL_COMPLETED_GRIDS.divide(BigInteger.valueOf(362_880));
+    assertThat(analysis.solutionCount()).isEqualTo(expected);
+    assertThat(analysis.limitReached()).isFalse();
+    assertThat(analysis.exemplarSolution()).isPresent();
+    assertThat(BoardValidator.isValid(analysis.exemplarSolution().orElseThrow())).isTrue();
+  }
+
+  @Test
+  void transposedCluesCountTheSame() {
+    SudokuBoard board =
+        SudokuBoard.empty()
+            .withValue(new CellPosition(0, 0), 1)
+            .withValue(new CellPosition(0, 1), 2);
+    SudokuBoard transposed =
+        SudokuBoard.empty()
+            .withValue(new CellPosition(0, 0), 1)
+            .withValue(new CellPosition(1, 0), 2);
+
+    BigInteger expected = SudokuFacts.TOTAL_COMPLETED_GRIDS.divide(BigInteger.valueOf(72));
+    assertThat(solver.analyze(board, UNLIMITED).solutionCount()).isEqualTo(expected);
+    assertThat(solver.analyze(transposed, UNLIMITED).solutionCount()).isEqualTo(expected);
+  }
+
+  @Test
+  void reportsNoSolutionForBlockedColumn() {
+    SudokuBoard board =
+        new BoardBuilder()
+            .withRow(0, 1, 2, 3, 4, 5, 6, 7, 8, 0)
+            .withRow(1, 0, 0, 0, 0, 0, 0, 9, 0, 0)
+            .build();
+
+    SudokuAnalysis analysis = solver.analyze(board, UNLIMITED);
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.NO_SOLUTION);
+    assertThat(analysis.exemplarSolution()).isEmpty();
+  }
+
+  @Test
+  void stopsAtDeadlineWithLowerBound() {
+    SudokuAnalysis analysis =
+        solver.analyze(
+            SudokuBoard.empty(), UNLIMITED.withoutEmptyBoardShortcut().withTimeLimitMillis(50));
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.limitReached()).isTrue();
+    assertThat(analysis.solutionCount()).isLessThan(SudokuFacts.TOTAL_COMPLETED_GRIDS);
+    // No example search runs past the deadline the count already reached.
+    assertThat(analysis.exemplarSolution()).isEmpty();
+  }
+
+  @Test
+  void answersCluesAcrossBandsAndStacksAtOnce() {
+    SudokuBoard scattered =
+        SudokuBoard.empty()
+            .withValue(new CellPosition(0, 0), 1)
+            .withValue(new CellPosition(4, 4), 5)
+            .withValue(new CellPosition(8, 8), 9);
+
+    SudokuAnalysis analysis = solver.analyze(scattered, UNLIMITED);
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.limitReached()).isTrue();
+    assertThat(analysis.solutionCount()).isZero();
+    assertThat(analysis.exploredNodes()).isZero();
+    assertThat(analysis.message()).startsWith(BandDecompositionCounter.UNSUPPORTED_LAYOUT);
+  }
+}
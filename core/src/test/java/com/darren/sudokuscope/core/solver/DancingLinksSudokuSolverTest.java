@@ -0,0 +1,78 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DancingLinksSudokuSolverTest {
+  private final SudokuSolver solver = SudokuSolver.create(SolverStrategy.DANCING_LINKS);
+
+  @Test
+  void solvesClassicPuzzleWithUniqueSolution() {
+    SudokuAnalysis analysis = solver.analyze(classicPuzzle(), SolverOptions.defaultOptions());
+
+    assertThat(analysis.valid()).isTrue();
+    assertThat(analysis.hasUniqueSolution()).isTrue();
+    assertThat(analysis.exemplarSolution()).isPresent();
+    assertThat(analysis.exemplarSolution().orElseThrow().isComplete()).isTrue();
+    assertThat(BoardValidator.isValid(analysis.exemplarSolution().orElseThrow())).isTrue();
+  }
+
+  @Test
+  void countsMatchBacktrackingSolver() {
+    SudokuBoard puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "000000000",
+                    "000000000",
+                    "000000000"))
+            .build();
+    SolverOptions options = SolverOptions.defaultOptions().withMaxSolutions(-1);
+
+    SudokuAnalysis expected = SudokuSolver.createDefault().analyze(puzzle, options);
+    SudokuAnalysis analysis = solver.analyze(puzzle, options);
+
+    assertThat(analysis.status()).isEqualTo(expected.status());
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+  }
+
+  @Test
+  void limitReachedWhenLimitingSolutions() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 0, 0, 0, 0, 0, 0, 0, 0).build();
+    SolverOptions options = SolverOptions.defaultOptions().withMaxSolutions(2);
+
+    SudokuAnalysis analysis = solver.analyze(sparse, options);
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(BigInteger.valueOf(2));
+    assertThat(analysis.limitReached()).isTrue();
+  }
+
+  private static SudokuBoard classicPuzzle() {
+    return new BoardBuilder()
+        .withStringRows(
+            List.of(
+                "530070000",
+                "600195000",
+                "098000060",
+                "800060003",
+                "400803001",
+                "700020006",
+                "060000280",
+                "000419005",
+                "000080079"))
+        .build();
+  }
+}
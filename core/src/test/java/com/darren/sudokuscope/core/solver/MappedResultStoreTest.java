@@ -0,0 +1,159 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.BoardSymmetry;
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedResultStoreTest {
+  private static final SudokuBoard PUZZLE =
+      new BoardBuilder()
+          .withStringRows(
+              List.of(
+                  "800000000",
+                  "003600000",
+                  "070090200",
+                  "050007000",
+                  "000045700",
+                  "000100030",
+                  "001000068",
+                  "008500010",
+                  "090000400"))
+          .build();
+
+  private static final SudokuBoard FOUR_SOLUTIONS =
+      new BoardBuilder()
+          .withStringRows(
+              List.of(
+                  "000000000",
+                  "000000000",
+                  "198342567",
+                  "859761423",
+                  "426853791",
+                  "713924856",
+                  "961537284",
+                  "287419635",
+                  "345286179"))
+          .build();
+
+  private final SudokuSolver solver = SudokuSolver.createDefault();
+
+  @TempDir Path directory;
+
+  @Test
+  void reopenedStoreAnswersSymmetricCopies() throws IOException {
+    Path file = directory.resolve("results.bin");
+    try (MappedResultStore store = MappedResultStore.open(file, 100)) {
+      store.store(PUZZLE, solver.analyze(PUZZLE, SolverOptions.uniquenessProbe()));
+    }
+    SudokuBoard shuffled =
+        BoardSymmetry.of(
+                true,
+                new int[] {5, 3, 4, 8, 6, 7, 1, 0, 2},
+                new int[] {2, 1, 0, 6, 8, 7, 4, 3, 5},
+                new int[] {4, 9, 2, 7, 1, 3, 8, 6, 5})
+            .apply(PUZZLE);
+
+    try (MappedResultStore store = MappedResultStore.open(file, 1)) {
+      SudokuAnalysis hit = store.lookup(shuffled, SolverOptions.uniquenessProbe()).orElseThrow();
+
+      assertThat(store.capacity()).isEqualTo(100);
+      assertThat(hit.status()).isEqualTo(SolverStatus.UNIQUE_SOLUTION);
+      assertThat(hit.exemplarSolution())
+          .isEqualTo(solver.analyze(shuffled, SolverOptions.uniquenessProbe()).exemplarSolution());
+    }
+  }
+
+  @Test
+  void boundIsReplacedByAnExactCount() throws IOException {
+    try (MappedResultStore store = MappedResultStore.open(directory.resolve("r.bin"), 10)) {
+      store.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, SolverOptions.uniquenessProbe()));
+      Optional<SudokuAnalysis> beforeExact =
+          store.lookup(FOUR_SOLUTIONS, SolverOptions.defaultOptions());
+      store.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, SolverOptions.defaultOptions()));
+
+      assertThat(beforeExact).isEmpty();
+      assertThat(store.lookup(FOUR_SOLUTIONS, SolverOptions.defaultOptions()))
+          .get()
+          .extracting(SudokuAnalysis::solutionCount)
+          .isEqualTo(BigInteger.valueOf(4));
+      assertThat(store.stats().entries()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void countsBeyondALongRoundTrip() throws IOException {
+    SudokuBoard open = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    BigInteger count = new BigInteger("1234567890123456789012");
+    SudokuAnalysis exact =
+        new SudokuAnalysis(
+            open,
+            true,
+            SolverStatus.MULTIPLE_SOLUTIONS,
+            count,
+            Optional.empty(),
+            false,
+            1L,
+            "Counted");
+    try (MappedResultStore store = MappedResultStore.open(directory.resolve("r.bin"), 10)) {
+      store.store(open, exact);
+
+      assertThat(store.lookup(open, new SolverOptions(-1, false, true, 0L)))
+          .get()
+          .extracting(SudokuAnalysis::solutionCount)
+          .isEqualTo(count);
+    }
+  }
+
+  @Test
+  void fullStoreDropsNewBoards() throws IOException {
+    SudokuBoard other = FOUR_SOLUTIONS.withValue(new CellPosition(0, 0), 5);
+    SolverOptions options = SolverOptions.defaultOptions();
+    try (MappedResultStore store = MappedResultStore.open(directory.resolve("r.bin"), 1)) {
+      store.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, options));
+      store.store(other, solver.analyze(other, options));
+
+      assertThat(store.lookup(other, options)).isEmpty();
+      assertThat(store.stats().rejected()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void onlyOneWriterMayOpenAFile() throws IOException {
+    Path file = directory.resolve("r.bin");
+    try (MappedResultStore store = MappedResultStore.open(file, 10)) {
+      assertThatThrownBy(() -> MappedResultStore.open(file, 10)).isInstanceOf(IOException.class);
+      assertThatThrownBy(() -> MappedResultStore.openReadOnly(file))
+          .isInstanceOf(IOException.class);
+    }
+  }
+
+  @Test
+  void readOnlyStoreAnswersLookupsAndIgnoresStores() throws IOException {
+    Path file = directory.resolve("r.bin");
+    SolverOptions options = SolverOptions.defaultOptions();
+    try (MappedResultStore store = MappedResultStore.open(file, 10)) {
+      store.store(PUZZLE, solver.analyze(PUZZLE, options));
+    }
+
+    try (MappedResultStore reader = MappedResultStore.openReadOnly(file)) {
+      reader.store(FOUR_SOLUTIONS, solver.analyze(FOUR_SOLUTIONS, options));
+
+      assertThat(reader.isReadOnly()).isTrue();
+      assertThat(reader.lookup(PUZZLE, options)).isPresent();
+      assertThat(reader.lookup(FOUR_SOLUTIONS, options)).isEmpty();
+      assertThat(reader.stats().entries()).isEqualTo(1);
+      assertThatThrownBy(() -> MappedResultStore.open(file, 10)).isInstanceOf(IOException.class);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.BoardValidator;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class MemoizedCountingSolverTest {
+  private static final SolverOptions UNLIMITED =
+      SolverOptions.defaultOptions().withMaxSolutions(-1);
+
+  @Test
+  void countsMatchBacktrackingSolver() {
+    SudokuBoard puzzle = topHalfPuzzle();
+
+    SudokuAnalysis expected = SudokuSolver.createDefault().analyze(puzzle, UNLIMITED);
+    SudokuAnalysis analysis =
+        SudokuSolver.create(SolverStrategy.MEMOIZED_COUNT).analyze(puzzle, UNLIMITED);
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.MULTIPLE_SOLUTIONS);
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+    assertThat(analysis.limitReached()).isFalse();
+    assertThat(analysis.message()).contains("hits").contains("misses");
+    assertThat(analysis.exemplarSolution()).isPresent();
+    assertThat(BoardValidator.isValid(analysis.exemplarSolution().orElseThrow())).isTrue();
+  }
+
+  @Test
+  void tinyTableEvictsWithoutChangingTheCount() {
+    SudokuBoard puzzle = topHalfPuzzle();
+
+    SudokuAnalysis expected = SudokuSolver.createDefault().analyze(puzzle, UNLIMITED);
+    SudokuAnalysis analysis = new MemoizedCountingSolver(64).analyze(puzzle, UNLIMITED);
+
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+  }
+
+  @Test
+  void reusesItsTableWithoutCarryingEntriesOver() {
+    SudokuSolver solver = new MemoizedCountingSolver();
+    SudokuBoard other = new BoardBuilder().withRow(0, 1, 2, 3, 4, 5, 6, 7, 0, 0).build();
+
+    SudokuAnalysis expected = SudokuSolver.createDefault().analyze(topHalfPuzzle(), UNLIMITED);
+    solver.analyze(other, UNLIMITED.withTimeLimitMillis(50));
+    SudokuAnalysis analysis = solver.analyze(topHalfPuzzle(), UNLIMITED);
+
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+  }
+
+  @Test
+  void multipliesCountsOfIndependentComponents() {
+    // The open cells of the top band and of the middle-right box share no row, column or box.
+    SudokuBoard puzzle =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "000000938",
+                    "000000162",
+                    "000000457",
+                    "739254000",
+                    "254861000",
+                    "861739000",
+                    "318597624",
+                    "642318579",
+                    "597642381"))
+            .build();
+
+    SudokuAnalysis expected = SudokuSolver.createDefault().analyze(puzzle, UNLIMITED);
+    SudokuAnalysis analysis =
+        SudokuSolver.create(SolverStrategy.MEMOIZED_COUNT).analyze(puzzle, UNLIMITED);
+
+    assertThat(analysis.solutionCount()).isEqualByComparingTo(expected.solutionCount());
+    assertThat(analysis.message()).doesNotContain(" 0 component splits");
+    assertThat(analysis.exemplarSolution()).isPresent();
+    assertThat(BoardValidator.isValid(analysis.exemplarSolution().orElseThrow())).isTrue();
+  }
+
+  @Test
+  void stopsAtDeadlineWithLowerBound() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 3, 0, 0, 0, 0, 0, 0).build();
+
+    SudokuAnalysis analysis =
+        SudokuSolver.create(SolverStrategy.MEMOIZED_COUNT)
+            .analyze(sparse, UNLIMITED.withTimeLimitMillis(50));
+
+    assertThat(analysis.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    assertThat(analysis.limitReached()).isTrue();
+  }
+
+  private static SudokuBoard topHalfPuzzle() {
+    return new BoardBuilder()
+        .withStringRows(
+            List.of(
+                "530070000",
+                "600195000",
+                "098000060",
+                "800060003",
+                "400803001",
+                "700020006",
+                "000000000",
+                "000000000",
+                "000000000"))
+        .build();
+  }
+}
@@ -0,0 +1,103 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.SudokuFacts;
+import java.math.BigInteger;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SolutionCountEstimatorTest {
+  private final SolutionCountEstimator estimator = new SolutionCountEstimator(2);
+
+  @Test
+  void estimateOfOneFilledRowIsWithinItsErrorBars() {
+    SudokuBoard board = new BoardBuilder().withRow(0, 1, 2, 3, 4, 5, 6, 7, 8, 9).build();
+    // Relabelling digits maps the grids with any fixed first row one-to-one onto each other.
+    double expected =
+        SudokuFacts.TOTAL_COMPLETED_GRIDS.divide(BigInteger.valueOf(362_880L)).doubleValue();
+
+    SolutionCountEstimator.Estimate estimate = estimator.estimate(board, 20_000, 0L, 42L);
+
+    assertThat(estimate.samples()).isEqualTo(20_000L);
+    assertThat(estimate.relativeError()).isLessThan(0.05);
+    assertThat(Math.abs(estimate.mean() - expected)).isLessThan(5 * estimate.standardError());
+  }
+
+  @Test
+  void sameSeedGivesSameEstimate() {
+    SudokuBoard board =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "530070000",
+                    "600195000",
+                    "098000060",
+                    "800060003",
+                    "400803001",
+                    "700020006",
+                    "000000000",
+                    "000000000",
+                    "000000000"))
+            .build();
+
+    SolutionCountEstimator.Estimate first = estimator.estimate(board, 5_000, 0L, 7L);
+    SolutionCountEstimator.Estimate second = estimator.estimate(board, 5_000, 0L, 7L);
+
+    assertThat(second.mean()).isEqualTo(first.mean());
+    assertThat(second.standardError()).isEqualTo(first.standardError());
+  }
+
+  @Test
+  void invalidAndCompleteBoardsAreExact() {
+    SudokuBoard invalid = new BoardBuilder().withRow(0, 1, 1, 0, 0, 0, 0, 0, 0, 0).build();
+    SudokuBoard solved =
+        new BoardBuilder()
+            .withStringRows(
+                List.of(
+                    "534678912",
+                    "672195348",
+                    "198342567",
+                    "859761423",
+                    "426853791",
+                    "713924856",
+                    "961537284",
+                    "287419635",
+                    "345286179"))
+            .build();
+
+    SolutionCountEstimator.Estimate none = estimator.estimate(invalid, 100, 0L);
+    SolutionCountEstimator.Estimate one = estimator.estimate(solved, 100, 0L);
+
+    assertThat(none.exact()).isTrue();
+    assertThat(none.count()).isEqualTo(BigInteger.ZERO);
+    assertThat(one.exact()).isTrue();
+    assertThat(one.count()).isEqualTo(BigInteger.ONE);
+    assertThat(one.relativeError()).isZero();
+  }
+
+  @Test
+  void timeLimitStopsSampling() {
+    SolutionCountEstimator.Estimate estimate =
+        estimator.estimate(SudokuBoard.empty(), Integer.MAX_VALUE, 50L);
+
+    assertThat(estimate.samples()).isPositive().isLessThan(Integer.MAX_VALUE);
+    assertThat(estimate.count().signum()).isPositive();
+  }
+
+  @Test
+  void interruptingTheCallerStopsEveryWorker() {
+    SolutionCountEstimator.Estimate estimate;
+    Thread.currentThread().interrupt();
+    try {
+      // No time limit, so only the interrupt ends the workers in the common pool.
+      estimate = new SolutionCountEstimator(4).estimate(SudokuBoard.empty(), Integer.MAX_VALUE, 0L);
+    } finally {
+      Thread.interrupted();
+    }
+
+    assertThat(estimate.samples()).isLessThan(Integer.MAX_VALUE);
+  }
+}
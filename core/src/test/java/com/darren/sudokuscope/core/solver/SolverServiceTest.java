@@ -0,0 +1,324 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.darren.sudokuscope.core.BoardBuilder;
+import com.darren.sudokuscope.core.CellPosition;
+import com.darren.sudokuscope.core.SudokuBoard;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+class SolverServiceTest {
+  @Test
+  void cancellingAFutureStopsItsSearch() throws Exception {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    try (SolverService service = SolverService.createDefault()) {
+      // Unbounded: only cancellation ends it, and the single worker thread is blocked until then.
+      CompletableFuture<SudokuAnalysis> endless =
+          service.analyzeAsync(sparse, SolverOptions.defaultOptions().withMaxSolutions(-1));
+      Thread.sleep(50);
+
+      endless.cancel(false);
+      SudokuAnalysis next =
+          service.analyzeAsync(sparse, SolverOptions.uniquenessProbe()).get(10, TimeUnit.SECONDS);
+
+      assertThat(endless.isCancelled()).isTrue();
+      assertThat(next.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+    }
+  }
+
+  @Test
+  void cachingServiceAnswersARepeatWithoutSearching() {
+    SudokuBoard sparse = new BoardBuilder().withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0).build();
+    try (SolverService service = SolverService.createCaching(16)) {
+      SudokuAnalysis first = service.analyzeBlocking(sparse, SolverOptions.uniquenessProbe());
+      CompletableFuture<SudokuAnalysis> second =
+          service.analyzeAsync(sparse, SolverOptions.uniquenessProbe());
+
+      assertThat(second).isCompletedWithValue(first);
+      assertThat(service.cache().orElseThrow().stats().hits()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void onlyExpensiveAnalysesReachTheResultStore(@TempDir Path directory) throws IOException {
+    SudokuBoard nearlySolved =
+        SudokuSolver.createDefault().solveOrThrow(board(1)).withValue(new CellPosition(0, 0), 0);
+    try (MappedResultStore store = MappedResultStore.open(directory.resolve("r.bin"), 10);
+        SolverService service = SolverService.builder().withResultStore(store).build()) {
+      service.analyzeBlocking(nearlySolved, SolverOptions.uniquenessProbe());
+      SudokuAnalysis expensive =
+          service.analyzeBlocking(
+              board(1), SolverOptions.defaultOptions().withMaxSolutions(200_000));
+
+      assertThat(expensive.exploredNodes()).isGreaterThanOrEqualTo(100_000L);
+      assertThat(store.stats().entries()).isEqualTo(1);
+      assertThat(store.lookup(nearlySolved, SolverOptions.uniquenessProbe())).isEmpty();
+    }
+  }
+
+  @Test
+  void queuedRequestsStartInPriorityOrder() throws Exception {
+    List<AnalysisPriority> finished = Collections.synchronizedList(new ArrayList<>());
+    try (SolverService service = SolverService.builder().build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      List<CompletableFuture<SudokuAnalysis>> queued = new ArrayList<>();
+      for (AnalysisPriority priority :
+          List.of(AnalysisPriority.BATCH, AnalysisPriority.NORMAL, AnalysisPriority.INTERACTIVE)) {
+        queued.add(
+            service
+                .analyzeAsync(board(priority.ordinal()), SolverOptions.uniquenessProbe(), priority)
+                .whenComplete((analysis, failure) -> finished.add(priority)));
+      }
+
+      blocker.cancel(false);
+      CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      assertThat(finished)
+          .containsExactly(
+              AnalysisPriority.INTERACTIVE, AnalysisPriority.NORMAL, AnalysisPriority.BATCH);
+      assertThat(service.stats().submitted()).isEqualTo(4);
+      assertThat(service.stats(AnalysisPriority.INTERACTIVE).completed()).isEqualTo(1);
+      assertThat(service.stats(AnalysisPriority.INTERACTIVE).totalQueueNanos()).isPositive();
+    }
+  }
+
+  @Test
+  void aFullQueueDiscardsTheOldestLowPriorityRequest() throws Exception {
+    try (SolverService service =
+        SolverService.builder()
+            .withQueueCapacity(1)
+            .withRejectionPolicy(RejectionPolicy.DISCARD_OLDEST)
+            .build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      CompletableFuture<SudokuAnalysis> batch =
+          service.analyzeAsync(board(1), SolverOptions.uniquenessProbe(), AnalysisPriority.BATCH);
+      CompletableFuture<SudokuAnalysis> interactive =
+          service.analyzeAsync(
+              board(2), SolverOptions.uniquenessProbe(), AnalysisPriority.INTERACTIVE);
+      CompletableFuture<SudokuAnalysis> lateBatch =
+          service.analyzeAsync(board(3), SolverOptions.uniquenessProbe(), AnalysisPriority.BATCH);
+
+      assertThat(batch).isCompletedExceptionally();
+      assertThat(lateBatch).isCompletedExceptionally();
+      assertThatThrownBy(lateBatch::join).hasCauseInstanceOf(RejectedExecutionException.class);
+      blocker.cancel(false);
+      assertThat(interactive.get(10, TimeUnit.SECONDS).status())
+          .isEqualTo(SolverStatus.LIMIT_REACHED);
+      assertThat(service.stats().rejected()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void identicalRequestsShareOneAnalysis() throws Exception {
+    try (SolverService service = SolverService.builder().build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      List<CompletableFuture<SudokuAnalysis>> callers = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        callers.add(service.analyzeAsync(board(1), SolverOptions.uniquenessProbe()));
+      }
+
+      callers.get(0).cancel(false);
+      blocker.cancel(false);
+      SudokuAnalysis shared = callers.get(1).get(10, TimeUnit.SECONDS);
+
+      assertThat(callers.get(2).get(10, TimeUnit.SECONDS)).isSameAs(shared);
+      assertThat(shared.status()).isEqualTo(SolverStatus.LIMIT_REACHED);
+      assertThat(service.stats().submitted()).isEqualTo(2);
+      assertThat(service.stats().coalesced()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void anUrgentRequestRaisesTheQueuedAnalysisItJoins() throws Exception {
+    List<Integer> finished = Collections.synchronizedList(new ArrayList<>());
+    try (SolverService service = SolverService.builder().build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      List<CompletableFuture<SudokuAnalysis>> batch = new ArrayList<>();
+      for (int variant = 1; variant <= 3; variant++) {
+        int finishedVariant = variant;
+        batch.add(
+            service
+                .analyzeAsync(
+                    board(variant), SolverOptions.uniquenessProbe(), AnalysisPriority.BATCH)
+                .whenComplete((analysis, failure) -> finished.add(finishedVariant)));
+      }
+      CompletableFuture<SudokuAnalysis> interactive =
+          service.analyzeAsync(
+              board(3), SolverOptions.uniquenessProbe(), AnalysisPriority.INTERACTIVE);
+
+      blocker.cancel(false);
+      CompletableFuture.allOf(batch.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+      assertThat(interactive.get(10, TimeUnit.SECONDS)).isSameAs(batch.get(2).get());
+      assertThat(finished).containsExactly(3, 1, 2);
+      assertThat(service.stats(AnalysisPriority.BATCH).submitted()).isEqualTo(3);
+      assertThat(service.stats(AnalysisPriority.INTERACTIVE).coalesced()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void requestsOnlyJoinAnAnalysisWithADeadlineNoEarlierThanTheirOwn() throws Exception {
+    try (SolverService service = SolverService.builder().build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      CompletableFuture<SudokuAnalysis> leader =
+          service.analyzeAsync(
+              board(1), SolverOptions.uniquenessProbe().withTimeLimitMillis(60_000));
+      CompletableFuture<SudokuAnalysis> sooner =
+          service.analyzeAsync(
+              board(1), SolverOptions.uniquenessProbe().withTimeLimitMillis(30_000));
+      CompletableFuture<SudokuAnalysis> later =
+          service.analyzeAsync(
+              board(1), SolverOptions.uniquenessProbe().withTimeLimitMillis(120_000));
+
+      blocker.cancel(false);
+
+      assertThat(sooner.get(10, TimeUnit.SECONDS)).isSameAs(leader.get(10, TimeUnit.SECONDS));
+      assertThat(later.get(10, TimeUnit.SECONDS)).isNotSameAs(leader.get());
+      assertThat(service.stats().submitted()).isEqualTo(3);
+      assertThat(service.stats().coalesced()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void cancellingEveryCallerCancelsTheSharedAnalysis() throws Exception {
+    try (SolverService service = SolverService.builder().build()) {
+      CompletableFuture<SudokuAnalysis> blocker = occupyTheOnlyThread(service);
+      CompletableFuture<SudokuAnalysis> first =
+          service.analyzeAsync(board(1), SolverOptions.uniquenessProbe());
+      CompletableFuture<SudokuAnalysis> second =
+          service.analyzeAsync(board(1), SolverOptions.uniquenessProbe());
+
+      first.cancel(false);
+      assertThat(service.stats().queued()).isEqualTo(1);
+      second.cancel(false);
+
+      assertThat(service.stats().queued()).isZero();
+      assertThat(service.stats().cancelled()).isEqualTo(1);
+      blocker.cancel(false);
+    }
+  }
+
+  @Test
+  void analyzeAllDeliversResultsInInputOrder() {
+    List<SudokuBoard> boards = new ArrayList<>();
+    for (int value = 1; value <= 9; value++) {
+      for (int column = 0; column < SudokuBoard.SIZE; column++) {
+        boards.add(SudokuBoard.empty().withValue(new CellPosition(4, column), value));
+      }
+    }
+    List<Long> indices = new ArrayList<>();
+    List<SudokuBoard> analysed = new ArrayList<>();
+    try (SolverService service = SolverService.createDefault()) {
+      BatchReport report =
+          service.analyzeAll(
+              boards,
+              SolverOptions.uniquenessProbe(),
+              new BatchOptions(3, true, 4),
+              result -> {
+                indices.add(result.index());
+                analysed.add(result.analysis().initialBoard());
+              });
+
+      assertThat(analysed).isEqualTo(boards);
+      assertThat(indices).isEqualTo(LongStream.range(0, boards.size()).boxed().toList());
+      assertThat(report.analyzed()).isEqualTo(boards.size());
+      assertThat(report.stoppedEarly()).isFalse();
+    }
+  }
+
+  @Test
+  void analyzeAllRethrowsAFailedAnalysis() {
+    List<SudokuBoard> boards = new ArrayList<>(Collections.nCopies(20, SudokuBoard.empty()));
+    boards.set(10, null);
+    try (SolverService service = SolverService.createDefault()) {
+      assertThatThrownBy(
+              () ->
+                  service.analyzeAll(
+                      boards,
+                      SolverOptions.uniquenessProbe(),
+                      BatchOptions.defaults(),
+                      result -> {}))
+          .isInstanceOf(NullPointerException.class);
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  void analyzeAllRethrowsAFailingInputWithASmallWindow() {
+    Iterable<SudokuBoard> failing =
+        () ->
+            new Iterator<>() {
+              @Override
+              public boolean hasNext() {
+                return true;
+              }
+
+              @Override
+              public SudokuBoard next() {
+                throw new UncheckedIOException(new IOException("unreadable puzzle file"));
+              }
+            };
+    try (SolverService service = SolverService.createDefault()) {
+      for (boolean ordered : new boolean[] {true, false}) {
+        assertThatThrownBy(
+                () ->
+                    service.analyzeAll(
+                        failing,
+                        SolverOptions.uniquenessProbe(),
+                        new BatchOptions(2, ordered, 1),
+                        result -> {}))
+            .isInstanceOf(UncheckedIOException.class);
+      }
+    }
+  }
+
+  @Test
+  void cancellingABatchStopsItEarly() {
+    CancellationToken token = new CancellationToken();
+    try (SolverService service = SolverService.createDefault()) {
+      BatchReport report =
+          service.analyzeAll(
+              Stream.generate(SudokuBoard::empty),
+              SolverOptions.uniquenessProbe().withCancellationToken(token),
+              BatchOptions.defaults().withOrdered(false),
+              result -> token.cancel());
+
+      assertThat(report.stoppedEarly()).isTrue();
+      assertThat(report.analyzed()).isPositive();
+    }
+  }
+
+  /** Starts an unbounded count that holds a one-thread service's thread until cancelled. */
+  private static CompletableFuture<SudokuAnalysis> occupyTheOnlyThread(SolverService service)
+      throws InterruptedException {
+    CompletableFuture<SudokuAnalysis> blocker =
+        service.analyzeAsync(board(0), SolverOptions.defaultOptions().withMaxSolutions(-1));
+    while (service.stats().active() == 0) {
+      Thread.sleep(1);
+    }
+    return blocker;
+  }
+
+  /** A sparse board, different for each {@code variant} from 0 to 8. */
+  private static SudokuBoard board(int variant) {
+    return new BoardBuilder()
+        .withRow(0, 1, 2, 0, 0, 0, 0, 0, 0, 0)
+        .build()
+        .withValue(new CellPosition(8, variant), 3);
+  }
+}
@@ -0,0 +1,51 @@
+package com.darren.sudokuscope.core.solver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class TargetPuzzleSearchTest {
+  private final TargetPuzzleSearch search = new TargetPuzzleSearch();
+
+  @Test
+  void reportsEachImprovementUntilTheListenerStopsIt() {
+    List<TargetPuzzleSearch.SearchResult> reported = new ArrayList<>();
+
+    TargetPuzzleSearch.SearchResult result =
+        search.findClosest(
+            BigInteger.valueOf(1_000),
+            5_000L,
+            200_000,
+            42L,
+            best -> {
+              reported.add(best);
+              return reported.size() < 3;
+            },
+            null);
+
+    assertThat(reported).hasSize(3);
+    assertThat(reported.get(0).solutionCount()).isEqualTo(BigInteger.ONE);
+    assertThat(reported.get(1).delta()).isLessThanOrEqualTo(reported.get(0).delta());
+    assertThat(reported.get(2).delta()).isLessThanOrEqualTo(reported.get(1).delta());
+    assertThat(result.board()).isEqualTo(reported.get(2).board());
+    assertThat(result.delta()).isEqualTo(reported.get(2).delta());
+  }
+
+  @Test
+  void cancellingTheTokenReturnsTheBestPuzzleSoFar() {
+    CancellationToken token = new CancellationToken();
+    CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(token::cancel);
+
+    // Far more completions than any puzzle reaches, so only the token ends the search early.
+    TargetPuzzleSearch.SearchResult result =
+        search.findClosest(new BigInteger("1000000000000"), 60_000L, 200_000, 42L, null, token);
+
+    assertThat(result.elapsedMillis()).isLessThan(10_000L);
+    assertThat(result.iterations()).isPositive();
+  }
+}
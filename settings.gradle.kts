@@ -12,4 +12,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "SudokuScope"
 
-include("core", "ui", "web", "bench", "e2e-tests")
+include("core", "ui", "web", "cli", "bench", "e2e-tests")
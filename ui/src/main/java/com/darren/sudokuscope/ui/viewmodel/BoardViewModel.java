@@ -6,18 +6,16 @@ import com.darren.sudokuscope.core.GameState;
 import com.darren.sudokuscope.core.SudokuBoard;
 import com.darren.sudokuscope.core.SudokuFacts;
 import com.darren.sudokuscope.core.command.SetValueCommand;
+import com.darren.sudokuscope.core.solver.AnalysisPriority;
+import com.darren.sudokuscope.core.solver.SolutionCountEstimator;
 import com.darren.sudokuscope.core.solver.SolverOptions;
+import com.darren.sudokuscope.core.solver.SolverProgress;
 import com.darren.sudokuscope.core.solver.SolverService;
 import com.darren.sudokuscope.core.solver.SolverStatus;
 import com.darren.sudokuscope.core.solver.SudokuAnalysis;
-import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.math.MathContext;
-import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -44,7 +42,14 @@ public final class BoardViewModel {
       SolverOptions.defaultOptions().withMaxSolutions(1_000_000);
   private static final DecimalFormat NUMBER_FORMAT =
       (DecimalFormat) NumberFormat.getIntegerInstance(Locale.US);
-  private static final MathContext ESTIMATE_CONTEXT = new MathContext(40, RoundingMode.HALF_UP);
+  // Edits are estimated in the background with a small budget so the count follows typing; the
+  // estimate after a capped analysis can afford more samples.
+  private static final int EDIT_ESTIMATE_SAMPLES = 2_000;
+  private static final long EDIT_ESTIMATE_TIME_LIMIT_MS = 15L;
+  private static final int ANALYSIS_ESTIMATE_SAMPLES = 200_000;
+  private static final long ANALYSIS_ESTIMATE_TIME_LIMIT_MS = 150L;
+  // Undo, redo and re-entered digits revisit boards; a few hundred entries cover a session.
+  private static final int ANALYSIS_CACHE_SIZE = 256;
 
   private final StringProperty[][] cells = new StringProperty[SudokuBoard.SIZE][SudokuBoard.SIZE];
   private final BooleanProperty undoAvailable = new SimpleBooleanProperty(false);
@@ -59,7 +64,9 @@ public final class BoardViewModel {
 
   private final DoubleProperty displayCount = new SimpleDoubleProperty(0);
 
-  private final SolverService solverService = SolverService.createDefault();
+  private final SolverService solverService =
+      SolverService.builder().withCacheSize(ANALYSIS_CACHE_SIZE).build();
+  private final SolutionCountEstimator estimator = new SolutionCountEstimator(1);
   private final PauseTransition analysisDebounce = new PauseTransition(ANALYSIS_DEBOUNCE);
   private final Timeline countAnimation = new Timeline();
   private final AtomicReference<CompletableFuture<SudokuAnalysis>> inFlight =
@@ -67,6 +74,12 @@ public final class BoardViewModel {
 
   private GameState gameState = new GameState();
   private boolean suppressListeners;
+  // Bumped on the FX thread whenever an analysis starts or is cancelled, so progress reports
+  // from a superseded analysis are dropped.
+  private long analysisGeneration;
+  // Bumped on the FX thread whenever an edit estimate starts or anything newer is shown, so a
+  // late estimate never overwrites a fresher count.
+  private long estimateGeneration;
 
   static {
     NUMBER_FORMAT.setGroupingUsed(true);
@@ -277,6 +290,7 @@ public final class BoardViewModel {
   }
 
   private void updateImmediateEstimate(SudokuBoard board) {
+    long generation = ++estimateGeneration;
     if (!boardValid.get()) {
       return;
     }
@@ -284,11 +298,16 @@ public final class BoardViewModel {
     if (filled == 0 || filled >= 40) {
       return;
     }
-    BigInteger estimate = computeSequentialEstimate(board);
-    if (estimate.signum() <= 0) {
-      estimate = BigInteger.ONE;
+    CompletableFuture.supplyAsync(
+            () -> estimator.estimate(board, EDIT_ESTIMATE_SAMPLES, EDIT_ESTIMATE_TIME_LIMIT_MS))
+        .thenAccept(estimate -> Platform.runLater(() -> showEditEstimate(generation, estimate)));
+  }
+
+  private void showEditEstimate(long generation, SolutionCountEstimator.Estimate estimate) {
+    if (generation != estimateGeneration) {
+      return;
     }
-    animateSolutionCount(estimate, true);
+    animateSolutionCount(atLeastOne(estimate.count()), true);
     uniqueSolution.set(false);
   }
 
@@ -300,27 +319,68 @@ public final class BoardViewModel {
     SudokuBoard snapshot = gameState.board();
     cancelInFlight();
     solverMessage.set("Analysing...");
+    long generation = ++analysisGeneration;
+    SolverOptions options =
+        UI_SOLVER_OPTIONS.withProgressListener(
+            progress -> {
+              Platform.runLater(() -> showProgress(generation, progress));
+              return true;
+            });
+    // Canonicalizing for the cache runs here on the FX thread: at most about a millisecond, once
+    // per debounced edit.
     CompletableFuture<SudokuAnalysis> future =
-        solverService.analyzeAsync(snapshot, UI_SOLVER_OPTIONS);
+        solverService.analyzeAsync(snapshot, options, AnalysisPriority.INTERACTIVE);
     inFlight.set(future);
-    future.whenComplete(
+    // Async: a cache hit completes the future at once, and the estimate must stay off this thread.
+    future.whenCompleteAsync(
         (analysis, throwable) -> {
-          if (!inFlight.compareAndSet(future, null)) {
+          if (inFlight.get() != future) {
             return; // A newer request is running
           }
-          Platform.runLater(() -> handleAnalysisResult(snapshot, analysis, throwable));
+          SolutionCountEstimator.Estimate estimate =
+              throwable == null && needsEstimate(analysis)
+                  ? estimator.estimate(
+                      snapshot, ANALYSIS_ESTIMATE_SAMPLES, ANALYSIS_ESTIMATE_TIME_LIMIT_MS)
+                  : null;
+          if (!inFlight.compareAndSet(future, null)) {
+            return; // Superseded while estimating
+          }
+          Platform.runLater(() -> handleAnalysisResult(snapshot, analysis, estimate, throwable));
         });
   }
 
+  private void showProgress(long generation, SolverProgress progress) {
+    if (generation != analysisGeneration) {
+      return;
+    }
+    solverMessage.set(
+        String.format(
+            Locale.US,
+            "Analysing... %s solutions so far, %.0f%% of the search explored",
+            NUMBER_FORMAT.format(progress.solutionsFound()),
+            100d * progress.fractionExplored()));
+  }
+
   private void cancelInFlight() {
+    analysisGeneration++;
+    estimateGeneration++;
     CompletableFuture<SudokuAnalysis> existing = inFlight.getAndSet(null);
     if (existing != null) {
       existing.cancel(true);
     }
   }
 
+  private static boolean needsEstimate(SudokuAnalysis analysis) {
+    return analysis.valid()
+        && (analysis.limitReached() || analysis.solutionCount().compareTo(MILLION) > 0);
+  }
+
   private void handleAnalysisResult(
-      SudokuBoard board, SudokuAnalysis analysis, Throwable throwable) {
+      SudokuBoard board,
+      SudokuAnalysis analysis,
+      SolutionCountEstimator.Estimate estimate,
+      Throwable throwable) {
+    estimateGeneration++;
     if (throwable != null) {
       solverMessage.set("Analysis failed: " + throwable.getMessage());
       return;
@@ -345,90 +405,41 @@ public final class BoardViewModel {
       solverMessage.set("Current entries lead to zero solutions.");
       return;
     }
-    boolean useExact = exactCount.compareTo(MILLION) <= 0 && !limitReached;
-
-    if (useExact) {
+    if (!needsEstimate(analysis)) {
       animateSolutionCount(exactCount, false);
       uniqueSolution.set(analysis.hasUniqueSolution());
       solverMessage.set(analysis.message());
       return;
     }
 
-    BigInteger estimate = computeSequentialEstimate(board);
-    if (estimate.signum() <= 0) {
-      estimate = BigInteger.ONE;
-    }
-    animateSolutionCount(estimate, true);
+    animateSolutionCount(atLeastOne(estimate.count()), true);
     uniqueSolution.set(false);
 
+    String margin = formatMargin(estimate);
     if (limitReached) {
-      solverMessage.set("Estimating after reaching solver limit");
+      solverMessage.set("Estimating after reaching solver limit" + margin);
     } else {
       int filled = countFilledCells(board);
       solverMessage.set(
-          "Estimated possibilities with " + filled + " filled cell" + (filled == 1 ? "" : "s"));
+          "Estimated possibilities with "
+              + filled
+              + " filled cell"
+              + (filled == 1 ? "" : "s")
+              + margin);
     }
   }
 
-  private BigInteger computeSequentialEstimate(SudokuBoard board) {
-    List<CellPosition> filledPositions = new ArrayList<>();
-    for (int row = 0; row < SudokuBoard.SIZE; row++) {
-      for (int col = 0; col < SudokuBoard.SIZE; col++) {
-        if (board.valueAt(row, col) != 0) {
-          filledPositions.add(new CellPosition(row, col));
-        }
-      }
-    }
-    if (filledPositions.isEmpty()) {
-      return SudokuFacts.TOTAL_COMPLETED_GRIDS;
-    }
-
-    SudokuBoard progressive = SudokuBoard.empty();
-    BigDecimal estimate = new BigDecimal(SudokuFacts.TOTAL_COMPLETED_GRIDS);
-    for (CellPosition position : filledPositions) {
-      int candidates = countCandidates(progressive, position);
-      if (candidates <= 0) {
-        return BigInteger.ZERO;
-      }
-      estimate = estimate.divide(BigDecimal.valueOf(candidates), ESTIMATE_CONTEXT);
-      progressive = progressive.withValue(position, board.valueAt(position));
-    }
-    return estimate.setScale(0, RoundingMode.HALF_UP).toBigInteger();
+  private static BigInteger atLeastOne(BigInteger count) {
+    return count.signum() <= 0 ? BigInteger.ONE : count;
   }
 
-  private int countCandidates(SudokuBoard board, CellPosition position) {
-    boolean[] used = new boolean[10];
-    int row = position.row();
-    int col = position.column();
-    for (int c = 0; c < SudokuBoard.SIZE; c++) {
-      int value = board.valueAt(row, c);
-      if (value != 0) {
-        used[value] = true;
-      }
+  /** Two standard errors as a percentage of the estimate, or nothing when that is meaningless. */
+  private static String formatMargin(SolutionCountEstimator.Estimate estimate) {
+    double relative = estimate.relativeError();
+    if (estimate.exact() || Double.isInfinite(relative)) {
+      return "";
     }
-    for (int r = 0; r < SudokuBoard.SIZE; r++) {
-      int value = board.valueAt(r, col);
-      if (value != 0) {
-        used[value] = true;
-      }
-    }
-    int boxRow = (row / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
-    int boxCol = (col / SudokuBoard.REGION_SIZE) * SudokuBoard.REGION_SIZE;
-    for (int r = 0; r < SudokuBoard.REGION_SIZE; r++) {
-      for (int c = 0; c < SudokuBoard.REGION_SIZE; c++) {
-        int value = board.valueAt(boxRow + r, boxCol + c);
-        if (value != 0) {
-          used[value] = true;
-        }
-      }
-    }
-    int count = 0;
-    for (int digit = 1; digit <= 9; digit++) {
-      if (!used[digit]) {
-        count++;
-      }
-    }
-    return count;
+    return String.format(Locale.US, " (\u00B1%.1f%%)", 200d * relative);
   }
 
   private int countFilledCells(SudokuBoard board) {
@@ -1,6 +1,7 @@
 package com.darren.sudokuscope.web.api;
 
 import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.SolutionCountEstimator;
 import com.darren.sudokuscope.core.solver.SudokuAnalysis;
 import java.math.BigInteger;
 import java.util.List;
@@ -13,9 +14,17 @@ public record AnalyzeResponse(
     boolean limitReached,
     boolean unique,
     String message,
-    List<Integer> exemplarSolution) {
+    List<Integer> exemplarSolution,
+    String estimatedCount,
+    Double estimateRelativeError) {
 
   public static AnalyzeResponse from(SudokuAnalysis analysis) {
+    return from(analysis, null);
+  }
+
+  /** Adds a sampled count, when the exact search stopped at its limit; null leaves it out. */
+  public static AnalyzeResponse from(
+      SudokuAnalysis analysis, SolutionCountEstimator.Estimate estimate) {
     Optional<SudokuBoard> solution = analysis.exemplarSolution();
     return new AnalyzeResponse(
         analysis.valid(),
@@ -24,7 +33,11 @@ public record AnalyzeResponse(
         analysis.limitReached(),
         analysis.hasUniqueSolution(),
         analysis.message(),
-        solution.map(AnalyzeResponse::toList).orElse(null));
+        solution.map(AnalyzeResponse::toList).orElse(null),
+        estimate == null ? null : estimate.count().toString(),
+        estimate == null || Double.isInfinite(estimate.relativeError())
+            ? null
+            : estimate.relativeError());
   }
 
   private static List<Integer> toList(SudokuBoard board) {
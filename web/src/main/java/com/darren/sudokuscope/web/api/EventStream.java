@@ -0,0 +1,65 @@
+package com.darren.sudokuscope.web.api;
+
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One Server-Sent Events response and the work producing it. Sends never throw: once one fails,
+ * because the client has gone, the stream counts as closed, later sends return {@code false} so
+ * producers can stop, and the work is cancelled.
+ */
+final class EventStream {
+  private final SseEmitter emitter = new SseEmitter();
+  private final AtomicBoolean open = new AtomicBoolean(true);
+  private volatile Future<?> work;
+
+  EventStream() {
+    emitter.onCompletion(this::close);
+    emitter.onError(failure -> close());
+    emitter.onTimeout(this::close);
+  }
+
+  SseEmitter emitter() {
+    return emitter;
+  }
+
+  /** Cancels {@code newWork} when the stream closes, or at once if it already has. */
+  void cancelOnClose(Future<?> newWork) {
+    this.work = newWork;
+    if (!open.get()) {
+      newWork.cancel(false);
+    }
+  }
+
+  /** Sends one event; {@code false} once the client has gone. */
+  boolean send(String name, Object data) {
+    if (!open.get()) {
+      return false;
+    }
+    try {
+      emitter.send(SseEmitter.event().name(name).data(data));
+      return true;
+    } catch (IOException | IllegalStateException ex) {
+      close();
+      return false;
+    }
+  }
+
+  /** Sends a last event and ends the response. */
+  void finish(String name, Object data) {
+    if (send(name, data)) {
+      emitter.complete();
+    }
+  }
+
+  private void close() {
+    if (open.compareAndSet(true, false)) {
+      Future<?> current = work;
+      if (current != null) {
+        current.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.darren.sudokuscope.web.api;
+
+import com.darren.sudokuscope.core.solver.SolverProgress;
+
+/** A {@code progress} event of {@code /api/analyze/stream}. */
+public record ProgressEvent(
+    long solutionsFound,
+    long exploredNodes,
+    double nodesPerSecond,
+    double fractionExplored,
+    long elapsedMillis) {
+
+  public static ProgressEvent from(SolverProgress progress) {
+    return new ProgressEvent(
+        progress.solutionsFound(),
+        progress.exploredNodes(),
+        progress.nodesPerSecond(),
+        progress.fractionExplored(),
+        progress.elapsedNanos() / 1_000_000L);
+  }
+}
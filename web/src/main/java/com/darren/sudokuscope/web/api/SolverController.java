@@ -1,55 +1,229 @@
 package com.darren.sudokuscope.web.api;
 
+import com.darren.sudokuscope.core.SudokuBoard;
 import com.darren.sudokuscope.core.solver.SolverOptions;
 import com.darren.sudokuscope.core.solver.SolverService;
 import com.darren.sudokuscope.core.solver.SudokuAnalysis;
 import com.darren.sudokuscope.core.solver.TargetPuzzleSearch;
+import com.darren.sudokuscope.web.config.EstimatePool;
+import com.darren.sudokuscope.web.config.TargetSearchPool;
 import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+/**
+ * The plain endpoints return futures, so the request thread is released as soon as the work is
+ * queued and the response is written when the solver finishes. A request still unanswered five
+ * seconds after its own time limit, because it waited that long for a solver thread, or one that
+ * finds the queue full, is answered with 503 Service Unavailable. Target searches run for at most a
+ * minute, whatever time limit the request asks for.
+ *
+ * <p>The {@code /stream} variants take the same requests and answer with Server-Sent Events: {@code
+ * progress} or {@code best} events while the work runs, then one {@code result} event with the
+ * plain endpoint's response or one {@code error} event with the status it would have had. A client
+ * that disconnects stops the work: an analysis at its next progress report, a target search within
+ * one solution count, and either at once if it is still queued.
+ */
 @RestController
 @RequestMapping("/api")
 public class SolverController {
   private static final long DEFAULT_TIME_LIMIT_MS = 8_000L;
+  private static final long MAX_TIME_LIMIT_MS = 60_000L;
   private static final int DEFAULT_MAX_SOLUTIONS = 200_000;
+  private static final long ANALYZE_TIME_LIMIT_MS = 30_000L;
+  private static final long QUEUE_WAIT_LIMIT_MS = 5_000L;
+  private static final long DEADLINE_GRANULARITY_NANOS = 1_000_000_000L;
+  private static final int ESTIMATE_MAX_SAMPLES = 1_000_000;
+  private static final long ESTIMATE_TIME_LIMIT_MS = 250L;
 
   private final SolverService solverService;
-  private final TargetPuzzleSearch targetSearch = new TargetPuzzleSearch();
+  private final TargetSearchPool targetSearchPool;
+  private final EstimatePool estimatePool;
 
-  public SolverController(SolverService solverService) {
+  public SolverController(
+      SolverService solverService, TargetSearchPool targetSearchPool, EstimatePool estimatePool) {
     this.solverService = solverService;
+    this.targetSearchPool = targetSearchPool;
+    this.estimatePool = estimatePool;
   }
 
   @PostMapping("/analyze")
-  public AnalyzeResponse analyze(@RequestBody AnalyzeRequest request) {
+  public CompletableFuture<AnalyzeResponse> analyze(@RequestBody AnalyzeRequest request) {
+    SudokuBoard board = parseBoard(request);
+    return withTimeout(
+            solverService.analyzeAsync(board, analyzeOptions()),
+            ANALYZE_TIME_LIMIT_MS + QUEUE_WAIT_LIMIT_MS)
+        .thenCompose(analysis -> respond(board, analysis));
+  }
+
+  @PostMapping(path = "/analyze/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter analyzeStream(@RequestBody AnalyzeRequest request) {
+    SudokuBoard board = parseBoard(request);
+    EventStream stream = new EventStream();
+    SolverOptions options =
+        analyzeOptions()
+            .withProgressListener(
+                progress -> stream.send("progress", ProgressEvent.from(progress)));
+    CompletableFuture<SudokuAnalysis> work = solverService.analyzeAsync(board, options);
+    stream.cancelOnClose(work);
+    finish(
+        stream,
+        withTimeout(work, ANALYZE_TIME_LIMIT_MS + QUEUE_WAIT_LIMIT_MS)
+            .thenCompose(analysis -> respond(board, analysis)));
+    return stream.emitter();
+  }
+
+  @PostMapping("/target")
+  public CompletableFuture<TargetCountResponse> target(@RequestBody TargetCountRequest request) {
+    BigInteger target = parseTarget(request);
+    long timeLimitMs = targetTimeLimitMs(request);
+    return withTimeout(
+            targetSearchPool.findClosest(
+                target,
+                timeLimitMs,
+                request.maxSolutionsOrDefault(DEFAULT_MAX_SOLUTIONS),
+                request.seedOrDefault(System.nanoTime())),
+            timeLimitMs + QUEUE_WAIT_LIMIT_MS)
+        .thenApply(TargetCountResponse::from);
+  }
+
+  @PostMapping(path = "/target/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter targetStream(@RequestBody TargetCountRequest request) {
+    BigInteger target = parseTarget(request);
+    long timeLimitMs = targetTimeLimitMs(request);
+    EventStream stream = new EventStream();
+    CompletableFuture<TargetPuzzleSearch.SearchResult> work =
+        targetSearchPool.findClosest(
+            target,
+            timeLimitMs,
+            request.maxSolutionsOrDefault(DEFAULT_MAX_SOLUTIONS),
+            request.seedOrDefault(System.nanoTime()),
+            best -> stream.send("best", TargetCountResponse.from(best)));
+    stream.cancelOnClose(work);
+    finish(
+        stream,
+        withTimeout(work, timeLimitMs + QUEUE_WAIT_LIMIT_MS).thenApply(TargetCountResponse::from));
+    return stream.emitter();
+  }
+
+  private static SudokuBoard parseBoard(AnalyzeRequest request) {
     try {
-      SolverOptions options =
-          SolverOptions.defaultOptions().withMaxSolutions(-1).withTimeLimitMillis(30_000);
-      SudokuAnalysis analysis =
-          solverService.analyzeBlocking(request.toBoard(), options);
-      return AnalyzeResponse.from(analysis);
+      return request.toBoard();
     } catch (IllegalArgumentException ex) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
     }
   }
 
-  @PostMapping("/target")
-  public TargetCountResponse target(@RequestBody TargetCountRequest request) {
+  private static BigInteger parseTarget(TargetCountRequest request) {
     try {
-      BigInteger target = request.parseTarget();
-      long timeLimitMs = request.timeLimitMsOrDefault(DEFAULT_TIME_LIMIT_MS);
-      long seed = request.seedOrDefault(System.nanoTime());
-      int maxSolutions = request.maxSolutionsOrDefault(DEFAULT_MAX_SOLUTIONS);
-      TargetPuzzleSearch.SearchResult result =
-          targetSearch.findClosest(target, timeLimitMs, maxSolutions, seed);
-      return TargetCountResponse.from(result);
+      return request.parseTarget();
     } catch (IllegalArgumentException ex) {
       throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
     }
   }
+
+  /**
+   * Options for an unbounded count. The deadline is rounded up to a whole second: the solver
+   * service only lets a request join an identical analysis in flight whose deadline is no earlier
+   * than its own, so requests for the same board arriving within that second share one search.
+   */
+  private static SolverOptions analyzeOptions() {
+    long deadline = System.nanoTime() + ANALYZE_TIME_LIMIT_MS * 1_000_000L;
+    deadline += DEADLINE_GRANULARITY_NANOS - Math.floorMod(deadline, DEADLINE_GRANULARITY_NANOS);
+    return SolverOptions.defaultOptions()
+        .withMaxSolutions(-1)
+        .withDeadlineNanos(deadline)
+        .withParallelism(Runtime.getRuntime().availableProcessors());
+  }
+
+  private static long targetTimeLimitMs(TargetCountRequest request) {
+    return Math.min(request.timeLimitMsOrDefault(DEFAULT_TIME_LIMIT_MS), MAX_TIME_LIMIT_MS);
+  }
+
+  /**
+   * The response for {@code analysis}. An exact count that is only a lower bound gets a sampled
+   * estimate within a fixed budget, computed on the estimate pool so that the solver thread which
+   * finished the analysis is free at once; if that pool's queue is full, it goes without.
+   */
+  private CompletableFuture<AnalyzeResponse> respond(SudokuBoard board, SudokuAnalysis analysis) {
+    if (!analysis.limitReached()) {
+      return CompletableFuture.completedFuture(AnalyzeResponse.from(analysis));
+    }
+    return estimatePool
+        .estimate(board, ESTIMATE_MAX_SAMPLES, ESTIMATE_TIME_LIMIT_MS)
+        .handle(
+            (estimate, failure) -> {
+              if (failure != null && !(unwrap(failure) instanceof RejectedExecutionException)) {
+                throw failure instanceof CompletionException completion
+                    ? completion
+                    : new CompletionException(failure);
+              }
+              return AnalyzeResponse.from(analysis, estimate);
+            });
+  }
+
+  /** Ends {@code stream} with a {@code result} or {@code error} event when {@code response} is. */
+  private static void finish(EventStream stream, CompletableFuture<?> response) {
+    response.whenComplete(
+        (result, failure) -> {
+          if (failure == null) {
+            stream.finish("result", result);
+          } else {
+            stream.finish("error", StreamError.from(toResponseStatus(failure)));
+          }
+        });
+  }
+
+  /**
+   * {@code work}, failing after {@code timeoutMs} with a {@link ResponseStatusException} and
+   * cancelling the work, which takes a queued request off its queue and stops a running one. Other
+   * failures are mapped to status codes as well.
+   */
+  private static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> work, long timeoutMs) {
+    return work.copy()
+        .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+        .whenComplete(
+            (result, failure) -> {
+              if (failure instanceof TimeoutException) {
+                work.cancel(false);
+              }
+            })
+        .exceptionally(
+            failure -> {
+              throw toResponseStatus(failure);
+            });
+  }
+
+  private static Throwable unwrap(Throwable failure) {
+    return failure instanceof CompletionException && failure.getCause() != null
+        ? failure.getCause()
+        : failure;
+  }
+
+  private static RuntimeException toResponseStatus(Throwable failure) {
+    Throwable cause = unwrap(failure);
+    if (cause instanceof IllegalArgumentException) {
+      return new ResponseStatusException(HttpStatus.BAD_REQUEST, cause.getMessage(), cause);
+    }
+    if (cause instanceof RejectedExecutionException) {
+      return new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "The solver is busy; try again shortly.", cause);
+    }
+    if (cause instanceof TimeoutException) {
+      return new ResponseStatusException(
+          HttpStatus.SERVICE_UNAVAILABLE, "Timed out waiting for the solver.", cause);
+    }
+    return cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+  }
 }
@@ -0,0 +1,18 @@
+package com.darren.sudokuscope.web.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The {@code error} event that ends a stream which failed after its response had started, carrying
+ * the status code the plain endpoint would have answered with.
+ */
+public record StreamError(int status, String message) {
+
+  public static StreamError from(RuntimeException failure) {
+    if (failure instanceof ResponseStatusException statusException) {
+      return new StreamError(statusException.getStatusCode().value(), statusException.getReason());
+    }
+    return new StreamError(HttpStatus.INTERNAL_SERVER_ERROR.value(), "Internal error");
+  }
+}
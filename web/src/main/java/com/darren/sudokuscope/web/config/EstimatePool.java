@@ -0,0 +1,63 @@
+package com.darren.sudokuscope.web.config;
+
+import com.darren.sudokuscope.core.SudokuBoard;
+import com.darren.sudokuscope.core.solver.SolutionCountEstimator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs {@link SolutionCountEstimator} estimates off the solver's threads, on a fixed pool behind a
+ * bounded queue, so the thread that finished an analysis is free for the next one at once. Each
+ * estimate spreads its probes over the common fork/join pool, so a few threads here are enough.
+ * Like {@link TargetSearchPool}, it is not itself an {@link java.util.concurrent.Executor} bean.
+ */
+public final class EstimatePool implements AutoCloseable {
+  private final SolutionCountEstimator estimator = new SolutionCountEstimator();
+  private final ThreadPoolExecutor executor;
+
+  public EstimatePool(int threads, int queueCapacity) {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sudoku-estimate-");
+    threadFactory.setDaemon(true);
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory);
+  }
+
+  /**
+   * {@link SolutionCountEstimator#estimate(SudokuBoard, int, long)} on the pool. The future fails
+   * with a {@link RejectedExecutionException} when the queue is full.
+   */
+  public CompletableFuture<SolutionCountEstimator.Estimate> estimate(
+      SudokuBoard board, int maxSamples, long timeLimitMillis) {
+    try {
+      return CompletableFuture.supplyAsync(
+          () -> estimator.estimate(board, maxSamples, timeLimitMillis), executor);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+  }
+
+  /** Number of estimates waiting for a thread. */
+  public int queued() {
+    return executor.getQueue().size();
+  }
+
+  /** Number of estimates running. */
+  public int active() {
+    return executor.getActiveCount();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
@@ -1,13 +1,155 @@
 package com.darren.sudokuscope.web.config;
 
+import com.darren.sudokuscope.core.solver.MappedResultStore;
+import com.darren.sudokuscope.core.solver.RejectionPolicy;
 import com.darren.sudokuscope.core.solver.SolverService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class SolverConfiguration {
+  /**
+   * Only created when {@code sudokuscope.result-store.path} is set. A read-only store lets several
+   * instances share a file that none of them writes.
+   */
   @Bean(destroyMethod = "close")
-  public SolverService solverService() {
-    return SolverService.createDefault();
+  @ConditionalOnProperty("sudokuscope.result-store.path")
+  public MappedResultStore resultStore(
+      @Value("${sudokuscope.result-store.path}") String path,
+      @Value("${sudokuscope.result-store.capacity:1000000}") long capacity,
+      @Value("${sudokuscope.result-store.read-only:false}") boolean readOnly)
+      throws IOException {
+    return readOnly
+        ? MappedResultStore.openReadOnly(Path.of(path))
+        : MappedResultStore.open(Path.of(path), capacity);
+  }
+
+  /** Asynchronous analyses default to one thread per processor and a queue of 256 requests. */
+  @Bean(destroyMethod = "close")
+  public SolverService solverService(
+      @Value("${sudokuscope.analysis-cache.max-entries:1024}") int cacheEntries,
+      @Value("${sudokuscope.solver.threads:0}") int threads,
+      @Value("${sudokuscope.solver.virtual-threads:false}") boolean virtualThreads,
+      @Value("${sudokuscope.solver.queue-capacity:256}") int queueCapacity,
+      @Value("${sudokuscope.solver.rejection-policy:ABORT}") RejectionPolicy rejectionPolicy,
+      @Value("${sudokuscope.result-store.min-explored-nodes:100000}") long storeMinExploredNodes,
+      ObjectProvider<MappedResultStore> resultStore) {
+    return SolverService.builder()
+        .withThreads(threads > 0 ? threads : Runtime.getRuntime().availableProcessors())
+        .withVirtualThreads(virtualThreads)
+        .withQueueCapacity(queueCapacity)
+        .withRejectionPolicy(rejectionPolicy)
+        .withCacheSize(cacheEntries)
+        .withResultStore(resultStore.getIfAvailable())
+        .withResultStoreMinExploredNodes(storeMinExploredNodes)
+        .build();
+  }
+
+  /** Target searches default to half the processors and a queue of 32 requests. */
+  @Bean(destroyMethod = "close")
+  public TargetSearchPool targetSearchPool(
+      @Value("${sudokuscope.target-search.threads:0}") int threads,
+      @Value("${sudokuscope.target-search.queue-capacity:32}") int queueCapacity) {
+    return new TargetSearchPool(
+        threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+        queueCapacity);
+  }
+
+  /** Estimates for limit-reached analyses default to two threads and a queue of 64 requests. */
+  @Bean(destroyMethod = "close")
+  public EstimatePool estimatePool(
+      @Value("${sudokuscope.estimate.threads:2}") int threads,
+      @Value("${sudokuscope.estimate.queue-capacity:64}") int queueCapacity) {
+    return new EstimatePool(threads, queueCapacity);
+  }
+
+  /**
+   * Publishes the service's queue as {@code sudokuscope.solver.*} meters, the target search pool's
+   * as {@code sudokuscope.target.*}, the estimate pool's as {@code sudokuscope.estimate.*}, the
+   * analysis cache's counters as {@code sudokuscope.analysis.cache.*} and the result store's as
+   * {@code sudokuscope.result.store.*}.
+   */
+  @Bean
+  public MeterBinder solverServiceMetrics(
+      SolverService solverService, TargetSearchPool targetSearchPool, EstimatePool estimatePool) {
+    return registry -> {
+      Gauge.builder("sudokuscope.estimate.queued", estimatePool, EstimatePool::queued)
+          .register(registry);
+      Gauge.builder("sudokuscope.estimate.active", estimatePool, EstimatePool::active)
+          .register(registry);
+      Gauge.builder("sudokuscope.target.queued", targetSearchPool, TargetSearchPool::queued)
+          .register(registry);
+      Gauge.builder("sudokuscope.target.active", targetSearchPool, TargetSearchPool::active)
+          .register(registry);
+      Gauge.builder("sudokuscope.solver.queued", solverService, s -> s.stats().queued())
+          .register(registry);
+      Gauge.builder("sudokuscope.solver.active", solverService, s -> s.stats().active())
+          .register(registry);
+      FunctionCounter.builder(
+              "sudokuscope.solver.rejected", solverService, s -> s.stats().rejected())
+          .register(registry);
+      FunctionCounter.builder(
+              "sudokuscope.solver.coalesced", solverService, s -> s.stats().coalesced())
+          .register(registry);
+      FunctionTimer.builder(
+              "sudokuscope.solver.queue.wait",
+              solverService,
+              s -> s.stats().completed(),
+              s -> s.stats().totalQueueNanos(),
+              TimeUnit.NANOSECONDS)
+          .register(registry);
+      FunctionTimer.builder(
+              "sudokuscope.solver.run",
+              solverService,
+              s -> s.stats().completed(),
+              s -> s.stats().totalRunNanos(),
+              TimeUnit.NANOSECONDS)
+          .register(registry);
+      solverService
+          .cache()
+          .ifPresent(
+              cache -> {
+                FunctionCounter.builder(
+                        "sudokuscope.analysis.cache.hits", cache, c -> c.stats().hits())
+                    .register(registry);
+                FunctionCounter.builder(
+                        "sudokuscope.analysis.cache.misses", cache, c -> c.stats().misses())
+                    .register(registry);
+                FunctionCounter.builder(
+                        "sudokuscope.analysis.cache.evictions", cache, c -> c.stats().evictions())
+                    .register(registry);
+                Gauge.builder("sudokuscope.analysis.cache.size", cache, c -> c.stats().size())
+                    .register(registry);
+                Gauge.builder(
+                        "sudokuscope.analysis.cache.hit.ratio", cache, c -> c.stats().hitRatio())
+                    .register(registry);
+              });
+      solverService
+          .resultStore()
+          .ifPresent(
+              store -> {
+                FunctionCounter.builder(
+                        "sudokuscope.result.store.hits", store, s -> s.stats().hits())
+                    .register(registry);
+                FunctionCounter.builder(
+                        "sudokuscope.result.store.misses", store, s -> s.stats().misses())
+                    .register(registry);
+                FunctionCounter.builder(
+                        "sudokuscope.result.store.rejected", store, s -> s.stats().rejected())
+                    .register(registry);
+                Gauge.builder("sudokuscope.result.store.entries", store, s -> s.stats().entries())
+                    .register(registry);
+              });
+    };
   }
 }
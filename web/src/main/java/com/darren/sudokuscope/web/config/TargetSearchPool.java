@@ -0,0 +1,85 @@
+package com.darren.sudokuscope.web.config;
+
+import com.darren.sudokuscope.core.solver.CancellationToken;
+import com.darren.sudokuscope.core.solver.TargetPuzzleSearch;
+import java.math.BigInteger;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Runs {@link TargetPuzzleSearch}es off the request threads, on a fixed pool behind a bounded
+ * queue. It is not itself an {@link java.util.concurrent.Executor} bean, which would replace the
+ * application task executor Spring Boot configures.
+ */
+public final class TargetSearchPool implements AutoCloseable {
+  private final TargetPuzzleSearch search = new TargetPuzzleSearch();
+  private final ThreadPoolExecutor executor;
+
+  public TargetSearchPool(int threads, int queueCapacity) {
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("sudoku-target-");
+    threadFactory.setDaemon(true);
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            threadFactory);
+  }
+
+  /**
+   * {@link TargetPuzzleSearch#findClosest} on the pool. Cancelling the future stops the search: one
+   * still queued never starts, and a running one returns within one solution count. The future
+   * fails with a {@link RejectedExecutionException} when the queue is full.
+   */
+  public CompletableFuture<TargetPuzzleSearch.SearchResult> findClosest(
+      BigInteger target, long timeLimitMillis, int maxSolutions, long seed) {
+    return findClosest(target, timeLimitMillis, maxSolutions, seed, null);
+  }
+
+  /**
+   * {@link #findClosest(BigInteger, long, int, long)}, reporting each closer puzzle to {@code
+   * listener}, which may be {@code null}, on the pool thread.
+   */
+  public CompletableFuture<TargetPuzzleSearch.SearchResult> findClosest(
+      BigInteger target,
+      long timeLimitMillis,
+      int maxSolutions,
+      long seed,
+      TargetPuzzleSearch.ImprovementListener listener) {
+    CancellationToken token = new CancellationToken();
+    CompletableFuture<TargetPuzzleSearch.SearchResult> work;
+    try {
+      work =
+          CompletableFuture.supplyAsync(
+              () ->
+                  search.findClosest(target, timeLimitMillis, maxSolutions, seed, listener, token),
+              executor);
+    } catch (RejectedExecutionException ex) {
+      return CompletableFuture.failedFuture(ex);
+    }
+    // Cancelling a supplyAsync future does not reach the running task; the token does.
+    work.whenComplete((result, failure) -> token.cancel());
+    return work;
+  }
+
+  /** Number of searches waiting for a thread. */
+  public int queued() {
+    return executor.getQueue().size();
+  }
+
+  /** Number of searches running. */
+  public int active() {
+    return executor.getActiveCount();
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
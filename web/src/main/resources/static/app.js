@@ -102,31 +102,105 @@ function sanitizeDecimalInput(event) {
   event.target.value = normalized;
 }
 
+// POSTs body to a Server-Sent Events endpoint and calls onEvent(name, data) for each event until
+// the server ends the stream. Aborting signal disconnects, which stops the work on the server.
+async function streamEvents(url, body, onEvent, signal) {
+  const response = await fetch(url, {
+    method: 'POST',
+    headers: { 'Content-Type': 'application/json', Accept: 'text/event-stream' },
+    body: JSON.stringify(body),
+    signal,
+  });
+
+  if (!response.ok) {
+    const text = await response.text();
+    throw new Error(text || 'Request failed');
+  }
+
+  const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+  let buffer = '';
+  for (;;) {
+    const { value, done } = await reader.read();
+    if (done) {
+      return;
+    }
+    buffer += value.replace(/\r/g, '');
+    let end = buffer.indexOf('\n\n');
+    while (end >= 0) {
+      let name = 'message';
+      const data = [];
+      buffer
+        .slice(0, end)
+        .split('\n')
+        .forEach((line) => {
+          if (line.startsWith('event:')) {
+            name = line.slice(6).trim();
+          } else if (line.startsWith('data:')) {
+            data.push(line.slice(5));
+          }
+        });
+      buffer = buffer.slice(end + 2);
+      if (data.length > 0) {
+        onEvent(name, JSON.parse(data.join('\n')));
+      }
+      end = buffer.indexOf('\n\n');
+    }
+  }
+}
+
+function formatRate(perSecond) {
+  return Math.round(perSecond).toLocaleString('en-US');
+}
+
+let analyzeStream = null;
+
+function stopAnalyzing() {
+  if (analyzeStream) {
+    analyzeStream.abort();
+    analyzeStream = null;
+  }
+}
+
+function showAnalysis(data) {
+  statValid.textContent = data.valid ? 'Yes' : 'No';
+  statStatus.textContent = data.status || '-';
+  statSolutions.textContent =
+    data.solutionCount ? (data.limitReached ? `~${data.solutionCount}` : data.solutionCount) : '-';
+  statUnique.textContent = data.unique ? 'Yes' : 'No';
+  setSolution(data.exemplarSolution);
+  setStatus(data.message || 'Analysis complete.');
+}
+
 async function analyzeBoard() {
   const cells = readBoard();
+  stopAnalyzing();
+  const stream = new AbortController();
+  analyzeStream = stream;
   setStatus('Analyzing...');
   try {
-    const response = await fetch('api/analyze', {
-      method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
-      body: JSON.stringify({ cells }),
-    });
-
-    if (!response.ok) {
-      const text = await response.text();
-      throw new Error(text || 'Request failed');
-    }
-
-    const data = await response.json();
-    statValid.textContent = data.valid ? 'Yes' : 'No';
-    statStatus.textContent = data.status || '-';
-    statSolutions.textContent =
-      data.solutionCount ? (data.limitReached ? `~${data.solutionCount}` : data.solutionCount) : '-';
-    statUnique.textContent = data.unique ? 'Yes' : 'No';
-    setSolution(data.exemplarSolution);
-    setStatus(data.message || 'Analysis complete.');
+    await streamEvents(
+      'api/analyze/stream',
+      { cells },
+      (event, data) => {
+        if (event === 'progress') {
+          statSolutions.textContent = `${data.solutionsFound.toLocaleString('en-US')}+`;
+          setStatus(`Analyzing... ${formatRate(data.nodesPerSecond)} nodes/s`);
+        } else if (event === 'result') {
+          showAnalysis(data);
+        } else if (event === 'error') {
+          setStatus(data.message || 'Unable to analyze board.');
+        }
+      },
+      stream.signal,
+    );
   } catch (error) {
-    setStatus(error.message || 'Unable to analyze board.');
+    if (error.name !== 'AbortError') {
+      setStatus(error.message || 'Unable to analyze board.');
+    }
+  } finally {
+    if (analyzeStream === stream) {
+      analyzeStream = null;
+    }
   }
 }
 
@@ -187,6 +261,24 @@ function parseSeed() {
   return Number.parseInt(raw, 10);
 }
 
+let targetStream = null;
+
+function stopTargetSearch() {
+  if (targetStream) {
+    targetStream.abort();
+    targetStream = null;
+  }
+}
+
+function showTargetResult(data) {
+  setTargetBoard(data.board || Array(81).fill(0));
+  const solutionText = data.solutionCount || '-';
+  targetSolutions.textContent = data.approximate ? `~${solutionText}` : solutionText;
+  targetApprox.textContent = data.approximate ? 'Yes' : 'No';
+  targetDelta.textContent = data.delta || '-';
+  targetElapsed.textContent = data.elapsedMillis ? `${data.elapsedMillis}ms` : '-';
+}
+
 async function runTargetSearch() {
   const target = parseTarget();
   if (!target) {
@@ -194,33 +286,35 @@ async function runTargetSearch() {
   }
   const timeLimitMs = parseTimeLimitMs();
   const seed = parseSeed();
+  stopTargetSearch();
+  const stream = new AbortController();
+  targetStream = stream;
   setTargetStatus('Searching for closest puzzle...');
   try {
-    const response = await fetch('api/target', {
-      method: 'POST',
-      headers: { 'Content-Type': 'application/json' },
-      body: JSON.stringify({
-        target,
-        timeLimitMs,
-        seed,
-      }),
-    });
-
-    if (!response.ok) {
-      const text = await response.text();
-      throw new Error(text || 'Request failed');
-    }
-
-    const data = await response.json();
-    setTargetBoard(data.board || Array(81).fill(0));
-    const solutionText = data.solutionCount || '-';
-    targetSolutions.textContent = data.approximate ? `~${solutionText}` : solutionText;
-    targetApprox.textContent = data.approximate ? 'Yes' : 'No';
-    targetDelta.textContent = data.delta || '-';
-    targetElapsed.textContent = data.elapsedMillis ? `${data.elapsedMillis}ms` : '-';
-    setTargetStatus(data.message || 'Search complete.');
+    await streamEvents(
+      'api/target/stream',
+      { target, timeLimitMs, seed },
+      (event, data) => {
+        if (event === 'best') {
+          showTargetResult(data);
+          setTargetStatus(`Searching... closest so far is ${data.delta || '-'} away.`);
+        } else if (event === 'result') {
+          showTargetResult(data);
+          setTargetStatus(data.message || 'Search complete.');
+        } else if (event === 'error') {
+          setTargetStatus(data.message || 'Unable to search.');
+        }
+      },
+      stream.signal,
+    );
   } catch (error) {
-    setTargetStatus(error.message || 'Unable to search.');
+    if (error.name !== 'AbortError') {
+      setTargetStatus(error.message || 'Unable to search.');
+    }
+  } finally {
+    if (targetStream === stream) {
+      targetStream = null;
+    }
   }
 }
 
@@ -274,6 +368,7 @@ async function loadRandomExample() {
 }
 
 clearButton.addEventListener('click', () => {
+  stopAnalyzing();
   setBoard(Array(81).fill(0));
   setSolution(null);
   setStatus('Cleared.');
@@ -283,7 +378,10 @@ loadExampleButton.addEventListener('click', loadRandomExample);
 
 analyzeButton.addEventListener('click', analyzeBoard);
 targetSearchButton.addEventListener('click', runTargetSearch);
-targetClearButton.addEventListener('click', clearTargetResult);
+targetClearButton.addEventListener('click', () => {
+  stopTargetSearch();
+  clearTargetResult();
+});
 targetInput.addEventListener('input', sanitizeDigitsInput);
 targetSeed.addEventListener('input', sanitizeDigitsInput);
 targetTime.addEventListener('input', sanitizeDecimalInput);
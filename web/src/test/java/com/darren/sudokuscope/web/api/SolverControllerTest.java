@@ -1,23 +1,34 @@
 package com.darren.sudokuscope.web.api;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.darren.sudokuscope.web.config.TargetSearchPool;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 class SolverControllerTest {
   @Autowired private MockMvc mockMvc;
   @Autowired private ObjectMapper objectMapper;
+  @Autowired private TargetSearchPool targetSearchPool;
 
   @Test
   void analyzeSolvableBoardReturnsUnique() throws Exception {
@@ -36,8 +47,13 @@ class SolverControllerTest {
 
     String payload = objectMapper.writeValueAsString(Map.of("cells", cells));
 
+    MvcResult started =
+        mockMvc
+            .perform(post("/api/analyze").contentType(MediaType.APPLICATION_JSON).content(payload))
+            .andExpect(request().asyncStarted())
+            .andReturn();
     mockMvc
-        .perform(post("/api/analyze").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .perform(asyncDispatch(started))
         .andExpect(status().isOk())
         .andExpect(jsonPath("$.valid").value(true))
         .andExpect(jsonPath("$.status").value("UNIQUE_SOLUTION"));
@@ -50,4 +66,109 @@ class SolverControllerTest {
         .perform(post("/api/analyze").contentType(MediaType.APPLICATION_JSON).content(payload))
         .andExpect(status().isBadRequest());
   }
+
+  @Test
+  void targetSearchRunsOffTheRequestThread() throws Exception {
+    String payload =
+        objectMapper.writeValueAsString(Map.of("target", "1000", "timeLimitMs", 500, "seed", 7));
+
+    MvcResult started =
+        mockMvc
+            .perform(post("/api/target").contentType(MediaType.APPLICATION_JSON).content(payload))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.board.length()").value(81));
+  }
+
+  @Test
+  void analyzeStreamEndsWithTheResultEvent() throws Exception {
+    String payload =
+        objectMapper.writeValueAsString(
+            Map.of(
+                "cells",
+                "530070000600195000098000060800060003400803001700020006060000280000419005000080079"
+                    .chars()
+                    .map(digit -> digit - '0')
+                    .toArray()));
+
+    MvcResult started =
+        mockMvc
+            .perform(
+                post("/api/analyze/stream")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .content(payload))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    started.getAsyncResult();
+
+    assertThat(started.getResponse().getContentAsString())
+        .contains("event:result")
+        .contains("\"status\":\"UNIQUE_SOLUTION\"");
+  }
+
+  @Test
+  void targetStreamReportsImprovementsBeforeTheResult() throws Exception {
+    String payload =
+        objectMapper.writeValueAsString(Map.of("target", "1000", "timeLimitMs", 500, "seed", 7));
+
+    MvcResult started =
+        mockMvc
+            .perform(
+                post("/api/target/stream")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .content(payload))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    started.getAsyncResult();
+
+    String events = started.getResponse().getContentAsString();
+    assertThat(events).contains("event:best").contains("event:result");
+    assertThat(events.indexOf("event:best")).isLessThan(events.indexOf("event:result"));
+  }
+
+  @Test
+  void closingATargetStreamStopsItsSearch() throws Exception {
+    // A target no puzzle reaches, so the search would otherwise run for its whole minute.
+    String payload =
+        objectMapper.writeValueAsString(
+            Map.of("target", "1000000000000", "timeLimitMs", 60_000, "seed", 7));
+
+    MvcResult started =
+        mockMvc
+            .perform(
+                post("/api/target/stream")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .content(payload))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (targetSearchPool.active() == 0 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(targetSearchPool.active()).as("searches running").isOne();
+    MockAsyncContext context = (MockAsyncContext) started.getRequest().getAsyncContext();
+    for (AsyncListener listener : context.getListeners()) {
+      listener.onError(new AsyncEvent(context, new IOException("Broken pipe")));
+    }
+
+    deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (targetSearchPool.active() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(targetSearchPool.active()).isZero();
+  }
+
+  @Test
+  void targetRejectsAMissingTargetBeforeQueueing() throws Exception {
+    String payload = objectMapper.writeValueAsString(Map.of("timeLimitMs", 500));
+    mockMvc
+        .perform(post("/api/target").contentType(MediaType.APPLICATION_JSON).content(payload))
+        .andExpect(status().isBadRequest());
+  }
 }